@@ -0,0 +1,123 @@
+package com.healthcare.healthcare.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.healthcare.healthcare.controller.PatientController.ApiResponse;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+/**
+ * JSON serialization cost of the controller payloads for patients read from
+ * the seeded database. Each operation builds the response envelope and writes
+ * it to an output stream, as the HTTP message converter does.
+ *
+ * <p>{@code mapper=application} is the application's ObjectMapper (Blackbird
+ * accessors); {@code mapper=reflective} is a plain Spring-built mapper with
+ * the same date settings, for comparison. Run with {@code -prof gc} to see
+ * bytes allocated per response ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ApiResponseSerializationBenchmark {
+
+    private static final int LIST_SIZE = 1000;
+
+    @Param({ "application", "reflective" })
+    public String mapper;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private Patient patient;
+    private List<Patient> patients;
+    private final CountingOutputStream sink = new CountingOutputStream();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start(LIST_SIZE);
+        objectMapper = "reflective".equals(mapper)
+                ? Jackson2ObjectMapperBuilder.json()
+                        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .build()
+                : context.getBean(ObjectMapper.class);
+        patients = context.getBean(PatientRepository.class).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(LIST_SIZE),
+                Patient.class);
+        patient = patients.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long singlePatient() throws IOException {
+        return write(ApiResponse.<Patient>builder()
+                .success(true)
+                .message("Patient retrieved successfully")
+                .data(patient)
+                .build());
+    }
+
+    @Benchmark
+    public long patientList() throws IOException {
+        return write(ApiResponse.<List<Patient>>builder()
+                .success(true)
+                .message("Patients retrieved successfully")
+                .data(patients)
+                .count(patients.size())
+                .build());
+    }
+
+    private long write(Object response) throws IOException {
+        sink.count = 0;
+        objectMapper.writeValue(sink, response);
+        return sink.count;
+    }
+
+    // Discards the bytes but keeps their count so the work cannot be optimized away
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void close() {
+            // writeValue closes the target; keep the sink reusable
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.healthcare.healthcare.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.healthcare.healthcare.HealthcareApplication;
+
+/**
+ * Starts the application against a private in-memory H2 database seeded with a
+ * fixed number of patients. The seed is fixed, so every run of a given size
+ * sees the same data.
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(int rows, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                "spring.main.banner-mode=off",
+                "spring.devtools.restart.enabled=false",
+                "logging.level.root=WARN",
+                "healthcare.seed.count=" + rows,
+                "healthcare.seed.random-seed=42",
+                "healthcare.seed.batch-size=2000",
+                "healthcare.search.index-dir=",
+                "healthcare.events.dir="));
+        properties.addAll(Arrays.asList(extraProperties));
+
+        // As command-line arguments: builder properties are defaults, which application.properties would override
+        return new SpringApplicationBuilder(HealthcareApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(properties.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    static String patientId(int index) {
+        StringBuilder id = new StringBuilder(9).append('P');
+        String digits = Integer.toString(index);
+        for (int i = digits.length(); i < 8; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+}
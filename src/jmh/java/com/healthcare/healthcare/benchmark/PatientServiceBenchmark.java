@@ -0,0 +1,215 @@
+package com.healthcare.healthcare.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.healthcare.dto.PatientAnalyticsQuery;
+import com.healthcare.healthcare.dto.PatientCountResult;
+import com.healthcare.healthcare.dto.PatientSummary;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.service.PatientService;
+import com.healthcare.healthcare.service.StatusFilter;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Latency of the PatientService hot paths against a seeded H2 database.
+ * The legacy* benchmarks run the queries these paths replaced, so a single
+ * run gives a before/after comparison at the chosen table size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PatientServiceBenchmark {
+
+    private static final String[] NAME_QUERIES = { "john", "smi", "ann", "son", "maria gar", "jo" };
+    // Active O- patients in Texas aged 60 or over
+    private static final PatientAnalyticsQuery COUNT_QUERY =
+            new PatientAnalyticsQuery(null, "O-", null, "Texas", null, null, null, null, 60, null, null);
+    // Active patients aged 60 or over per state
+    private static final PatientAnalyticsQuery GROUP_QUERY =
+            new PatientAnalyticsQuery(null, null, null, null, null, null, null, null, 60, null, "state");
+
+    @Param({ "10000" })
+    public int rows;
+
+    @Param({ "1000" })
+    public int bulkSize;
+
+    private ConfigurableApplicationContext context;
+    private PatientService patientService;
+    private PatientRepository patientRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private final AtomicLong bulkSequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start(rows);
+        patientService = context.getBean(PatientService.class);
+        patientRepository = context.getBean(PatientRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Patient> getPatientById() {
+        return patientService.getPatientById(randomPatientId());
+    }
+
+    @Benchmark
+    public Optional<Patient> findByPatientIdUncached() {
+        return patientRepository.findByPatientId(randomPatientId());
+    }
+
+    @Benchmark
+    public List<Patient> searchPatientsByName() {
+        return patientService.searchPatientsByName(randomNameQuery(), 20, StatusFilter.ACTIVE, Patient.class);
+    }
+
+    @Benchmark
+    public List<PatientSummary> searchPatientSummariesByName() {
+        return patientService.searchPatientsByName(randomNameQuery(), 20, StatusFilter.ACTIVE,
+                PatientSummary.class);
+    }
+
+    @Benchmark
+    public List<Patient> legacySearchPatientsByName() {
+        // The unbounded LOWER(CONCAT(...)) LIKE '%name%' scan the index replaced
+        return patientRepository.findByFullNameContaining(randomNameQuery(), Limit.unlimited());
+    }
+
+    @Benchmark
+    public Slice<Patient> findPatientsByAgeRange() {
+        int minAge = ThreadLocalRandom.current().nextInt(18, 75);
+        return patientService.findPatientsByAgeRange(minAge, minAge + 5, 0, 100, StatusFilter.ACTIVE, Patient.class);
+    }
+
+    @Benchmark
+    public Slice<PatientSummary> findPatientSummariesByAgeRange() {
+        int minAge = ThreadLocalRandom.current().nextInt(18, 75);
+        return patientService.findPatientsByAgeRange(minAge, minAge + 5, 0, 100, StatusFilter.ACTIVE,
+                PatientSummary.class);
+    }
+
+    @Benchmark
+    public List<Patient> legacyFindPatientsByAgeRange() {
+        int minAge = ThreadLocalRandom.current().nextInt(18, 75);
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT p FROM Patient p WHERE YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) "
+                        + "BETWEEN :minAge AND :maxAge ORDER BY p.dateOfBirth, p.id", Patient.class)
+                .setParameter("minAge", minAge)
+                .setParameter("maxAge", minAge + 5)
+                .setMaxResults(100)
+                .getResultList());
+    }
+
+    @Benchmark
+    public PatientCountResult countPatients() {
+        return patientService.countPatients(COUNT_QUERY);
+    }
+
+    @Benchmark
+    public int legacyCountPatients() {
+        // The same count by loading the matching entities through JPA
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT p FROM Patient p WHERE p.status = :status AND p.state = :state "
+                        + "AND p.bloodGroup = :bloodGroup AND p.dateOfBirth <= :bornTo", Patient.class)
+                .setParameter("status", Patient.PatientStatus.ACTIVE)
+                .setParameter("state", "Texas")
+                .setParameter("bloodGroup", "O-")
+                .setParameter("bornTo", LocalDate.now().minusYears(60))
+                .getResultList()
+                .size());
+    }
+
+    @Benchmark
+    public PatientCountResult countPatientsByState() {
+        return patientService.countPatients(GROUP_QUERY);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<String, Long> legacyCountPatientsByState() {
+        // The same breakdown by loading the matching entities through JPA and grouping them
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT p FROM Patient p WHERE p.status = :status AND p.dateOfBirth <= :bornTo",
+                        Patient.class)
+                .setParameter("status", Patient.PatientStatus.ACTIVE)
+                .setParameter("bornTo", LocalDate.now().minusYears(60))
+                .getResultStream()
+                .collect(Collectors.groupingBy(Patient::getState, Collectors.counting())));
+    }
+
+    // Each invocation inserts bulkSize new rows, so the table grows during the run
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Long> createPatientsBulk() {
+        List<Patient> patients = new ArrayList<>(bulkSize);
+        for (int i = 0; i < bulkSize; i++) {
+            patients.add(newPatient());
+        }
+        return patientService.createPatients(patients);
+    }
+
+    @Benchmark
+    public Patient createPatient() {
+        return patientService.createPatient(newPatient());
+    }
+
+    private String randomPatientId() {
+        return BenchmarkContexts.patientId(ThreadLocalRandom.current().nextInt(1, rows + 1));
+    }
+
+    private static String randomNameQuery() {
+        return NAME_QUERIES[ThreadLocalRandom.current().nextInt(NAME_QUERIES.length)];
+    }
+
+    private Patient newPatient() {
+        long n = bulkSequence.incrementAndGet();
+        return Patient.builder()
+                .patientId("B" + n)
+                .firstName("Bench")
+                .lastName("Patient" + n)
+                .dateOfBirth(LocalDate.of(1980, 1, 1).plusDays(n % 10000))
+                .gender(Patient.Gender.OTHER)
+                .email("bench" + n + "@example.com")
+                .phoneNumber("(555) 000-" + (n % 10000))
+                .build();
+    }
+}
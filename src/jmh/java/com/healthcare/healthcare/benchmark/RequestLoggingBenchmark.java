@@ -0,0 +1,84 @@
+package com.healthcare.healthcare.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.healthcare.healthcare.controller.PatientController;
+import com.healthcare.healthcare.controller.PatientController.ApiResponse;
+import com.healthcare.healthcare.entity.Patient;
+
+/**
+ * Controller throughput with application logging off, with the default
+ * rate-limited request logs, and with every request logged. Output goes
+ * through the async console appender, so run with stdout redirected to keep
+ * the terminal out of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RequestLoggingBenchmark {
+
+    private static final String[] NAME_QUERIES = { "john", "smi", "ann", "son", "maria gar", "jo" };
+
+    @Param({ "off", "rate-limited", "all" })
+    public String logging;
+
+    @Param({ "10000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private PatientController controller;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String level = "off".equals(logging) ? "WARN" : "INFO";
+        String perSecond = "all".equals(logging) ? "1000000" : "50";
+        context = BenchmarkContexts.start(rows,
+                "logging.level.com.healthcare.healthcare=" + level,
+                "healthcare.logging.request-logs-per-second=" + perSecond);
+        controller = context.getBean(PatientController.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<Patient>> getPatientById() {
+        int index = ThreadLocalRandom.current().nextInt(1, rows + 1);
+        return controller.getPatientById(BenchmarkContexts.patientId(index),
+                new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse()));
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiResponse<List<?>>> searchPatientsByName() {
+        String query = NAME_QUERIES[ThreadLocalRandom.current().nextInt(NAME_QUERIES.length)];
+        return controller.searchPatientsByName(query, 20, null, null);
+    }
+}
@@ -2,12 +2,18 @@ package com.healthcare.healthcare;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class HealthcareApplication {
 
+	// Startup steps kept for StartupReport and /actuator/startup; a few per bean
+	private static final int STARTUP_STEPS = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(HealthcareApplication.class, args);
+		SpringApplication application = new SpringApplication(HealthcareApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 
 }
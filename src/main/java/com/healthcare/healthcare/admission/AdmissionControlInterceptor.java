@@ -0,0 +1,314 @@
+package com.healthcare.healthcare.admission;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.healthcare.controller.PatientController.ApiResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for the patient API, applied once the handler is known
+ * and before any of its work is done. {@code AdmissionControlConfig}
+ * registers it for {@code /api/**}.
+ *
+ * <p>Each client has a token bucket in {@link ClientRateLimiter}. The client
+ * is the authenticated principal, else the
+ * {@code healthcare.admission.client-header} value when the request came
+ * through one of the {@code trusted-proxies}, else the remote address; the
+ * header is ignored from anyone else, who could otherwise pick a fresh
+ * bucket per request.
+ * Interactive requests cost one token and bulk requests cost
+ * {@code bulk-cost}; handlers marked {@link BulkEndpoint} are bulk, the rest
+ * interactive. A client over its rate gets 429 with the Retry-After
+ * that makes its next request fit.
+ *
+ * <p>Concurrency is capped in two classes with lock-free counters. At most
+ * {@code max-concurrent} requests run at once, and bulk requests at most
+ * {@code max-concurrent-bulk} of them. Interactive lookups and writes always
+ * have the remaining slots. A request that finds no slot is shed immediately
+ * with 503 instead of queueing for a connection. Deferred and streaming
+ * responses hold their slot until the response completes.
+ */
+@Component
+@Slf4j
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    // Priority of an admitted request whose slot has not been released or handed to an async listener yet
+    private static final String ADMITTED = AdmissionControlInterceptor.class.getName() + ".ADMITTED";
+
+    enum Priority {
+        INTERACTIVE,
+        BULK
+    }
+
+    private final boolean enabled;
+    private final String clientHeader;
+    private final Set<String> trustedProxies;
+    private final int bulkCost;
+    private final int maxConcurrent;
+    private final int maxConcurrentBulk;
+    private final String overloadRetryAfter;
+    private final ClientRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger bulkInFlight = new AtomicInteger();
+    private final Counter rateLimitedInteractive;
+    private final Counter rateLimitedBulk;
+    private final Counter overloadedInteractive;
+    private final Counter overloadedBulk;
+
+    public AdmissionControlInterceptor(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${healthcare.admission.enabled:true}") boolean enabled,
+            @Value("${healthcare.admission.client-header:X-Client-Id}") String clientHeader,
+            @Value("${healthcare.admission.trusted-proxies:}") Set<String> trustedProxies,
+            @Value("${healthcare.admission.rate-per-second:100}") double ratePerSecond,
+            @Value("${healthcare.admission.burst:200}") int burst,
+            @Value("${healthcare.admission.bulk-cost:10}") int bulkCost,
+            @Value("${healthcare.admission.max-clients:100000}") int maxClients,
+            @Value("${healthcare.admission.max-clients-per-address:10000}") int maxClientsPerAddress,
+            @Value("${healthcare.admission.max-concurrent:64}") int maxConcurrent,
+            @Value("${healthcare.admission.max-concurrent-bulk:4}") int maxConcurrentBulk,
+            @Value("${healthcare.admission.overload-retry-after:1s}") Duration overloadRetryAfter) {
+        if (maxConcurrentBulk < 1 || maxConcurrentBulk >= maxConcurrent) {
+            throw new IllegalArgumentException(
+                    "healthcare.admission.max-concurrent-bulk must be at least 1 and below max-concurrent");
+        }
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.clientHeader = clientHeader;
+        this.trustedProxies = Set.copyOf(trustedProxies);
+        this.bulkCost = bulkCost;
+        this.maxConcurrent = maxConcurrent;
+        this.maxConcurrentBulk = maxConcurrentBulk;
+        this.overloadRetryAfter = Long.toString(Math.max(1, overloadRetryAfter.toSeconds()));
+        this.rateLimiter = new ClientRateLimiter(ratePerSecond, burst, maxClients, maxClientsPerAddress,
+                System::nanoTime);
+
+        this.rateLimitedInteractive = rejectedCounter(meterRegistry, "rate_limited", Priority.INTERACTIVE);
+        this.rateLimitedBulk = rejectedCounter(meterRegistry, "rate_limited", Priority.BULK);
+        this.overloadedInteractive = rejectedCounter(meterRegistry, "overloaded", Priority.INTERACTIVE);
+        this.overloadedBulk = rejectedCounter(meterRegistry, "overloaded", Priority.BULK);
+        Gauge.builder("patients.admission.in_flight", inFlight, AtomicInteger::get)
+                .description("API requests being processed")
+                .register(meterRegistry);
+        Gauge.builder("patients.admission.in_flight.bulk", bulkInFlight, AtomicInteger::get)
+                .description("Bulk API requests being processed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        // Async dispatches resume a request admitted on its first dispatch; CORS pre-flights have no handler method
+        if (!enabled || request.getDispatcherType() != DispatcherType.REQUEST
+                || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Priority priority = classify(handlerMethod, request);
+        String client = clientOf(request);
+
+        long waitNanos = rateLimiter.tryAcquire(client, request.getRemoteAddr(),
+                priority == Priority.BULK ? bulkCost : 1);
+        if (waitNanos > 0) {
+            (priority == Priority.BULK ? rateLimitedBulk : rateLimitedInteractive).increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+            reject(request, response, HttpStatus.TOO_MANY_REQUESTS, Long.toString(retryAfter),
+                    "Rate limit exceeded for client " + client + "; retry after " + retryAfter + " s");
+            return false;
+        }
+        if (!acquire(priority)) {
+            (priority == Priority.BULK ? overloadedBulk : overloadedInteractive).increment();
+            reject(request, response, HttpStatus.SERVICE_UNAVAILABLE, overloadRetryAfter,
+                    "Server is busy; retry after " + overloadRetryAfter + " s");
+            return false;
+        }
+        request.setAttribute(ADMITTED, priority);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // Deferred and streaming responses keep their slot until the response ends
+        Priority priority = takeAdmitted(request);
+        if (priority != null) {
+            request.getAsyncContext().addListener(new ReleaseOnCompletion(priority));
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Priority priority = takeAdmitted(request);
+        if (priority != null) {
+            release(priority);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${healthcare.admission.evict-interval-ms:60000}")
+    public void evictIdleClients() {
+        int evicted = rateLimiter.evictIdle();
+        if (evicted > 0) {
+            log.debug("Dropped {} idle rate-limit buckets; {} remain", evicted, rateLimiter.clients());
+        }
+    }
+
+    static Priority classify(HandlerMethod handler, HttpServletRequest request) {
+        BulkEndpoint bulk = handler.getMethodAnnotation(BulkEndpoint.class);
+        if (bulk == null) {
+            return Priority.INTERACTIVE;
+        }
+        if (bulk.sizeParameter().isEmpty()) {
+            return Priority.BULK;
+        }
+        String size = request.getParameter(bulk.sizeParameter());
+        if (size == null || size.isBlank()) {
+            return Priority.INTERACTIVE;
+        }
+        try {
+            return Integer.parseInt(size.trim()) > bulk.interactiveUpTo() ? Priority.BULK : Priority.INTERACTIVE;
+        } catch (NumberFormatException e) {
+            // Binding rejects it with 400 anyway; charge it as the larger call until then
+            return Priority.BULK;
+        }
+    }
+
+    // Prefixed so that no principal or forwarded id can share the bucket of an address
+    private String clientOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        if (!clientHeader.isEmpty() && trustedProxies.contains(request.getRemoteAddr())) {
+            String client = request.getHeader(clientHeader);
+            if (client != null && !client.isBlank()) {
+                return "client:" + client.trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    // Bulk requests need a bulk slot and a general one, so they can never take the slots kept for interactive ones
+    private boolean acquire(Priority priority) {
+        if (priority == Priority.INTERACTIVE) {
+            return tryIncrement(inFlight, maxConcurrent);
+        }
+        if (!tryIncrement(bulkInFlight, maxConcurrentBulk)) {
+            return false;
+        }
+        if (!tryIncrement(inFlight, maxConcurrent)) {
+            bulkInFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void release(Priority priority) {
+        inFlight.decrementAndGet();
+        if (priority == Priority.BULK) {
+            bulkInFlight.decrementAndGet();
+        }
+    }
+
+    private static Priority takeAdmitted(HttpServletRequest request) {
+        Priority priority = (Priority) request.getAttribute(ADMITTED);
+        request.removeAttribute(ADMITTED);
+        return priority;
+    }
+
+    private static boolean tryIncrement(AtomicInteger counter, int limit) {
+        int current;
+        do {
+            current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+            String retryAfter, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+        // The controller allows any origin; without these headers a browser would hide the status from the caller
+        if (request.getHeader(HttpHeaders.ORIGIN) != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.RETRY_AFTER);
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.builder()
+                .success(false)
+                .message(message)
+                .build());
+    }
+
+    // Every rejection meter carries both tags, so registries that require one tag key set per name accept them all
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason, Priority priority) {
+        return Counter.builder("patients.admission.rejected")
+                .description("API requests rejected by admission control")
+                .tag("reason", reason)
+                .tag("priority", priority.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    private final class ReleaseOnCompletion implements AsyncListener {
+        private final Priority priority;
+        private final AtomicInteger released = new AtomicInteger();
+
+        ReleaseOnCompletion(Priority priority) {
+            this.priority = priority;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            releaseOnce();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            releaseOnce();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            releaseOnce();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-registered by the container when async processing restarts; nothing to do
+        }
+
+        // Timeout or error is followed by completion; the slot is released once
+        private void releaseOnce() {
+            if (released.compareAndSet(0, 1)) {
+                release(priority);
+            }
+        }
+    }
+}
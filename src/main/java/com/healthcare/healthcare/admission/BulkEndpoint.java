@@ -0,0 +1,38 @@
+package com.healthcare.healthcare.admission;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method as bulk work for {@link AdmissionControlInterceptor}:
+ * lists, exports, imports, batch writes, aggregations and maintenance jobs.
+ * A bulk call costs {@code healthcare.admission.bulk-cost} tokens and needs
+ * one of the {@code max-concurrent-bulk} slots; unmarked handlers are
+ * interactive.
+ *
+ * <p>An endpoint that serves both, such as a search whose page size the
+ * caller picks, names that request parameter in {@link #sizeParameter()}.
+ * Calls asking for at most {@link #interactiveUpTo()} rows are then
+ * interactive, larger ones bulk.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BulkEndpoint {
+
+    /**
+     * Request parameter holding the number of rows asked for; empty when
+     * every call is bulk.
+     */
+    String sizeParameter() default "";
+
+    /**
+     * Largest {@link #sizeParameter()} still treated as interactive. A call
+     * without the parameter gets the endpoint's default page size, so this is
+     * usually that default.
+     */
+    int interactiveUpTo() default 0;
+}
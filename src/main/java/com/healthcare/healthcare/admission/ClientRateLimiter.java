@@ -0,0 +1,144 @@
+package com.healthcare.healthcare.admission;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets, kept as the generic cell rate algorithm (GCRA):
+ * each client has a single "theoretical arrival time" instead of a token count
+ * and a refill timestamp. A request costing {@code n} tokens is admitted when
+ * the arrival time, advanced by {@code n} emission intervals, is no further
+ * ahead of now than the burst allows; admitting it is one compare-and-set, so
+ * clients never contend on a lock and a busy client only retries against
+ * itself.
+ *
+ * <p>A client whose arrival time has fallen behind the clock has a full
+ * bucket, which is the same as having no entry; {@link #evictIdle()} drops
+ * those entries so the map only holds clients that are currently limited.
+ *
+ * <p>Every request also names the remote address it came from. A client
+ * keyed by something other than that address (a principal, or an id set by
+ * a trusted proxy) gets its own bucket only while the address has fewer than
+ * {@code maxClientsPerAddress} of them and the map is below
+ * {@code maxClients}. Past either cap the request is charged to the
+ * address's own bucket, so one address cycling through ids can neither
+ * mint fresh bursts nor crowd out clients arriving from elsewhere.
+ */
+final class ClientRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxClients;
+    private final int maxClientsPerAddress;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Buckets held per remote address, for clients not keyed by the address itself
+    private final ConcurrentHashMap<String, Integer> clientsPerAddress = new ConcurrentHashMap<>();
+
+    ClientRateLimiter(double tokensPerSecond, int burst, int maxClients, int maxClientsPerAddress,
+            LongSupplier nanoClock) {
+        if (tokensPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit needs a positive rate and a burst of at least 1");
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.maxClients = maxClients;
+        this.maxClientsPerAddress = maxClientsPerAddress;
+        this.nanoClock = nanoClock;
+    }
+
+    // 0 when the request is admitted, otherwise how long the client must wait before this cost fits
+    long tryAcquire(String client, String address, int cost) {
+        long increment = emissionIntervalNanos * cost;
+        if (increment > burstToleranceNanos) {
+            throw new IllegalArgumentException("Cost " + cost + " exceeds the burst size");
+        }
+        Bucket bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = client.equals(address) ? addressBucket(address) : admit(client, address);
+        }
+        AtomicLong arrivalTime = bucket.arrivalTime;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = arrivalTime.get();
+            long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long next = start + increment;
+            long wait = next - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrivalTime.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Drop clients whose bucket has refilled completely. A request racing the removal updates the dropped entry,
+    // so that one request is forgotten; the bucket was full, so the client gains at most one token from it.
+    int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int evicted = 0;
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            if (bucket.arrivalTime.get() - now <= 0 && buckets.remove(entry.getKey(), bucket)) {
+                evicted++;
+                if (bucket.address != null) {
+                    clientsPerAddress.computeIfPresent(bucket.address, (key, count) -> count == 1 ? null : count - 1);
+                }
+            }
+        }
+        return evicted;
+    }
+
+    int clients() {
+        return buckets.size();
+    }
+
+    // A new client gets a bucket of its own only while its address and the map both have room
+    private Bucket admit(String client, String address) {
+        if (buckets.size() >= maxClients) {
+            evictIdle();
+        }
+        if (buckets.size() >= maxClients || !reserve(address)) {
+            return addressBucket(address);
+        }
+        Bucket created = new Bucket(address);
+        Bucket existing = buckets.putIfAbsent(client, created);
+        if (existing != null) {
+            // Another request created it first; give back the reservation
+            clientsPerAddress.computeIfPresent(address, (key, count) -> count == 1 ? null : count - 1);
+            return existing;
+        }
+        return created;
+    }
+
+    private boolean reserve(String address) {
+        boolean[] reserved = new boolean[1];
+        clientsPerAddress.compute(address, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxClientsPerAddress) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        return reserved[0];
+    }
+
+    // Not counted against any cap: there is one per connecting address, and a caller cannot choose it
+    private Bucket addressBucket(String address) {
+        return buckets.computeIfAbsent(address, key -> new Bucket(null));
+    }
+
+    private static final class Bucket {
+        // The address whose cap this bucket counts against, or null for an address's own bucket
+        private final String address;
+        private final AtomicLong arrivalTime = new AtomicLong(Long.MIN_VALUE);
+
+        Bucket(String address) {
+            this.address = address;
+        }
+    }
+}
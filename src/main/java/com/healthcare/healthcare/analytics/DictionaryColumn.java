@@ -0,0 +1,133 @@
+package com.healthcare.healthcare.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One dictionary-encoded column of {@link PatientColumnStore}. Every row holds
+ * an unsigned short code into the column's distinct values, with code 0 for a
+ * missing or blank value. While the column has at most
+ * {@link #MAX_BITMAP_VALUES} distinct values, each value also keeps a bitmap of
+ * the rows holding it, so an equality filter is a word-wise OR of a few
+ * bitmaps instead of a pass over the codes.
+ *
+ * <p>Not thread-safe; the store guards it with its lock.
+ */
+final class DictionaryColumn {
+
+    static final int UNKNOWN_CODE = 0;
+    // Codes are unsigned shorts
+    static final int MAX_VALUES = 1 << 16;
+    // Beyond this many values the bitmaps would cost more memory than the codes they index
+    static final int MAX_BITMAP_VALUES = 256;
+
+    private final String name;
+    private final Map<String, Integer> codes = new HashMap<>();
+    // Code -> value; index 0 is the unknown value
+    private final List<String> values = new ArrayList<>();
+    private short[] rows;
+    // Code -> bitmap of rows; null once the column has too many values
+    private long[][] bitmaps;
+
+    DictionaryColumn(String name, int capacity) {
+        this.name = name;
+        this.rows = new short[capacity];
+        this.values.add(PatientColumnStore.UNKNOWN);
+        // Every row starts out unknown
+        long[] unknown = new long[capacity >>> 6];
+        Arrays.fill(unknown, -1L);
+        this.bitmaps = new long[][] { unknown };
+    }
+
+    String name() {
+        return name;
+    }
+
+    // Distinct values seen, including the unknown value
+    int size() {
+        return values.size();
+    }
+
+    String value(int code) {
+        return values.get(code);
+    }
+
+    int code(int row) {
+        return rows[row] & 0xFFFF;
+    }
+
+    boolean hasBitmaps() {
+        return bitmaps != null;
+    }
+
+    long[] bitmap(int code) {
+        return bitmaps[code];
+    }
+
+    // Store a row's value; the row's previous value (unknown for a fresh row) is replaced
+    void set(int row, String value) {
+        int code = encode(value);
+        int previous = code(row);
+        if (code == previous) {
+            return;
+        }
+        rows[row] = (short) code;
+        if (bitmaps != null) {
+            bitmaps[previous][row >>> 6] &= ~(1L << row);
+            bitmaps[code][row >>> 6] |= 1L << row;
+        }
+    }
+
+    // Codes of the stored values equal to any of the wanted ones, ignoring case; "unknown" matches missing values
+    int[] matching(Set<String> wanted) {
+        int[] matches = new int[values.size()];
+        int count = 0;
+        for (int code = 0; code < values.size(); code++) {
+            if (wanted.contains(values.get(code).toLowerCase(Locale.ROOT))) {
+                matches[count++] = code;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    void grow(int capacity) {
+        int oldWords = rows.length >>> 6;
+        rows = Arrays.copyOf(rows, capacity);
+        if (bitmaps != null) {
+            for (int code = 0; code < bitmaps.length; code++) {
+                bitmaps[code] = Arrays.copyOf(bitmaps[code], capacity >>> 6);
+            }
+            Arrays.fill(bitmaps[UNKNOWN_CODE], oldWords, capacity >>> 6, -1L);
+        }
+    }
+
+    private int encode(String value) {
+        if (value == null || value.isBlank()) {
+            return UNKNOWN_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (values.size() == MAX_VALUES) {
+            throw new IllegalStateException("Column " + name + " has more than " + MAX_VALUES + " distinct values");
+        }
+        code = values.size();
+        codes.put(value, code);
+        values.add(value);
+        if (bitmaps != null) {
+            if (values.size() > MAX_BITMAP_VALUES) {
+                bitmaps = null;
+            } else {
+                bitmaps = Arrays.copyOf(bitmaps, values.size());
+                bitmaps[code] = new long[rows.length >>> 6];
+            }
+        }
+        return code;
+    }
+}
@@ -0,0 +1,484 @@
+package com.healthcare.healthcare.analytics;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.healthcare.healthcare.dto.PatientAnalyticsQuery;
+import com.healthcare.healthcare.dto.PatientCountResult;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.event.PatientsSeededEvent;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.service.AgeRange;
+import com.healthcare.healthcare.service.StatusFilter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-only columnar copy of the patients table for analytical counts such as
+ * "active O- patients in Texas aged 60 or over with no insurance", answered
+ * without loading a single entity.
+ *
+ * <p>Rows are addressed by patient id. The low-cardinality dimensions are
+ * {@link DictionaryColumn}s, date of birth is an epoch-day int, and a live
+ * bitmap marks the ids present in the table. A count walks the bitmaps 64
+ * rows per word: the live word AND, for each filtered dimension, the OR of
+ * the matching values' bitmaps; dates of birth are only read for rows that
+ * survive. The words are split across a fork-join pool.
+ *
+ * <p>The store is loaded by a parallel id-range scan once the application is
+ * up (and after background seeding), then every {@link PatientChangedEvent}
+ * overwrites the patient's row. Changes that commit while a load runs are
+ * replayed onto it before it replaces the current columns. Only present when
+ * {@code healthcare.analytics.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "healthcare.analytics.enabled", havingValue = "true")
+@Slf4j
+public class PatientColumnStore {
+
+    public static final List<String> DIMENSIONS = List.of("gender", "bloodGroup", "city", "state", "country",
+            "maritalStatus", "status", "insuranceProvider");
+    static final String UNKNOWN = "UNKNOWN";
+
+    private static final int UNKNOWN_DAY = Integer.MIN_VALUE;
+    private static final int MAX_AGE = 150;
+    private static final long CHUNK_SIZE = 10_000;
+    // Ids are array indexes; keep the word count of a full-size bitmap within an int
+    private static final long MAX_ROWS = Integer.MAX_VALUE - 63;
+    // Bitmap words (64 rows each) counted by one fork-join task
+    private static final int LEAF_WORDS = 2048;
+
+    private final PatientRepository patientRepository;
+    private final int threads;
+    private final ForkJoinPool pool;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns = new Columns(0);
+    // Non-null while a load runs; collects changes to replay onto the loaded columns
+    private List<PatientChangedEvent> changesDuringLoad;
+    private volatile Instant builtAt;
+
+    public PatientColumnStore(PatientRepository patientRepository,
+            @Value("${healthcare.analytics.threads:0}") int threads) {
+        this.patientRepository = patientRepository;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(this.threads);
+    }
+
+    public boolean isReady() {
+        return builtAt != null;
+    }
+
+    // Replace the columns with a fresh scan of the table; returns the number of rows loaded
+    @EventListener({ ApplicationReadyEvent.class, PatientsSeededEvent.class })
+    public synchronized long load() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changesDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Columns fresh = null;
+        try {
+            fresh = scan(patientRepository.findMaxId());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (fresh != null) {
+                    changesDuringLoad.forEach(fresh::apply);
+                    columns = fresh;
+                    builtAt = Instant.now();
+                }
+                changesDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Patient column store loaded {} rows in {} ms", fresh.rows, (System.nanoTime() - start) / 1_000_000);
+        return fresh.rows;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            columns.apply(event);
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public PatientCountResult count(PatientAnalyticsQuery query) {
+        return count(query, LocalDate.now());
+    }
+
+    PatientCountResult count(PatientAnalyticsQuery query, LocalDate today) {
+        Map<String, Set<String>> wanted = wantedValues(query);
+        String groupBy = query.groupBy() == null || query.groupBy().isBlank() ? null : dimension(query.groupBy());
+        int bornFrom = Integer.MIN_VALUE;
+        int bornTo = Integer.MAX_VALUE;
+        if (query.minAge() != null || query.maxAge() != null) {
+            AgeRange ages = AgeRange.of(query.minAge() == null ? 0 : query.minAge(),
+                    query.maxAge() == null ? MAX_AGE : query.maxAge(), today);
+            bornFrom = (int) ages.bornFrom().toEpochDay();
+            bornTo = (int) ages.bornTo().toEpochDay();
+        }
+
+        lock.readLock().lock();
+        try {
+            Columns current = columns;
+            List<Filter> filters = new ArrayList<>(wanted.size());
+            wanted.forEach((dimension, values) -> {
+                DictionaryColumn column = current.column(dimension);
+                filters.add(new Filter(column, column.matching(values)));
+            });
+            // Bitmap filters first; code filters then only look at the rows left
+            filters.sort(Comparator.comparing(filter -> filter.bitmaps == null));
+            DictionaryColumn group = groupBy == null ? null : current.column(groupBy);
+
+            CountTask task = new CountTask(current, filters.toArray(new Filter[0]), bornFrom, bornTo, group, 0,
+                    current.words());
+            // A scan that would not be split is cheaper on this thread than handed to the pool
+            Tally tally = current.words() <= LEAF_WORDS ? task.compute() : pool.invoke(task);
+            return new PatientCountResult(tally.count, group == null ? null : groups(group, tally.groups),
+                    current.rows, builtAt == null ? null : builtAt.toString());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Parallel id-range scan; workers read chunks concurrently and take turns writing them into the columns
+    private Columns scan(long maxId) {
+        Columns fresh = new Columns(maxId);
+        AtomicLong nextChunk = new AtomicLong(1);
+        List<CompletableFuture<Void>> workers = new ArrayList<>(threads);
+        for (int w = 0; w < threads; w++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                long from;
+                while ((from = nextChunk.getAndAdd(CHUNK_SIZE)) <= maxId) {
+                    long to = Math.min(maxId, from + CHUNK_SIZE - 1);
+                    List<PatientColumns> rows = patientRepository.findByIdBetween(from, to, PatientColumns.class);
+                    synchronized (fresh) {
+                        rows.forEach(fresh::put);
+                    }
+                }
+            }, pool));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+        return fresh;
+    }
+
+    // Lower-cased values to match per filtered dimension
+    private static Map<String, Set<String>> wantedValues(PatientAnalyticsQuery query) {
+        Map<String, Set<String>> wanted = new LinkedHashMap<>();
+        addWanted(wanted, "gender", query.gender(), Patient.Gender.class);
+        addWanted(wanted, "bloodGroup", query.bloodGroup(), null);
+        addWanted(wanted, "city", query.city(), null);
+        addWanted(wanted, "state", query.state(), null);
+        addWanted(wanted, "country", query.country(), null);
+        addWanted(wanted, "maritalStatus", query.maritalStatus(), Patient.MaritalStatus.class);
+        addWanted(wanted, "insuranceProvider", query.insuranceProvider(), null);
+        StatusFilter statuses = StatusFilter.parse(query.status());
+        if (!statuses.isAll()) {
+            Set<String> names = new HashSet<>();
+            statuses.statuses().forEach(status -> names.add(status.name().toLowerCase(Locale.ROOT)));
+            wanted.put("status", names);
+        }
+        return wanted;
+    }
+
+    private static void addWanted(Map<String, Set<String>> wanted, String dimension, String parameter,
+            Class<? extends Enum<?>> values) {
+        if (parameter == null || parameter.isBlank()) {
+            return;
+        }
+        Set<String> set = new HashSet<>();
+        for (String value : parameter.split(",")) {
+            String key = value.trim().toLowerCase(Locale.ROOT);
+            if (values != null && !key.equals(UNKNOWN.toLowerCase(Locale.ROOT)) && Arrays.stream(
+                    values.getEnumConstants()).noneMatch(constant -> constant.name().equalsIgnoreCase(key))) {
+                throw new IllegalArgumentException("Unknown " + dimension + ": " + value.trim()
+                        + " (expected any of " + Arrays.toString(values.getEnumConstants()) + ")");
+            }
+            set.add(key);
+        }
+        wanted.put(dimension, set);
+    }
+
+    private static String dimension(String name) {
+        for (String dimension : DIMENSIONS) {
+            if (dimension.equalsIgnoreCase(name.trim())) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown groupBy: " + name + " (expected one of " + DIMENSIONS + ")");
+    }
+
+    private static Map<String, Long> groups(DictionaryColumn column, long[] counts) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        codes.sort(Comparator.<Integer>comparingLong(code -> counts[code]).reversed()
+                .thenComparing(column::value));
+        Map<String, Long> groups = new LinkedHashMap<>();
+        for (int code : codes) {
+            groups.put(column.value(code), counts[code]);
+        }
+        return groups;
+    }
+
+    // One filtered dimension: rows holding any of the matching codes
+    private static final class Filter {
+        private final DictionaryColumn column;
+        // The matching values' bitmaps, or null when the column has none and codes are compared instead
+        private final long[][] bitmaps;
+        private final boolean[] accepted;
+
+        Filter(DictionaryColumn column, int[] codes) {
+            this.column = column;
+            if (column.hasBitmaps()) {
+                this.bitmaps = new long[codes.length][];
+                for (int i = 0; i < codes.length; i++) {
+                    bitmaps[i] = column.bitmap(codes[i]);
+                }
+                this.accepted = null;
+            } else {
+                this.bitmaps = null;
+                this.accepted = new boolean[column.size()];
+                for (int code : codes) {
+                    accepted[code] = true;
+                }
+            }
+        }
+
+        // The rows of bits (one bitmap word) that pass this filter
+        long apply(int word, long bits) {
+            if (bitmaps != null) {
+                long any = 0;
+                for (long[] bitmap : bitmaps) {
+                    any |= bitmap[word];
+                }
+                return bits & any;
+            }
+            long kept = bits;
+            for (long rest = bits; rest != 0; rest &= rest - 1) {
+                int bit = Long.numberOfTrailingZeros(rest);
+                if (!accepted[column.code(word << 6 | bit)]) {
+                    kept &= ~(1L << bit);
+                }
+            }
+            return kept;
+        }
+    }
+
+    // Matching rows, and per value of the grouped column when there is one
+    private static final class Tally {
+        private long count;
+        private final long[] groups;
+
+        Tally(DictionaryColumn group) {
+            this.groups = group == null ? null : new long[group.size()];
+        }
+
+        Tally add(Tally other) {
+            count += other.count;
+            if (groups != null) {
+                for (int i = 0; i < groups.length; i++) {
+                    groups[i] += other.groups[i];
+                }
+            }
+            return this;
+        }
+    }
+
+    // Counts the matching rows in bitmap words [from, to), halving the range until it is small enough
+    private static final class CountTask extends RecursiveTask<Tally> {
+        private final Columns columns;
+        private final Filter[] filters;
+        private final int bornFrom;
+        private final int bornTo;
+        private final DictionaryColumn group;
+        private final int from;
+        private final int to;
+
+        CountTask(Columns columns, Filter[] filters, int bornFrom, int bornTo, DictionaryColumn group, int from,
+                int to) {
+            this.columns = columns;
+            this.filters = filters;
+            this.bornFrom = bornFrom;
+            this.bornTo = bornTo;
+            this.group = group;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from > LEAF_WORDS) {
+                int middle = (from + to) >>> 1;
+                CountTask left = new CountTask(columns, filters, bornFrom, bornTo, group, from, middle);
+                left.fork();
+                Tally right = new CountTask(columns, filters, bornFrom, bornTo, group, middle, to).compute();
+                return right.add(left.join());
+            }
+
+            Tally tally = new Tally(group);
+            boolean byAge = bornFrom != Integer.MIN_VALUE || bornTo != Integer.MAX_VALUE;
+            long[] live = columns.live;
+            int[] birthDays = columns.birthDays;
+            for (int word = from; word < to; word++) {
+                long bits = live[word];
+                for (int f = 0; f < filters.length && bits != 0; f++) {
+                    bits = filters[f].apply(word, bits);
+                }
+                if (byAge) {
+                    for (long rest = bits; rest != 0; rest &= rest - 1) {
+                        int bit = Long.numberOfTrailingZeros(rest);
+                        int day = birthDays[word << 6 | bit];
+                        if (day == UNKNOWN_DAY || day < bornFrom || day > bornTo) {
+                            bits &= ~(1L << bit);
+                        }
+                    }
+                }
+                tally.count += Long.bitCount(bits);
+                if (group != null) {
+                    for (long rest = bits; rest != 0; rest &= rest - 1) {
+                        tally.groups[group.code(word << 6 | Long.numberOfTrailingZeros(rest))]++;
+                    }
+                }
+            }
+            return tally;
+        }
+    }
+
+    // The column arrays, indexed by patient id; replaced wholesale by each load
+    private static final class Columns {
+        private final DictionaryColumn[] dimensions = new DictionaryColumn[DIMENSIONS.size()];
+        private int capacity;
+        private long[] live;
+        private int[] birthDays;
+        private long rows;
+
+        Columns(long maxId) {
+            capacity = roundUp(maxId + 1);
+            live = new long[capacity >>> 6];
+            birthDays = new int[capacity];
+            Arrays.fill(birthDays, UNKNOWN_DAY);
+            for (int i = 0; i < dimensions.length; i++) {
+                dimensions[i] = new DictionaryColumn(DIMENSIONS.get(i), capacity);
+            }
+        }
+
+        DictionaryColumn column(String dimension) {
+            return dimensions[DIMENSIONS.indexOf(dimension)];
+        }
+
+        int words() {
+            return capacity >>> 6;
+        }
+
+        void apply(PatientChangedEvent event) {
+            if (event.type() == PatientChangedEvent.ChangeType.ARCHIVED) {
+                remove(event.patient().getId());
+            } else {
+                put(PatientColumns.of(event.patient()));
+            }
+        }
+
+        void put(PatientColumns patient) {
+            int row = row(patient.id());
+            if (row >= capacity) {
+                grow(row);
+            }
+            if ((live[row >>> 6] & 1L << row) == 0) {
+                live[row >>> 6] |= 1L << row;
+                rows++;
+            }
+            dimensions[0].set(row, name(patient.gender()));
+            dimensions[1].set(row, patient.bloodGroup());
+            dimensions[2].set(row, patient.city());
+            dimensions[3].set(row, patient.state());
+            dimensions[4].set(row, patient.country());
+            dimensions[5].set(row, name(patient.maritalStatus()));
+            dimensions[6].set(row, name(patient.status()));
+            dimensions[7].set(row, patient.insuranceProvider());
+            birthDays[row] = patient.dateOfBirth() == null ? UNKNOWN_DAY : (int) patient.dateOfBirth().toEpochDay();
+        }
+
+        void remove(Long id) {
+            int row = row(id);
+            if (row >= capacity || (live[row >>> 6] & 1L << row) == 0) {
+                return;
+            }
+            live[row >>> 6] &= ~(1L << row);
+            rows--;
+            for (DictionaryColumn column : dimensions) {
+                column.set(row, null);
+            }
+            birthDays[row] = UNKNOWN_DAY;
+        }
+
+        // Grow by half again at least, so ids arriving one by one do not copy the arrays every time
+        private void grow(int row) {
+            capacity = roundUp(Math.max(row + 1L, capacity + (long) capacity / 2));
+            live = Arrays.copyOf(live, capacity >>> 6);
+            int oldLength = birthDays.length;
+            birthDays = Arrays.copyOf(birthDays, capacity);
+            Arrays.fill(birthDays, oldLength, capacity, UNKNOWN_DAY);
+            for (DictionaryColumn column : dimensions) {
+                column.grow(capacity);
+            }
+        }
+
+        private static int row(Long id) {
+            if (id == null || id < 0 || id >= MAX_ROWS) {
+                throw new IllegalStateException("Patient id out of range for the column store: " + id);
+            }
+            return id.intValue();
+        }
+
+        private static int roundUp(long rows) {
+            return (int) Math.min(MAX_ROWS, (rows + 63) & ~63L);
+        }
+
+        private static String name(Enum<?> value) {
+            return value == null ? null : value.name();
+        }
+    }
+}
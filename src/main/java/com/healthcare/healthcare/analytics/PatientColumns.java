@@ -0,0 +1,25 @@
+package com.healthcare.healthcare.analytics;
+
+import java.time.LocalDate;
+
+import com.healthcare.healthcare.entity.Patient;
+
+// Columns held by the columnar store; used as a Spring Data projection
+public record PatientColumns(
+        Long id,
+        Patient.Gender gender,
+        String bloodGroup,
+        String city,
+        String state,
+        String country,
+        Patient.MaritalStatus maritalStatus,
+        Patient.PatientStatus status,
+        String insuranceProvider,
+        LocalDate dateOfBirth) {
+
+    static PatientColumns of(Patient patient) {
+        return new PatientColumns(patient.getId(), patient.getGender(), patient.getBloodGroup(), patient.getCity(),
+                patient.getState(), patient.getCountry(), patient.getMaritalStatus(), patient.getStatus(),
+                patient.getInsuranceProvider(), patient.getDateOfBirth());
+    }
+}
@@ -0,0 +1,255 @@
+package com.healthcare.healthcare.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.entity.PatientKeys;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache for single-patient lookups.
+ *
+ * <p>Patients are held once, keyed by {@code patientId}, in a Caffeine cache
+ * bounded by size and time-to-live. Email, phone number and identification
+ * number lookups go through secondary maps that only point at a
+ * {@code patientId}; when the primary entry is evicted or invalidated the
+ * removal listener unlinks its secondary keys, so the secondary maps never
+ * outgrow the primary cache. Email and phone keys are held in their
+ * {@link PatientKeys} normalized forms, and callers pass keys in that form.
+ * Those keys are not unique, so a secondary key is only linked by a lookup
+ * on that key, to the patient its query resolved.
+ *
+ * <p>A fill must not put back a row that a write has since replaced. Every
+ * key has a generation (striped, so keys sharing a stripe share it), which
+ * invalidation bumps before it removes anything. A lookup notes the
+ * generation of its key before loading and, once it has put the loaded row,
+ * takes the row back out if the generation has moved: either the write's
+ * invalidation saw the new entry and removed it, or the fill sees the bump.
+ */
+@Component
+public class PatientLookupCache {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<String, Patient> byPatientId;
+    private final ConcurrentMap<String, String> patientIdByEmail = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> patientIdByPhoneNumber = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> patientIdByIdentificationNumber = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LookupCounters patientIdCounters;
+    private final LookupCounters emailCounters;
+    private final LookupCounters phoneNumberCounters;
+    private final LookupCounters identificationNumberCounters;
+
+    public PatientLookupCache(
+            @Value("${healthcare.cache.patients.max-size:10000}") long maxSize,
+            @Value("${healthcare.cache.patients.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.byPatientId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                // Run the listener on the calling thread so unlinking happens before the write returns
+                .executor(Runnable::run)
+                .removalListener((String patientId, Patient patient, RemovalCause cause) -> {
+                    if (patientId != null && patient != null) {
+                        unlinkSecondaryKeys(patientId, patient);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byPatientId, "patients");
+
+        this.patientIdCounters = new LookupCounters(meterRegistry, "patientId");
+        this.emailCounters = new LookupCounters(meterRegistry, "email");
+        this.phoneNumberCounters = new LookupCounters(meterRegistry, "phoneNumber");
+        this.identificationNumberCounters = new LookupCounters(meterRegistry, "identificationNumber");
+    }
+
+    public Optional<Patient> getByPatientId(String patientId, Function<String, Optional<Patient>> loader) {
+        Patient cached = byPatientId.getIfPresent(patientId);
+        if (cached != null) {
+            patientIdCounters.hit();
+            return Optional.of(cached);
+        }
+        patientIdCounters.miss();
+        long generation = generation(patientId);
+        Optional<Patient> loaded = loader.apply(patientId);
+        loaded.ifPresent(patient -> fill(patient, null, null, generation, patientId));
+        return loaded;
+    }
+
+    // The cached patient, if any, without loading it or counting a lookup
+    public Optional<Patient> peekByPatientId(String patientId) {
+        return Optional.ofNullable(byPatientId.getIfPresent(patientId));
+    }
+
+    public Optional<Patient> getByEmail(String email, Function<String, Optional<Patient>> loader) {
+        return getBySecondaryKey(patientIdByEmail, email, PatientLookupCache::emailKey, emailCounters, loader);
+    }
+
+    public Optional<Patient> getByPhoneNumber(String phoneNumber, Function<String, Optional<Patient>> loader) {
+        return getBySecondaryKey(patientIdByPhoneNumber, phoneNumber, PatientLookupCache::phoneKey,
+                phoneNumberCounters, loader);
+    }
+
+    public Optional<Patient> getByIdentificationNumber(String identificationNumber,
+            Function<String, Optional<Patient>> loader) {
+        return getBySecondaryKey(patientIdByIdentificationNumber, identificationNumber,
+                Patient::getIdentificationNumber, identificationNumberCounters, loader);
+    }
+
+    public void put(Patient patient) {
+        if (patient.getPatientId() != null) {
+            byPatientId.put(patient.getPatientId(), patient);
+        }
+    }
+
+    // Drop the cached patient and any secondary key that now resolves to it; fills already loading it are dropped
+    public void invalidate(Patient patient) {
+        advance(patient.getPatientId());
+        advance(emailKey(patient));
+        advance(phoneKey(patient));
+        advance(patient.getIdentificationNumber());
+        if (patient.getPatientId() != null) {
+            byPatientId.invalidate(patient.getPatientId());
+        }
+        removeKey(patientIdByEmail, emailKey(patient));
+        removeKey(patientIdByPhoneNumber, phoneKey(patient));
+        removeKey(patientIdByIdentificationNumber, patient.getIdentificationNumber());
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        byPatientId.invalidateAll();
+    }
+
+    public long size() {
+        return byPatientId.estimatedSize();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        invalidate(event.patient());
+        // Secondary keys the patient no longer has still point at it
+        if (event.previous() != null) {
+            invalidate(event.previous());
+        }
+    }
+
+    private Optional<Patient> getBySecondaryKey(ConcurrentMap<String, String> index, String key,
+            Function<Patient, String> keyOf, LookupCounters counters, Function<String, Optional<Patient>> loader) {
+        String patientId = index.get(key);
+        if (patientId != null) {
+            Patient cached = byPatientId.getIfPresent(patientId);
+            if (cached != null && key.equals(keyOf.apply(cached))) {
+                counters.hit();
+                return Optional.of(cached);
+            }
+        }
+        counters.miss();
+        long generation = generation(key);
+        Optional<Patient> loaded = loader.apply(key);
+        loaded.ifPresent(patient -> fill(patient, index, key, generation, key));
+        return loaded;
+    }
+
+    // Cache a loaded patient, and link the secondary key it was found by, unless its key was invalidated meanwhile
+    private void fill(Patient patient, ConcurrentMap<String, String> index, String key, long generation,
+            String generationKey) {
+        String patientId = patient.getPatientId();
+        if (patientId == null || generation(generationKey) != generation) {
+            return;
+        }
+        byPatientId.put(patientId, patient);
+        if (index != null) {
+            index.put(key, patientId);
+        }
+        if (generation(generationKey) != generation) {
+            // Only this fill's entry; the removal listener unlinks its secondary keys
+            byPatientId.asMap().remove(patientId, patient);
+        }
+    }
+
+    private long generation(String key) {
+        return generations.get(stripe(key));
+    }
+
+    private void advance(String key) {
+        if (key != null) {
+            generations.incrementAndGet(stripe(key));
+        }
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+    }
+
+    private void unlinkSecondaryKeys(String patientId, Patient patient) {
+        // Only remove mappings that still point at this patient
+        String email = emailKey(patient);
+        if (email != null) {
+            patientIdByEmail.remove(email, patientId);
+        }
+        String phoneNumber = phoneKey(patient);
+        if (phoneNumber != null) {
+            patientIdByPhoneNumber.remove(phoneNumber, patientId);
+        }
+        if (patient.getIdentificationNumber() != null) {
+            patientIdByIdentificationNumber.remove(patient.getIdentificationNumber(), patientId);
+        }
+    }
+
+    private static String emailKey(Patient patient) {
+        return PatientKeys.normalizeEmail(patient.getEmail());
+    }
+
+    private static String phoneKey(Patient patient) {
+        return PatientKeys.normalizePhone(patient.getPhoneNumber());
+    }
+
+    private static void removeKey(ConcurrentMap<String, String> index, String key) {
+        if (key != null) {
+            index.remove(key);
+        }
+    }
+
+    // Hit and miss counters per lookup key, published as patients.cache.lookups
+    private static final class LookupCounters {
+        private final Counter hits;
+        private final Counter misses;
+
+        LookupCounters(MeterRegistry registry, String key) {
+            this.hits = Counter.builder("patients.cache.lookups")
+                    .tag("key", key).tag("result", "hit").register(registry);
+            this.misses = Counter.builder("patients.cache.lookups")
+                    .tag("key", key).tag("result", "miss").register(registry);
+        }
+
+        void hit() {
+            hits.increment();
+        }
+
+        void miss() {
+            misses.increment();
+        }
+    }
+}
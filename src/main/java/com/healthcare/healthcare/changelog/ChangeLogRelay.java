@@ -0,0 +1,126 @@
+package com.healthcare.healthcare.changelog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.healthcare.entity.PatientOutboxEvent;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.repository.PatientOutboxRepository;
+import com.healthcare.healthcare.service.DatabaseEpoch;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copies committed outbox rows into the {@link PatientChangeLog}, oldest
+ * first, and deletes them once the log has been forced to disk.
+ *
+ * <p>Delivery into the log is at least once with de-duplication: if the
+ * process stops between forcing the log and deleting the rows, the rows are
+ * relayed again after a restart, so the outbox ids found at the tail of the
+ * log are skipped. Rows are deleted by id rather than up to an id, because
+ * sequence values are handed out before commit and a transaction holding a
+ * lower id may commit after a higher one has been relayed.
+ *
+ * <p>Outbox ids restart with the database, so each change is logged with the
+ * {@link DatabaseEpoch} and only ids from the current database are skipped. A
+ * log last written from another database (an in-memory one that has since
+ * been recreated, say) describes patients that no longer exist and is
+ * discarded on startup.
+ *
+ * <p>The change log is local to this node; run the relay on one node only.
+ */
+@Component
+@Slf4j
+public class ChangeLogRelay {
+
+    private final PatientOutboxRepository patientOutboxRepository;
+    private final PatientChangeLog patientChangeLog;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long databaseEpoch;
+
+    // Outbox ids already in the log whose rows may still be in the table
+    private final Set<Long> appended;
+    // Set after each commit that wrote outbox rows, so an idle relay does not query the table; rows left
+    // from before a restart are picked up by the first run
+    private volatile boolean pending = true;
+
+    public ChangeLogRelay(PatientOutboxRepository patientOutboxRepository, PatientChangeLog patientChangeLog,
+            PlatformTransactionManager transactionManager, DatabaseEpoch databaseEpoch,
+            @Value("${healthcare.events.relay-batch-size:500}") int batchSize) {
+        this.patientOutboxRepository = patientOutboxRepository;
+        this.patientChangeLog = patientChangeLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.databaseEpoch = databaseEpoch.value();
+        OptionalLong logged = patientChangeLog.lastDatabaseEpoch();
+        if (logged.isPresent() && logged.getAsLong() != this.databaseEpoch) {
+            log.warn("Patient change log was written from another database; discarding offsets {} to {}",
+                    patientChangeLog.startOffset(), patientChangeLog.endOffset());
+            patientChangeLog.discardAll();
+        }
+        // Only the last unfinished batch can have been appended without its rows being deleted
+        this.appended = patientChangeLog.outboxIdsFrom(patientChangeLog.endOffset() - batchSize,
+                this.databaseEpoch);
+    }
+
+    @Scheduled(fixedDelayString = "${healthcare.events.relay-interval-ms:100}")
+    public synchronized int relay() {
+        if (!pending) {
+            return 0;
+        }
+        pending = false;
+        List<Long> ids = new ArrayList<>(batchSize);
+        Integer relayed;
+        try {
+            relayed = transactionTemplate.execute(status -> relayBatch(ids));
+        } catch (RuntimeException e) {
+            // Try again on the next run
+            pending = true;
+            throw e;
+        }
+        // The delete has committed; these rows cannot come back
+        ids.forEach(appended::remove);
+        if (ids.size() == batchSize) {
+            pending = true;
+        }
+        return relayed;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        pending = true;
+    }
+
+    private int relayBatch(List<Long> ids) {
+        List<PatientOutboxEvent> rows = patientOutboxRepository.findByIdGreaterThanOrderByIdAsc(0L,
+                Limit.of(batchSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int relayed = 0;
+        for (PatientOutboxEvent row : rows) {
+            ids.add(row.getId());
+            if (appended.add(row.getId())) {
+                patientChangeLog.append(databaseEpoch, row.getId(), row.getType(), row.getPatientId(),
+                        row.getOccurredAt(), row.getPayload().getBytes(StandardCharsets.UTF_8));
+                relayed++;
+            }
+        }
+        patientChangeLog.force();
+        patientOutboxRepository.deleteAllByIdInBatch(ids);
+        log.debug("Relayed {} patient changes to the change log ({} already there)", relayed, rows.size() - relayed);
+        return relayed;
+    }
+}
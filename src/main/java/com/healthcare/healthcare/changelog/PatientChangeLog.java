@@ -0,0 +1,425 @@
+package com.healthcare.healthcare.changelog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.healthcare.dto.PatientChange;
+import com.healthcare.healthcare.event.PatientChangedEvent.ChangeType;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only log of patient changes, stored in memory-mapped segment files.
+ *
+ * <p>Every change gets a dense offset (0, 1, 2, ...), which is what consumers
+ * keep track of. Segment files are named after the offset of their first
+ * record and preallocated to {@code healthcare.events.segment-size} bytes;
+ * when one is full the next is started, and beyond
+ * {@code healthcare.events.max-segments} the oldest is deleted. With a blank
+ * {@code healthcare.events.dir} the segments live on the heap instead.
+ *
+ * <p>A record is {@code [length][crc32][body]}, where the body holds the
+ * outbox id, the {@link com.healthcare.healthcare.service.DatabaseEpoch} of
+ * the database the outbox row came from, the time of the change, its type,
+ * the patient ID and the patient JSON. Outbox ids are only unique within one
+ * database, and the log outlives an in-memory one. A zero length marks the end of the data. On startup each segment is
+ * scanned up to the end marker or the first record whose checksum fails (a
+ * write torn by a crash), and appending resumes there.
+ *
+ * <p>There is a single writer, the outbox relay. Readers do not lock: a
+ * record's bytes and its position are written before the volatile end offset
+ * that makes it visible.
+ */
+@Component
+@Slf4j
+public class PatientChangeLog {
+
+    private static final String SUFFIX = ".log";
+    private static final int HEADER = 8;
+    private static final ChangeType[] TYPES = ChangeType.values();
+
+    private final Path dir;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final Object appendLock = new Object();
+
+    private volatile long endOffset;
+
+    public PatientChangeLog(@Value("${healthcare.events.dir:}") String dir,
+            @Value("${healthcare.events.segment-size:67108864}") int segmentSize,
+            @Value("${healthcare.events.max-segments:16}") int maxSegments) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Change log segment size must be at least 1024 bytes");
+        }
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("Change log must keep at least one segment");
+        }
+        this.dir = dir == null || dir.isBlank() ? null : Path.of(dir);
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        open();
+    }
+
+    // Offset the next appended change will get
+    public long endOffset() {
+        return endOffset;
+    }
+
+    // Oldest offset still retained
+    public long startOffset() {
+        return segments.get(0).baseOffset;
+    }
+
+    // Outbox ids of the changes from offset to the end relayed from the given database; the relay skips these
+    // after a restart
+    public Set<Long> outboxIdsFrom(long offset, long databaseEpoch) {
+        Set<Long> ids = new HashSet<>();
+        List<Segment> snapshot = List.copyOf(segments);
+        long end = endOffset;
+        offset = Math.max(offset, snapshot.get(0).baseOffset);
+        for (int index = segmentIndex(snapshot, offset); index < snapshot.size() && offset < end; index++) {
+            Segment segment = snapshot.get(index);
+            for (int relative = (int) (offset - segment.baseOffset); relative < segment.count; relative++) {
+                int at = segment.positions[relative] + HEADER;
+                if (segment.buffer.getLong(at + 8) == databaseEpoch) {
+                    ids.add(segment.buffer.getLong(at));
+                }
+                offset++;
+            }
+        }
+        return ids;
+    }
+
+    // Database epoch of the newest retained change, if there is one
+    public OptionalLong lastDatabaseEpoch() {
+        List<Segment> snapshot = List.copyOf(segments);
+        for (int index = snapshot.size() - 1; index >= 0; index--) {
+            Segment segment = snapshot.get(index);
+            if (segment.count > 0) {
+                return OptionalLong.of(segment.buffer.getLong(segment.positions[segment.count - 1] + HEADER + 8));
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    public long append(long databaseEpoch, long outboxId, ChangeType type, String patientId, Instant occurredAt,
+            byte[] patientJson) {
+        byte[] id = patientId.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 8 + 8 + 8 + 1 + 2 + id.length + patientJson.length;
+        if (HEADER + bodyLength > segmentSize) {
+            throw new IllegalArgumentException("Change of " + bodyLength + " bytes does not fit in a log segment");
+        }
+        synchronized (appendLock) {
+            Segment segment = segments.get(segments.size() - 1);
+            if (segment.writePosition + HEADER + bodyLength > segmentSize) {
+                segment = roll();
+            }
+            ByteBuffer body = ByteBuffer.allocate(bodyLength)
+                    .putLong(outboxId)
+                    .putLong(databaseEpoch)
+                    .putLong(occurredAt.toEpochMilli())
+                    .put((byte) type.ordinal())
+                    .putShort((short) id.length)
+                    .put(id)
+                    .put(patientJson);
+            CRC32 crc = new CRC32();
+            crc.update(body.array());
+
+            int position = segment.writePosition;
+            segment.buffer.put(position + HEADER, body.array());
+            segment.buffer.putInt(position + 4, (int) crc.getValue());
+            // Length last: until it is set the record reads as the end marker
+            segment.buffer.putInt(position, bodyLength);
+            segment.addPosition(position);
+            segment.writePosition = position + HEADER + bodyLength;
+
+            long offset = endOffset;
+            endOffset = offset + 1;
+            wakeWaiters();
+            return offset;
+        }
+    }
+
+    // Up to max changes starting at offset; empty when offset is the end of the log
+    public List<PatientChange> read(long offset, int max) {
+        long end = endOffset;
+        if (offset > end) {
+            throw new IllegalArgumentException("Offset " + offset + " is beyond the end of the log (" + end + ")");
+        }
+        List<Segment> snapshot = List.copyOf(segments);
+        long start = snapshot.get(0).baseOffset;
+        if (offset < start) {
+            throw new IllegalArgumentException("Offset " + offset + " is no longer retained; the oldest is " + start);
+        }
+        List<PatientChange> changes = new ArrayList<>((int) Math.min(max, end - offset));
+        int index = segmentIndex(snapshot, offset);
+        while (offset < end && changes.size() < max && index < snapshot.size()) {
+            Segment segment = snapshot.get(index);
+            int relative = (int) (offset - segment.baseOffset);
+            if (relative >= segment.count) {
+                index++;
+                continue;
+            }
+            changes.add(segment.read(offset, segment.positions[relative]));
+            offset++;
+        }
+        return changes;
+    }
+
+    // Completes once a change at offset exists; cancel() it when no longer interested
+    public CompletableFuture<Void> awaitOffset(long offset) {
+        Waiter waiter = new Waiter(offset);
+        waiters.add(waiter);
+        // Re-check after registering so an append in between is not missed
+        if (endOffset > offset) {
+            waiters.remove(waiter);
+            waiter.complete(null);
+        }
+        waiter.whenComplete((ignored, error) -> waiters.remove(waiter));
+        return waiter;
+    }
+
+    // Makes appended changes durable; the relay calls it before deleting outbox rows
+    public void force() {
+        synchronized (appendLock) {
+            segments.get(segments.size() - 1).force();
+        }
+    }
+
+    /**
+     * Drops every retained change; appending continues at the current end
+     * offset, so consumers reading an older offset are told it is no longer
+     * retained rather than handed changes to patients that no longer exist.
+     */
+    public void discardAll() {
+        synchronized (appendLock) {
+            Segment last = segments.get(segments.size() - 1);
+            if (last.count > 0) {
+                last = roll();
+            }
+            while (segments.size() > 1) {
+                segments.remove(0).delete();
+            }
+            log.info("Discarded patient change log; offsets continue at {}", last.baseOffset);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            for (Segment segment : segments) {
+                segment.force();
+                segment.close();
+            }
+        }
+        waiters.forEach(waiter -> waiter.cancel(false));
+    }
+
+    private void wakeWaiters() {
+        long end = endOffset;
+        for (Waiter waiter : waiters) {
+            if (waiter.offset < end) {
+                waiter.complete(null);
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        if (dir == null) {
+            segments.add(new Segment(0, ByteBuffer.allocate(segmentSize), null, null));
+            return;
+        }
+        Files.createDirectories(dir);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            segments.add(map(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), file));
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(0, segmentFile(0)));
+        }
+        long recovered = 0;
+        for (Segment segment : segments) {
+            recovered += segment.recover();
+        }
+        Segment last = segments.get(segments.size() - 1);
+        endOffset = last.baseOffset + last.count;
+        log.info("Opened patient change log in {}: offsets {} to {}, {} changes recovered", dir,
+                startOffset(), endOffset, recovered);
+    }
+
+    private Segment roll() {
+        Segment full = segments.get(segments.size() - 1);
+        full.force();
+        long base = full.baseOffset + full.count;
+        Segment next;
+        try {
+            next = dir == null
+                    ? new Segment(base, ByteBuffer.allocate(segmentSize), null, null)
+                    : map(base, segmentFile(base));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start change log segment at offset " + base, e);
+        }
+        segments.add(next);
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.remove(0);
+            oldest.delete();
+            log.info("Dropped change log segment starting at offset {}", oldest.baseOffset);
+        }
+        return next;
+    }
+
+    private Path segmentFile(long baseOffset) {
+        return dir.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+    }
+
+    private Segment map(long baseOffset, Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        return new Segment(baseOffset, buffer, channel, file);
+    }
+
+    private static int segmentIndex(List<Segment> segments, long offset) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (segments.get(mid).baseOffset <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private final class Segment {
+
+        private final long baseOffset;
+        private final ByteBuffer buffer;
+        private final FileChannel channel;
+        private final Path file;
+        private volatile int[] positions = new int[1024];
+        private volatile int count;
+        private int writePosition;
+
+        Segment(long baseOffset, ByteBuffer buffer, FileChannel channel, Path file) {
+            this.baseOffset = baseOffset;
+            this.buffer = buffer;
+            this.channel = channel;
+            this.file = file;
+        }
+
+        void addPosition(int position) {
+            int[] current = positions;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                positions = current;
+            }
+            current[count] = position;
+            count = count + 1;
+        }
+
+        PatientChange read(long offset, int position) {
+            int bodyLength = buffer.getInt(position);
+            int at = position + HEADER;
+            Instant occurredAt = Instant.ofEpochMilli(buffer.getLong(at + 16));
+            ChangeType type = TYPES[buffer.get(at + 24)];
+            int idLength = buffer.getShort(at + 25);
+            byte[] id = new byte[idLength];
+            buffer.get(at + 27, id);
+            byte[] json = new byte[bodyLength - 27 - idLength];
+            buffer.get(at + 27 + idLength, json);
+            return new PatientChange(offset, type.name(), new String(id, StandardCharsets.UTF_8), occurredAt,
+                    new String(json, StandardCharsets.UTF_8));
+        }
+
+        // Index the valid records and cut off anything after them; returns how many there are
+        int recover() {
+            int position = 0;
+            while (position + HEADER <= segmentSize) {
+                int bodyLength = buffer.getInt(position);
+                if (bodyLength <= 0 || position + HEADER + bodyLength > segmentSize) {
+                    break;
+                }
+                byte[] body = new byte[bodyLength];
+                buffer.get(position + HEADER, body);
+                CRC32 crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                    log.warn("Change log segment {} has a torn record at byte {}; truncating", baseOffset, position);
+                    break;
+                }
+                addPosition(position);
+                position += HEADER + bodyLength;
+            }
+            // Zero the header after the last good record so it reads as the end marker
+            if (position + HEADER <= segmentSize) {
+                buffer.putLong(position, 0L);
+            }
+            writePosition = position;
+            return count;
+        }
+
+        void force() {
+            if (buffer instanceof MappedByteBuffer mapped) {
+                mapped.force();
+            }
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+
+        void delete() {
+            try {
+                close();
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete change log segment {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Waiter extends CompletableFuture<Void> {
+
+        private final long offset;
+
+        Waiter(long offset) {
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.healthcare.healthcare.changelog;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.healthcare.healthcare.dto.PatientChange;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-sent event streams over the {@link PatientChangeLog}.
+ *
+ * <p>Each stream gets a thread of its own from a pool capped at
+ * {@code healthcare.events.max-streams}; further streams are refused rather
+ * than queued. The thread reads the log in batches and sends each change as
+ * an event whose id is its offset, so a reconnecting client resumes with
+ * {@code Last-Event-ID}. Sending blocks while the client's socket is full,
+ * which keeps a slow consumer from buffering the log in memory. When the
+ * stream is caught up the thread waits for the next append, sending a
+ * comment line every {@code heartbeat-ms} so proxies keep the connection.
+ */
+@Component
+@Slf4j
+public class PatientChangeStreams {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final PatientChangeLog patientChangeLog;
+    private final ThreadPoolExecutor executor;
+    private final long streamTimeoutMs;
+    private final long heartbeatMs;
+
+    public PatientChangeStreams(PatientChangeLog patientChangeLog,
+            @Value("${healthcare.events.max-streams:16}") int maxStreams,
+            @Value("${healthcare.events.stream-timeout-ms:600000}") long streamTimeoutMs,
+            @Value("${healthcare.events.heartbeat-ms:15000}") long heartbeatMs) {
+        this.patientChangeLog = patientChangeLog;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, maxStreams, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "patient-changes-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Start streaming changes from offset; IllegalStateException when every stream slot is taken
+    public SseEmitter open(long offset) {
+        long end = patientChangeLog.endOffset();
+        if (offset < patientChangeLog.startOffset() || offset > end) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside the retained log ("
+                    + patientChangeLog.startOffset() + " to " + end + ")");
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(error -> open.set(false));
+        try {
+            executor.execute(() -> pump(emitter, open, offset));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Too many change streams open; retry later");
+        }
+        return emitter;
+    }
+
+    public int activeStreams() {
+        return executor.getActiveCount();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void pump(SseEmitter emitter, AtomicBoolean open, long offset) {
+        try {
+            while (open.get()) {
+                List<PatientChange> changes = patientChangeLog.read(offset, BATCH_SIZE);
+                if (changes.isEmpty()) {
+                    if (!awaitChange(offset)) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    continue;
+                }
+                for (PatientChange change : changes) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(change.offset()))
+                            .name(change.type())
+                            .data(change, MediaType.APPLICATION_JSON));
+                }
+                offset = changes.get(changes.size() - 1).offset() + 1;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already completed
+            log.debug("Patient change stream ended at offset {}: {}", offset, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            // The consumer fell behind retention
+            emitter.completeWithError(e);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        emitter.complete();
+    }
+
+    // True once a change at offset exists, false after a heartbeat interval without one
+    private boolean awaitChange(long offset) throws InterruptedException {
+        CompletableFuture<Void> appended = patientChangeLog.awaitOffset(offset);
+        try {
+            appended.get(heartbeatMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } finally {
+            appended.cancel(false);
+        }
+    }
+}
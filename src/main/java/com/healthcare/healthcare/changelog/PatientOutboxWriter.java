@@ -0,0 +1,44 @@
+package com.healthcare.healthcare.changelog;
+
+import java.time.Instant;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.healthcare.entity.PatientOutboxEvent;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.repository.PatientOutboxRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records every patient change in the outbox table. Unlike the read-model
+ * listeners this one runs synchronously inside the writing transaction, so
+ * the outbox row commits or rolls back together with the change; the
+ * {@link ChangeLogRelay} later copies committed rows into the change log.
+ */
+@Component
+@RequiredArgsConstructor
+public class PatientOutboxWriter {
+
+    private final PatientOutboxRepository patientOutboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    public void onPatientChanged(PatientChangedEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event.patient());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize patient " + event.patient().getPatientId(), e);
+        }
+        patientOutboxRepository.save(PatientOutboxEvent.builder()
+                .type(event.type())
+                .patientId(event.patient().getPatientId())
+                .payload(payload)
+                .occurredAt(Instant.now())
+                .build());
+    }
+}
@@ -0,0 +1,25 @@
+package com.healthcare.healthcare.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.healthcare.healthcare.admission.AdmissionControlInterceptor;
+
+import lombok.RequiredArgsConstructor;
+
+// Patterns match the path within the application, so a context path or ;parameters do not bypass admission
+@Configuration
+@RequiredArgsConstructor
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControlInterceptor)
+                .addPathPatterns("/api/**")
+                // Change streams have their own limit
+                .excludePathPatterns("/api/v1/patients/changes/stream");
+    }
+}
@@ -0,0 +1,29 @@
+package com.healthcare.healthcare.config;
+
+import java.time.LocalDateTime;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.healthcare.healthcare.json.IsoLocalDateTimeSerializer;
+
+// Spring Boot registers Module beans with the application ObjectMapper
+@Configuration
+public class JacksonConfig {
+
+    // Generated accessors instead of reflection for every getter/setter Jackson calls
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // Same output as the JavaTimeModule serializer, without DateTimeFormatter
+    @Bean
+    public Module fastDateTimeModule() {
+        return new SimpleModule("fastDateTimeModule")
+                .addSerializer(LocalDateTime.class, new IsoLocalDateTimeSerializer());
+    }
+}
@@ -0,0 +1,28 @@
+package com.healthcare.healthcare.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.healthcare.healthcare.metrics.QueryCountingStatementInspector;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfig {
+
+    // Enables @Timed on service classes
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Per-request SQL statement counting; an inspector configured elsewhere wins
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return properties -> properties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR,
+                new QueryCountingStatementInspector());
+    }
+}
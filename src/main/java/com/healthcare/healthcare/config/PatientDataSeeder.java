@@ -1,26 +1,42 @@
 package com.healthcare.healthcare.config;
 
 import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientsSeededEvent;
 import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.service.PatientIdAllocator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PatientDataSeeder implements CommandLineRunner {
 
+    private static final long SIX_MONTHS_SECONDS = 183L * 24 * 60 * 60;
+    private static final Patient.Gender[] GENDERS = Patient.Gender.values();
+    private static final Patient.MaritalStatus[] MARITAL_STATUSES = Patient.MaritalStatus.values();
+
     private final PatientRepository patientRepository;
-    private final Random random = new Random();
+    private final PatientIdAllocator patientIdAllocator;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Sample data arrays
     private final String[] firstNames = {
@@ -92,174 +108,257 @@ public class PatientDataSeeder implements CommandLineRunner {
             "Spouse", "Parent", "Child", "Sibling", "Friend", "Partner", "Grandparent", "Cousin", "Uncle", "Aunt"
     };
 
+    private final String[] emailDomains = { "gmail.com", "yahoo.com", "hotmail.com", "outlook.com", "email.com" };
+
+    private final String[] streetTypes = { "St", "Ave", "Rd", "Dr", "Blvd", "Ln", "Way", "Ct" };
+
+    private final String[] streetNames = {
+            "Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Washington", "Park", "Hill", "Church",
+            "School", "State", "Broad", "High", "Union", "Water", "Mill", "River", "Lake", "Forest"
+    };
+
+    // Lower-cased once so email generation does not allocate per row
+    private final String[] firstNamesLower = toLowerCase(firstNames);
+    private final String[] lastNamesLower = toLowerCase(lastNames);
+
+    @Value("${healthcare.seed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${healthcare.seed.count:100}")
+    private int count;
+
+    // Fixed seed for reproducible data; leave empty for a different data set on every run
+    @Value("${healthcare.seed.random-seed:#{null}}")
+    private Long randomSeed;
+
+    @Value("${healthcare.seed.batch-size:1000}")
+    private int batchSize;
+
+    // 0 means one generator thread per available core
+    @Value("${healthcare.seed.threads:0}")
+    private int threads;
+
+    // Seed on a background thread so the server takes requests meanwhile (the prod profile turns this on)
+    @Value("${healthcare.seed.background:false}")
+    private boolean background;
+
     @Override
-    public void run(String... args) throws Exception {
-        // Check if data already exists
+    public void run(String... args) {
+        if (!enabled || count <= 0) {
+            log.info("Patient data seeding disabled.");
+            return;
+        }
+        // Decided here rather than on the seeder thread, so writes taken while it runs cannot cancel seeding
         if (patientRepository.count() > 0) {
             log.info("Patient data already exists. Skipping seeding.");
             return;
         }
+        if (!background) {
+            seed();
+            return;
+        }
 
-        log.info("Starting patient data seeding...");
-
-        List<Patient> patients = new ArrayList<>();
+        // Read models built at startup saw a partly seeded table; PatientsSeededEvent has them rebuild
+        Thread thread = new Thread(() -> {
+            try {
+                eventPublisher.publishEvent(new PatientsSeededEvent(seed()));
+            } catch (RuntimeException e) {
+                log.error("Background patient data seeding failed: {}", e.getMessage(), e);
+            }
+        }, "patient-seeder");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Patient data seeding continues in the background");
+    }
 
-        for (int i = 1; i <= 100; i++) {
-            Patient patient = createRandomPatient(i);
-            patients.add(patient);
+    // Insert count random patients; returns the number inserted
+    private long seed() {
+        long seed = randomSeed != null ? randomSeed : System.nanoTime();
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int batches = (count + batchSize - 1) / batchSize;
+        long progressStep = Math.max(batchSize, count / 20);
+        LocalDate today = LocalDate.now();
+
+        log.info("Starting patient data seeding: {} patients, seed {}, batch size {}, {} threads",
+                count, seed, batchSize, workers);
+
+        // One contiguous range, so row index i always gets the same patient ID (P00000001.. on an empty database)
+        long firstNumber = patientIdAllocator.reserveRange(count);
+
+        AtomicInteger nextBatch = new AtomicInteger();
+        AtomicLong written = new AtomicLong();
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers, new SeederThreadFactory());
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    int batch;
+                    while ((batch = nextBatch.getAndIncrement()) < batches) {
+                        int from = batch * batchSize + 1;
+                        int to = Math.min(count, from + batchSize - 1);
+
+                        // One generator per batch, derived from the run seed, so output does not depend on scheduling.
+                        // Scramble the batch seed: seeds one gamma apart would give shifted copies of one stream
+                        SplittableRandom random = new SplittableRandom(new SplittableRandom(seed + batch).nextLong());
+                        List<Patient> patients = new ArrayList<>(to - from + 1);
+                        for (int index = from; index <= to; index++) {
+                            patients.add(createRandomPatient(random, index, firstNumber, today));
+                        }
+                        patientRepository.saveAll(patients);
+
+                        long done = written.addAndGet(patients.size());
+                        if (done / progressStep != (done - patients.size()) / progressStep || done == count) {
+                            log.info("Seeded {}/{} patients ({} rows/sec)", done, count, rowsPerSecond(done, start));
+                        }
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            pool.shutdownNow();
         }
 
-        // Batch save all patients
-        List<Patient> savedPatients = patientRepository.saveAll(patients);
-
-        log.info("Successfully seeded {} patient records", savedPatients.size());
+        log.info("Successfully seeded {} patient records in {} ms ({} rows/sec)",
+                written.get(), (System.nanoTime() - start) / 1_000_000, rowsPerSecond(written.get(), start));
+        return written.get();
     }
 
-    private Patient createRandomPatient(int index) {
-        String firstName = firstNames[random.nextInt(firstNames.length)];
-        String lastName = lastNames[random.nextInt(lastNames.length)];
+    private Patient createRandomPatient(SplittableRandom random, int index, long firstNumber, LocalDate today) {
+        int first = random.nextInt(firstNames.length);
+        int last = random.nextInt(lastNames.length);
 
         return Patient.builder()
-                .patientId(generatePatientId(index))
-                .firstName(firstName)
-                .lastName(lastName)
-                .dateOfBirth(generateRandomDateOfBirth())
-                .gender(getRandomGender())
-                .phoneNumber(generateRandomPhoneNumber())
-                .email(generateEmail(firstName, lastName))
-                .address(generateRandomAddress())
-                .city(cities[random.nextInt(cities.length)])
-                .state(states[random.nextInt(states.length)])
-                .zipCode(generateRandomZipCode())
-                .country(countries[random.nextInt(countries.length)])
-                .bloodGroup(bloodGroups[random.nextInt(bloodGroups.length)])
-                .emergencyContactName(generateEmergencyContactName())
-                .emergencyContactPhone(generateRandomPhoneNumber())
-                .emergencyContactRelation(emergencyRelations[random.nextInt(emergencyRelations.length)])
-                .insuranceNumber(generateInsuranceNumber())
-                .insuranceProvider(insuranceProviders[random.nextInt(insuranceProviders.length)])
-                .maritalStatus(getRandomMaritalStatus())
-                .occupation(occupations[random.nextInt(occupations.length)])
+                .patientId(PatientIdAllocator.format(firstNumber + index - 1))
+                .firstName(firstNames[first])
+                .lastName(lastNames[last])
+                .dateOfBirth(generateRandomDateOfBirth(random, today))
+                .gender(pick(random, GENDERS))
+                .phoneNumber(generateRandomPhoneNumber(random))
+                .email(generateEmail(random, first, last))
+                .address(generateRandomAddress(random))
+                .city(pick(random, cities))
+                .state(pick(random, states))
+                .zipCode(appendPadded(new StringBuilder(5), random.nextInt(99999), 5).toString())
+                .country(pick(random, countries))
+                .bloodGroup(pick(random, bloodGroups))
+                .emergencyContactName(pick(random, firstNames) + " " + pick(random, lastNames))
+                .emergencyContactPhone(generateRandomPhoneNumber(random))
+                .emergencyContactRelation(pick(random, emergencyRelations))
+                .insuranceNumber(appendPadded(new StringBuilder(12).append("INS"), random.nextInt(999999999), 9)
+                        .toString())
+                .insuranceProvider(pick(random, insuranceProviders))
+                .maritalStatus(pick(random, MARITAL_STATUSES))
+                .occupation(pick(random, occupations))
                 .nationality("American")
                 .identificationType(random.nextBoolean() ? "SSN" : "Driver's License")
-                .identificationNumber(generateIdentificationNumber())
-                .registrationDate(generateRandomRegistrationDate())
-                .lastVisitDate(generateRandomLastVisitDate())
-                .status(Patient.PatientStatus.ACTIVE)
+                .identificationNumber(generateIdentificationNumber(random))
+                .lastVisitDate(generateRandomLastVisitDate(random))
+                .status(generateStatus(random))
                 .build();
     }
 
-    private String generatePatientId(int index) {
-        return String.format("P%08d", index);
+    // Mostly active, with the inactive history a long-running registry accumulates
+    private Patient.PatientStatus generateStatus(SplittableRandom random) {
+        int roll = random.nextInt(100);
+        if (roll < 85) {
+            return Patient.PatientStatus.ACTIVE;
+        }
+        if (roll < 93) {
+            return Patient.PatientStatus.INACTIVE;
+        }
+        return roll < 97 ? Patient.PatientStatus.TRANSFERRED : Patient.PatientStatus.DECEASED;
     }
 
-    private LocalDate generateRandomDateOfBirth() {
+    private LocalDate generateRandomDateOfBirth(SplittableRandom random, LocalDate today) {
         // Generate age between 18 and 80 years
-        int minAge = 18;
-        int maxAge = 80;
-        LocalDate now = LocalDate.now();
-        LocalDate minDate = now.minusYears(maxAge);
-        LocalDate maxDate = now.minusYears(minAge);
-
-        long minDay = minDate.toEpochDay();
-        long maxDay = maxDate.toEpochDay();
-        long randomDay = ThreadLocalRandom.current().nextLong(minDay, maxDay);
-
-        return LocalDate.ofEpochDay(randomDay);
+        long minDay = today.minusYears(80).toEpochDay();
+        long maxDay = today.minusYears(18).toEpochDay();
+        return LocalDate.ofEpochDay(random.nextLong(minDay, maxDay));
     }
 
-    private Patient.Gender getRandomGender() {
-        Patient.Gender[] genders = Patient.Gender.values();
-        return genders[random.nextInt(genders.length)];
+    private String generateRandomPhoneNumber(SplittableRandom random) {
+        // (XXX) XXX-XXXX
+        StringBuilder phone = new StringBuilder(14).append('(');
+        appendPadded(phone, random.nextInt(900) + 100, 3).append(") ");
+        appendPadded(phone, random.nextInt(900) + 100, 3).append('-');
+        return appendPadded(phone, random.nextInt(9000) + 1000, 4).toString();
     }
 
-    private String generateRandomPhoneNumber() {
-        return String.format("(%03d) %03d-%04d",
-                random.nextInt(900) + 100,
-                random.nextInt(900) + 100,
-                random.nextInt(9000) + 1000);
+    private String generateEmail(SplittableRandom random, int first, int last) {
+        return new StringBuilder(40)
+                .append(firstNamesLower[first]).append('.')
+                .append(lastNamesLower[last])
+                .append(random.nextInt(999) + 1).append('@')
+                .append(pick(random, emailDomains))
+                .toString();
     }
 
-    private String generateEmail(String firstName, String lastName) {
-        String[] domains = { "gmail.com", "yahoo.com", "hotmail.com", "outlook.com", "email.com" };
-        String domain = domains[random.nextInt(domains.length)];
-        return String.format("%s.%s%d@%s",
-                firstName.toLowerCase(),
-                lastName.toLowerCase(),
-                random.nextInt(999) + 1,
-                domain);
+    private String generateRandomAddress(SplittableRandom random) {
+        return new StringBuilder(32)
+                .append(random.nextInt(9999) + 1).append(' ')
+                .append(pick(random, streetNames)).append(' ')
+                .append(pick(random, streetTypes))
+                .toString();
     }
 
-    private String generateRandomAddress() {
-        int streetNumber = random.nextInt(9999) + 1;
-        String[] streetTypes = { "St", "Ave", "Rd", "Dr", "Blvd", "Ln", "Way", "Ct" };
-        String[] streetNames = {
-                "Main", "Oak", "Pine", "Maple", "Cedar", "Elm", "Washington", "Park", "Hill", "Church",
-                "School", "State", "Broad", "High", "Union", "Water", "Mill", "River", "Lake", "Forest"
-        };
-
-        String streetName = streetNames[random.nextInt(streetNames.length)];
-        String streetType = streetTypes[random.nextInt(streetTypes.length)];
-
-        return String.format("%d %s %s", streetNumber, streetName, streetType);
+    private String generateIdentificationNumber(SplittableRandom random) {
+        StringBuilder id = new StringBuilder(11);
+        if (random.nextBoolean()) {
+            // SSN format: XXX-XX-XXXX
+            appendPadded(id, random.nextInt(900) + 100, 3).append('-');
+            appendPadded(id, random.nextInt(99) + 1, 2).append('-');
+            return appendPadded(id, random.nextInt(9999) + 1, 4).toString();
+        }
+        // Driver's License format: DXXXXXXXX
+        return appendPadded(id.append('D'), random.nextInt(99999999), 8).toString();
     }
 
-    private String generateRandomZipCode() {
-        return String.format("%05d", random.nextInt(99999));
+    private LocalDateTime generateRandomLastVisitDate(SplittableRandom random) {
+        // 70% chance of having a last visit date within the last six months
+        if (random.nextDouble() < 0.7) {
+            long now = System.currentTimeMillis() / 1000;
+            long sixMonthsAgo = now - SIX_MONTHS_SECONDS;
+            return LocalDateTime.ofEpochSecond(random.nextLong(sixMonthsAgo, now), 0, ZoneOffset.UTC);
+        }
+        return null; // 30% chance of no last visit (new patients)
     }
 
-    private String generateEmergencyContactName() {
-        String firstName = firstNames[random.nextInt(firstNames.length)];
-        String lastName = lastNames[random.nextInt(lastNames.length)];
-        return firstName + " " + lastName;
+    private static <T> T pick(SplittableRandom random, T[] values) {
+        return values[random.nextInt(values.length)];
     }
 
-    private String generateInsuranceNumber() {
-        return String.format("INS%09d", random.nextInt(999999999));
+    // Zero-pads value to width digits without going through String.format
+    private static StringBuilder appendPadded(StringBuilder sb, int value, int width) {
+        int digits = value == 0 ? 1 : (int) Math.log10(value) + 1;
+        for (int i = digits; i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(value);
     }
 
-    private Patient.MaritalStatus getRandomMaritalStatus() {
-        Patient.MaritalStatus[] statuses = Patient.MaritalStatus.values();
-        return statuses[random.nextInt(statuses.length)];
+    private static long rowsPerSecond(long rows, long startNanos) {
+        long elapsed = Math.max(1, System.nanoTime() - startNanos);
+        return rows * 1_000_000_000L / elapsed;
     }
 
-    private String generateIdentificationNumber() {
-        if (random.nextBoolean()) {
-            // SSN format: XXX-XX-XXXX
-            return String.format("%03d-%02d-%04d",
-                    random.nextInt(900) + 100,
-                    random.nextInt(99) + 1,
-                    random.nextInt(9999) + 1);
-        } else {
-            // Driver's License format: DXXXXXXXX
-            return String.format("D%08d", random.nextInt(99999999));
+    private static String[] toLowerCase(String[] values) {
+        String[] lower = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            lower[i] = values[i].toLowerCase(Locale.ROOT);
         }
+        return lower;
     }
 
-    private LocalDateTime generateRandomRegistrationDate() {
-        // Generate registration date within last 2 years
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime twoYearsAgo = now.minusYears(2);
-
-        long minEpoch = twoYearsAgo.toEpochSecond(java.time.ZoneOffset.UTC);
-        long maxEpoch = now.toEpochSecond(java.time.ZoneOffset.UTC);
-        long randomEpoch = ThreadLocalRandom.current().nextLong(minEpoch, maxEpoch);
-
-        return LocalDateTime.ofEpochSecond(randomEpoch, 0, java.time.ZoneOffset.UTC);
-    }
-
-    private LocalDateTime generateRandomLastVisitDate() {
-        // 70% chance of having a last visit date
-        if (random.nextDouble() < 0.7) {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime sixMonthsAgo = now.minusMonths(6);
+    private static final class SeederThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
 
-            long minEpoch = sixMonthsAgo.toEpochSecond(java.time.ZoneOffset.UTC);
-            long maxEpoch = now.toEpochSecond(java.time.ZoneOffset.UTC);
-            long randomEpoch = ThreadLocalRandom.current().nextLong(minEpoch, maxEpoch);
-
-            return LocalDateTime.ofEpochSecond(randomEpoch, 0, java.time.ZoneOffset.UTC);
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "patient-seeder-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
-        return null; // 30% chance of no last visit (new patients)
     }
 }
@@ -0,0 +1,77 @@
+package com.healthcare.healthcare.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Routes read-only transactions to a replica connection pool.
+ *
+ * <p>Active only when {@code healthcare.datasource.replica.url} is set; the
+ * primary pool is then built from the usual {@code spring.datasource.*}
+ * properties and the replica pool from {@code healthcare.datasource.replica.*}
+ * (pool settings under {@code healthcare.datasource.replica.hikari.*}).
+ *
+ * <p>The application data source is a {@link LazyConnectionDataSourceProxy}
+ * that hands out a placeholder connection and fetches the physical one on the
+ * first statement. By then the transaction manager has marked the connection
+ * read-only for {@code @Transactional(readOnly = true)} work, so the proxy can
+ * take it from the replica pool; everything else goes to the primary.
+ * Replicas may lag the primary, so a read that must see a write made in the
+ * same request has to run inside a read-write transaction. The same goes for
+ * reads whose result outlives the request: {@code PatientService} reads the
+ * rows it puts in the lookup cache, and the versions behind ETags, that way.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "healthcare.datasource.replica", name = "url")
+@Slf4j
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("healthcare.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${healthcare.datasource.replica.url}") String url,
+            @Value("${healthcare.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${healthcare.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        log.info("Routing read-only transactions to replica {}", url);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primaryDataSource);
+        routing.setReadOnlyDataSource(replicaDataSource);
+        return routing;
+    }
+}
@@ -0,0 +1,10 @@
+package com.healthcare.healthcare.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs such as search index refresh run on Spring's scheduler
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
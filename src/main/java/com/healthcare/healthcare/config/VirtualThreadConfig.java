@@ -0,0 +1,48 @@
+package com.healthcare.healthcare.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Active only when {@code spring.threads.virtual.enabled=true} and the JVM is
+ * Java 21 or newer (see the {@code virtual} profile). Spring Boot then runs
+ * Tomcat requests, and with them every PatientService transaction, on virtual
+ * threads; this configuration puts a {@link BoundedDataSource} in front of
+ * the pool so that concurrency stays within the pool size.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Gate the pools only; the read-replica router holds no connections of its own
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BoundedDataSource
+                        || bean instanceof LazyConnectionDataSourceProxy) {
+                    return bean;
+                }
+                int maxConcurrent = environment.getProperty("healthcare.datasource.max-concurrent-connections",
+                        Integer.class, environment.getProperty("spring.datasource.hikari.maximum-pool-size",
+                                Integer.class, 10));
+                long acquireTimeout = environment.getProperty("healthcare.datasource.acquire-timeout-ms",
+                        Long.class, 2000L);
+                log.info("Virtual threads enabled: limiting data source '{}' to {} concurrent connections",
+                        beanName, maxConcurrent);
+                return new BoundedDataSource(dataSource, maxConcurrent, acquireTimeout);
+            }
+        };
+    }
+}
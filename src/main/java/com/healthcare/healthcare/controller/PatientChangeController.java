@@ -0,0 +1,124 @@
+package com.healthcare.healthcare.controller;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.healthcare.healthcare.admission.BulkEndpoint;
+import com.healthcare.healthcare.changelog.PatientChangeLog;
+import com.healthcare.healthcare.changelog.PatientChangeStreams;
+import com.healthcare.healthcare.controller.PatientController.ApiResponse;
+import com.healthcare.healthcare.dto.PatientChange;
+import com.healthcare.healthcare.logging.LogMarkers;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Patient change feed for downstream consumers. Consumers keep the offset of
+ * the next change they want and either poll ({@code GET /changes}, optionally
+ * waiting up to {@code waitMs} for new changes) or hold a server-sent event
+ * stream open ({@code GET /changes/stream}).
+ */
+@RestController
+@RequestMapping("/api/v1/patients/changes")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class PatientChangeController {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final long MAX_WAIT_MS = 30_000;
+
+    private final PatientChangeLog patientChangeLog;
+    private final PatientChangeStreams patientChangeStreams;
+
+    // Read changes from offset; with waitMs, an up-to-date consumer is answered when the next change arrives
+    @GetMapping
+    @BulkEndpoint
+    public DeferredResult<ResponseEntity<ApiResponse<List<PatientChange>>>> getChanges(
+            @RequestParam(defaultValue = "0") long offset,
+            @RequestParam(required = false) Integer max,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        log.debug(LogMarkers.REQUEST, "REST request for patient changes from offset {}", offset);
+
+        int batchSize = max == null ? DEFAULT_BATCH_SIZE : Math.max(1, Math.min(max, MAX_BATCH_SIZE));
+        long wait = Math.max(0, Math.min(waitMs, MAX_WAIT_MS));
+        DeferredResult<ResponseEntity<ApiResponse<List<PatientChange>>>> result = new DeferredResult<>(wait + 1000);
+        if (wait == 0 || offset != patientChangeLog.endOffset()) {
+            result.setResult(read(offset, batchSize));
+            return result;
+        }
+
+        CompletableFuture<Void> appended = patientChangeLog.awaitOffset(offset);
+        appended.thenRun(() -> result.setResult(read(offset, batchSize)));
+        appended.completeOnTimeout(null, wait, TimeUnit.MILLISECONDS);
+        result.onTimeout(() -> result.setResult(read(offset, batchSize)));
+        result.onCompletion(() -> appended.cancel(false));
+        return result;
+    }
+
+    // Server-sent events from offset (or after the Last-Event-ID a reconnecting client sends)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestParam(required = false) Long offset,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        log.info(LogMarkers.REQUEST, "REST request to stream patient changes from offset {}", offset);
+
+        try {
+            long from = offset != null ? offset
+                    : lastEventId != null ? Long.parseLong(lastEventId.trim()) + 1 : patientChangeLog.endOffset();
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                    .body(patientChangeStreams.open(from));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            log.warn("Refused patient change stream: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
+    }
+
+    private ResponseEntity<ApiResponse<List<PatientChange>>> read(long offset, int max) {
+        try {
+            List<PatientChange> changes = patientChangeLog.read(offset, max);
+            long next = offset + changes.size();
+            return ResponseEntity.ok(ApiResponse.<List<PatientChange>>builder()
+                    .success(true)
+                    .message("Patient changes retrieved successfully")
+                    .data(changes)
+                    .count(changes.size())
+                    .nextCursor(Long.toString(next))
+                    .hasNext(next < patientChangeLog.endOffset())
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<PatientChange>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error reading patient changes from offset {}: {}", offset, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<List<PatientChange>>builder()
+                            .success(false)
+                            .message("Failed to read patient changes: " + e.getMessage())
+                            .build());
+        }
+    }
+}
@@ -1,26 +1,67 @@
 package com.healthcare.healthcare.controller;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.healthcare.healthcare.admission.BulkEndpoint;
+import com.healthcare.healthcare.dedup.DuplicateDetector;
+import com.healthcare.healthcare.dto.DuplicateCluster;
+import com.healthcare.healthcare.dto.DuplicateScanReport;
+import com.healthcare.healthcare.dto.ImportReport;
+import com.healthcare.healthcare.dto.PatientCreation;
+import com.healthcare.healthcare.dto.PatientPage;
+import com.healthcare.healthcare.dto.PatientAnalyticsQuery;
+import com.healthcare.healthcare.dto.PatientCountResult;
+import com.healthcare.healthcare.dto.PatientQuery;
+import com.healthcare.healthcare.dto.PatientQueryResult;
+import com.healthcare.healthcare.dto.PatientStats;
+import com.healthcare.healthcare.dto.PatientStatusUpdate;
+import com.healthcare.healthcare.dto.PatientVersion;
+import com.healthcare.healthcare.dto.PatientView;
 import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.logging.LogMarkers;
+import com.healthcare.healthcare.service.PatientArchiver;
 import com.healthcare.healthcare.service.PatientService;
+import com.healthcare.healthcare.service.StatusFilter;
+import com.healthcare.healthcare.transfer.PatientExporter;
+import com.healthcare.healthcare.transfer.PatientImporter;
+import com.healthcare.healthcare.transfer.TransferFormat;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import javax.validation.Valid;
-import javax.validation.constraints.Min;
-import javax.validation.constraints.NotBlank;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
 
 @RestController
@@ -31,20 +72,61 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class PatientController {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+    // Patient data is personal: clients may keep a copy but must revalidate it, and shared caches must not store it
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final PatientService patientService;
+    private final ObjectMapper objectMapper;
+    private final PatientExporter patientExporter;
+    private final PatientImporter patientImporter;
+    private final PatientArchiver patientArchiver;
+    private final DuplicateDetector duplicateDetector;
 
-    // Create a new patient
+    // Create a new patient; retries sending the same Idempotency-Key get the first result back
     @PostMapping
-    public ResponseEntity<ApiResponse<Patient>> createPatient(@Valid @RequestBody Patient patient) {
-        log.info("REST request to create patient: {}", patient.getFirstName() + " " + patient.getLastName());
+    public ResponseEntity<ApiResponse<Patient>> createPatient(@Valid @RequestBody Patient patient,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        log.info(LogMarkers.REQUEST_PHI, "REST request to create patient: {} {}", patient.getFirstName(),
+                patient.getLastName());
 
         try {
-            Patient createdPatient = patientService.createPatient(patient);
+            String requestHash = null;
+            if (idempotencyKey != null) {
+                if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                    throw new IllegalArgumentException(IDEMPOTENCY_KEY_HEADER + " must be 1 to "
+                            + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+                }
+                requestHash = requestHash(patient);
+            }
+            PatientCreation creation;
+            try {
+                creation = patientService.createPatient(patient, idempotencyKey, requestHash);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request with the same key committed first: answer with its result
+                if (idempotencyKey == null) {
+                    throw e;
+                }
+                creation = patientService.findIdempotentCreation(idempotencyKey, requestHash).orElseThrow(() -> e);
+            }
             return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(IDEMPOTENT_REPLAYED_HEADER, Boolean.toString(creation.replayed()))
                     .body(ApiResponse.<Patient>builder()
                             .success(true)
-                            .message("Patient created successfully")
-                            .data(createdPatient)
+                            .message(creation.replayed()
+                                    ? "Patient already created for this idempotency key"
+                                    : "Patient created successfully")
+                            .data(creation.patient())
+                            .build());
+        } catch (IllegalStateException | DataIntegrityViolationException e) {
+            log.warn("Conflict creating patient: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.<Patient>builder()
+                            .success(false)
+                            .message("Failed to create patient: " + e.getMessage())
                             .build());
         } catch (Exception e) {
             log.error("Error creating patient: {}", e.getMessage());
@@ -56,63 +138,449 @@ public class PatientController {
         }
     }
 
-    // Get all patients
+    // Register many patients in one request; every patient is validated like a single create
+    @PostMapping("/batch")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<List<Long>>> createPatients(@RequestBody List<@Valid Patient> patients) {
+        log.info(LogMarkers.REQUEST, "REST request to create {} patients", patients.size());
+
+        try {
+            List<Long> ids = patientService.createPatients(patients);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.<List<Long>>builder()
+                            .success(true)
+                            .message("Patients created successfully")
+                            .data(ids)
+                            .count(ids.size())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error creating patients in bulk: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<Long>>builder()
+                            .success(false)
+                            .message("Failed to create patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Get patients one keyset page at a time; fields=summary (default) or full, status=active (default) or all
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Patient>>> getAllPatients() {
-        log.info("REST request to get all patients");
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<List<?>>> getAllPatients(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String status,
+            WebRequest request) {
+        log.info(LogMarkers.REQUEST, "REST request to get patients page, cursor: {}, limit: {}", cursor, limit);
 
         try {
-            List<Patient> patients = patientService.getAllPatients();
-            return ResponseEntity.ok(ApiResponse.<List<Patient>>builder()
-                    .success(true)
-                    .message("Patients retrieved successfully")
-                    .data(patients)
-                    .count(patients.size())
-                    .build());
+            String etag = patientService.getCollectionEtag();
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            PatientPage<?> page = patientService.getPatientsPage(cursor, limit, StatusFilter.parse(status),
+                    PatientView.fromFields(fields).type());
+            return ResponseEntity.ok()
+                    .cacheControl(REVALIDATE)
+                    .eTag(etag)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(true)
+                            .message("Patients retrieved successfully")
+                            .data(page.items())
+                            .count(page.items().size())
+                            .nextCursor(page.nextCursor())
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
         } catch (Exception e) {
             log.error("Error retrieving patients: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.<List<Patient>>builder()
+                    .body(ApiResponse.<List<?>>builder()
                             .success(false)
                             .message("Failed to retrieve patients: " + e.getMessage())
                             .build());
         }
     }
 
+    // Stream all patients as newline-delimited JSON
+    @GetMapping(value = "/stream", produces = APPLICATION_NDJSON_VALUE)
+    @BulkEndpoint
+    public ResponseEntity<StreamingResponseBody> streamAllPatients() {
+        log.info(LogMarkers.REQUEST, "REST request to stream all patients");
+
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+                long count = patientService.streamAllPatients(patient -> {
+                    try {
+                        writer.write(patient);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                log.info("Streamed {} patients", count);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
+    // Export all patients as CSV or NDJSON, optionally gzip-compressed
+    @GetMapping("/export")
+    @BulkEndpoint
+    public ResponseEntity<StreamingResponseBody> exportPatients(@RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        log.info(LogMarkers.REQUEST, "REST request to export patients: format={}, gzip={}", format, gzip);
+
+        TransferFormat transferFormat;
+        try {
+            transferFormat = TransferFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            // The body type is fixed by the streaming handler, so the error is written through it too
+            ApiResponse<Void> error = ApiResponse.<Void>builder()
+                    .success(false)
+                    .message(e.getMessage())
+                    .build();
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+        String filename = "patients." + transferFormat.extension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> patientExporter.export(transferFormat, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : transferFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // Import patients from a CSV or NDJSON body (gzip with Content-Encoding: gzip)
+    @PostMapping(value = "/import", consumes = { "text/csv", APPLICATION_NDJSON_VALUE })
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<ImportReport>> importPatients(InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String contentEncoding) {
+        log.info(LogMarkers.REQUEST, "REST request to import patients: type={}, encoding={}", contentType,
+                contentEncoding);
+
+        try {
+            TransferFormat format = TransferFormat.fromContentType(contentType);
+            boolean gzip = "gzip".equalsIgnoreCase(contentEncoding);
+            if (contentEncoding != null && !gzip && !"identity".equalsIgnoreCase(contentEncoding)) {
+                throw new IllegalArgumentException("Unsupported content encoding: " + contentEncoding);
+            }
+            ImportReport report = patientImporter.importPatients(format, gzip, body);
+            return ResponseEntity.ok(
+                    ApiResponse.<ImportReport>builder()
+                            .success(report.complete())
+                            .message("Imported " + report.imported() + " of " + report.rowsRead() + " patients, "
+                                    + report.rejected() + " rejected"
+                                    + (report.complete() ? "" : "; input could not be read to the end"))
+                            .data(report)
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<ImportReport>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error importing patients: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<ImportReport>builder()
+                            .success(false)
+                            .message("Failed to import patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
     // Get patient by ID
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<Patient>> getPatientById(@PathVariable @Min(1) String id) {
-        log.info("REST request to get patiend by ID: {}", id);
+    public ResponseEntity<ApiResponse<Patient>> getPatientById(@PathVariable @NotBlank String id,
+            WebRequest request) {
+        log.info(LogMarkers.REQUEST, "REST request to get patient by ID: {}", id);
 
         try {
+            // A revalidation is answered from the version alone, without loading or serializing the patient
+            if (isConditional(request)) {
+                Optional<PatientVersion> version = patientService.getPatientVersion(id);
+                if (version.isPresent()
+                        && request.checkNotModified(version.get().etag(), version.get().lastModified())) {
+                    return null;
+                }
+            }
             Optional<Patient> patient = patientService.getPatientById(id);
+            if (patient.isPresent()) {
+                PatientVersion version = PatientVersion.of(patient.get());
+                return ResponseEntity.ok()
+                        .cacheControl(REVALIDATE)
+                        .eTag(version.etag())
+                        .lastModified(version.lastModified())
+                        .body(ApiResponse.<Patient>builder()
+                                .success(true)
+                                .message("Patient retrieved successfully")
+                                .data(patient.get())
+                                .build());
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.<Patient>builder()
+                                .success(false)
+                                .message("Patiend not found with ID: " + id)
+                                .build());
+            }
+        } catch (Exception e) {
+            log.error("Error retrieving patient by ID {}: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<Patient>builder()
+                            .success(false)
+                            .message("Failed to retrieve patient: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Replace the editable fields of a patient
+    @PutMapping("/{patientId}")
+    public ResponseEntity<ApiResponse<Patient>> updatePatient(@PathVariable String patientId,
+            @Valid @RequestBody Patient patient) {
+        log.info(LogMarkers.REQUEST, "REST request to update patient: {}", patientId);
+
+        try {
+            Optional<Patient> updated = patientService.updatePatient(patientId, patient);
+            if (updated.isPresent()) {
+                return ResponseEntity.ok(ApiResponse.<Patient>builder()
+                        .success(true)
+                        .message("Patient updated successfully")
+                        .data(updated.get())
+                        .build());
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.<Patient>builder()
+                                .success(false)
+                                .message("Patient not found with ID: " + patientId)
+                                .build());
+            }
+        } catch (OptimisticLockingFailureException e) {
+            // Another request updated the patient between our read and write (@Version)
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.<Patient>builder()
+                            .success(false)
+                            .message("Patient was changed by another request; retry")
+                            .build());
+        } catch (Exception e) {
+            log.error("Error updating patient {}: {}", patientId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<Patient>builder()
+                            .success(false)
+                            .message("Failed to update patient: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Change only the status of a patient
+    @PatchMapping("/{patientId}/status")
+    public ResponseEntity<ApiResponse<Patient>> updatePatientStatus(@PathVariable String patientId,
+            @RequestBody PatientStatusUpdate update) {
+        log.info(LogMarkers.REQUEST, "REST request to set status of patient {} to {}", patientId, update.status());
+
+        try {
+            Optional<Patient> updated = patientService.updatePatientStatus(patientId, update.status());
+            if (updated.isPresent()) {
+                return ResponseEntity.ok(ApiResponse.<Patient>builder()
+                        .success(true)
+                        .message("Patient status updated successfully")
+                        .data(updated.get())
+                        .build());
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.<Patient>builder()
+                                .success(false)
+                                .message("Patient not found with ID: " + patientId)
+                                .build());
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<Patient>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.<Patient>builder()
+                            .success(false)
+                            .message("Patient was changed by another request; retry")
+                            .build());
+        } catch (Exception e) {
+            log.error("Error updating status of patient {}: {}", patientId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<Patient>builder()
+                            .success(false)
+                            .message("Failed to update patient status: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Move patients inactive for inactiveDays (default healthcare.archive.inactive-after) to the archive table
+    @PostMapping("/archive")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<Long>> archivePatients(@RequestParam(required = false) Integer inactiveDays) {
+        log.info(LogMarkers.REQUEST, "REST request to archive patients inactive for {} days", inactiveDays);
+
+        try {
+            long archived = inactiveDays == null ? patientArchiver.archiveInactive()
+                    : patientArchiver.archive(Duration.ofDays(inactiveDays));
+            return ResponseEntity.ok(ApiResponse.<Long>builder()
+                    .success(true)
+                    .message("Inactive patients archived successfully")
+                    .data(archived)
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<Long>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error archiving patients: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<Long>builder()
+                            .success(false)
+                            .message("Failed to archive patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Get an archived patient by patient ID
+    @GetMapping("/archive/{patientId}")
+    public ResponseEntity<ApiResponse<Patient>> getArchivedPatient(@PathVariable String patientId) {
+        log.info(LogMarkers.REQUEST, "REST request to get archived patient: {}", patientId);
+
+        try {
+            Optional<Patient> patient = patientArchiver.findArchived(patientId);
             if (patient.isPresent()) {
                 return ResponseEntity.ok(ApiResponse.<Patient>builder()
                         .success(true)
-                        .message("Patient retrieved successfully")
+                        .message("Archived patient retrieved successfully")
                         .data(patient.get())
                         .build());
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.<Patient>builder()
                                 .success(false)
-                                .message("Patiend not found with ID: " + id)
+                                .message("No archived patient with ID: " + patientId)
                                 .build());
             }
         } catch (Exception e) {
-            log.error("Patiend not found with ID: ", id, e.getMessage());
+            log.error("Error retrieving archived patient {}: {}", patientId, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.<Patient>builder()
                             .success(false)
-                            .message("Failed to retrieve patient: " + e.getMessage())
+                            .message("Failed to retrieve archived patient: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Suspected duplicate registrations from the last duplicate scan, best matches first
+    @GetMapping("/duplicates")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<List<DuplicateCluster>>> getDuplicatePatients(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.info(LogMarkers.REQUEST, "REST request to get duplicate patients, cursor: {}, limit: {}", cursor, limit);
+
+        try {
+            PatientPage<DuplicateCluster> page = duplicateDetector.getClusters(cursor, limit);
+            return ResponseEntity.ok(ApiResponse.<List<DuplicateCluster>>builder()
+                    .success(true)
+                    .message("Duplicate patients retrieved successfully")
+                    .data(page.items())
+                    .count(page.items().size())
+                    .nextCursor(page.nextCursor())
+                    .hasNext(page.nextCursor() != null)
+                    .total(duplicateDetector.lastReport().map(DuplicateScanReport::clusters).orElse(null))
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<DuplicateCluster>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.<List<DuplicateCluster>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error retrieving duplicate patients: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<List<DuplicateCluster>>builder()
+                            .success(false)
+                            .message("Failed to retrieve duplicate patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Report of the last completed duplicate scan
+    @GetMapping("/duplicates/scan")
+    public ResponseEntity<ApiResponse<DuplicateScanReport>> getDuplicateScan() {
+        log.info(LogMarkers.REQUEST, "REST request to get the duplicate scan report");
+
+        Optional<DuplicateScanReport> report = duplicateDetector.lastReport();
+        if (report.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.<DuplicateScanReport>builder()
+                            .success(false)
+                            .message(duplicateDetector.isRunning() ? "The first duplicate scan is running"
+                                    : "No duplicate scan has run yet")
+                            .build());
+        }
+        return ResponseEntity.ok(ApiResponse.<DuplicateScanReport>builder()
+                .success(true)
+                .message(duplicateDetector.isRunning() ? "A new duplicate scan is running"
+                        : "Duplicate scan report retrieved successfully")
+                .data(report.get())
+                .build());
+    }
+
+    // Start a duplicate scan in the background; poll GET /duplicates/scan for its report
+    @PostMapping("/duplicates/scan")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<Void>> startDuplicateScan() {
+        log.info(LogMarkers.REQUEST, "REST request to start a duplicate scan");
+
+        try {
+            duplicateDetector.start();
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.<Void>builder()
+                            .success(true)
+                            .message("Duplicate scan started")
+                            .build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.<Void>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error starting duplicate scan: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<Void>builder()
+                            .success(false)
+                            .message("Failed to start duplicate scan: " + e.getMessage())
                             .build());
         }
     }
 
     // Get patient by Email
     @GetMapping("/email/{email}")
-    public ResponseEntity<ApiResponse<Patient>> getPatientByEmail(@PathVariable @Min(1) String email) {
-        log.info("REST request to get patient by Email: {}", email);
+    public ResponseEntity<ApiResponse<Patient>> getPatientByEmail(@PathVariable @NotBlank String email) {
+        log.info(LogMarkers.REQUEST_PHI, "REST request to get patient by Email: {}", email);
 
         try {
             Optional<Patient> patient = patientService.getPatientByEmail(email);
@@ -130,7 +598,7 @@ public class PatientController {
                                 .build());
             }
         } catch (Exception e) {
-            log.error("Error retrieving patient by ID{}: {}", email, e.getMessage());
+            log.error(LogMarkers.PHI, "Error retrieving patient by Email {}: {}", email, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.<Patient>builder()
                             .success(false)
@@ -141,8 +609,8 @@ public class PatientController {
 
     // Get patient by phoneNumber
     @GetMapping("/phoneNumber/{phoneNumber}")
-    public ResponseEntity<ApiResponse<Patient>> getPatientByPhoneNumber(@PathVariable @Min(1) String phoneNumber) {
-        log.info("REST request to get patient by phoneNumber: {}", phoneNumber);
+    public ResponseEntity<ApiResponse<Patient>> getPatientByPhoneNumber(@PathVariable @NotBlank String phoneNumber) {
+        log.info(LogMarkers.REQUEST_PHI, "REST request to get patient by phoneNumber: {}", phoneNumber);
 
         try {
             Optional<Patient> patient = patientService.getPatientByPhoneNumber(phoneNumber);
@@ -160,7 +628,8 @@ public class PatientController {
                                 .build());
             }
         } catch (Exception e) {
-            log.error("Failed to retrieve patient: ", phoneNumber, e.getMessage());
+            log.error(LogMarkers.PHI, "Error retrieving patient by phoneNumber {}: {}", phoneNumber,
+                    e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(ApiResponse.<Patient>builder()
                             .success(false)
@@ -172,8 +641,9 @@ public class PatientController {
     // Get patient by identification number
     @GetMapping("/identificationNumber/{identificationNumber}")
     public ResponseEntity<ApiResponse<Patient>> getPatientByIdentificationNumber(
-            @PathVariable @Min(1) String identificationNumber) {
-        log.info("REST request to get patient by identificationNumber: {}", identificationNumber);
+            @PathVariable @NotBlank String identificationNumber) {
+        log.info(LogMarkers.REQUEST_PHI, "REST request to get patient by identificationNumber: {}",
+                identificationNumber);
 
         try {
             Optional<Patient> patient = patientService.getPatientIdentificationNumber(identificationNumber);
@@ -199,44 +669,338 @@ public class PatientController {
         }
     }
 
-    // Search patients by name
+    // Search patients by name; fields=summary (default) or full, status=active (default) or all
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<Patient>>> searchPatientsByName(@RequestParam @NotBlank String name) {
-        log.info("REST request to search patients by name: {}", name);
+    public ResponseEntity<ApiResponse<List<?>>> searchPatientsByName(@RequestParam @NotBlank String name,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String status) {
+        log.info(LogMarkers.REQUEST_PHI, "REST request to search patients by name: {}", name);
 
         try {
-            List<Patient> patients = patientService.searchPatientsByName(name);
-            return ResponseEntity.ok(ApiResponse.<List<Patient>>builder()
+            List<?> patients = patientService.searchPatientsByName(name, limit, StatusFilter.parse(status),
+                    PatientView.fromFields(fields).type());
+            return ResponseEntity.ok(ApiResponse.<List<?>>builder()
                     .success(true)
                     .message("Patients search completed successfully")
                     .data(patients)
                     .count(patients.size())
                     .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(ApiResponse.<List<Patient>>builder()
+                    .body(ApiResponse.<List<?>>builder()
                             .success(false)
                             .message("Failed to search patients: " + e.getMessage())
                             .build());
         }
     }
 
+    // Full-text query over name, email, phone and address with filters, ranking and facet counts
+    @GetMapping("/query")
+    @BulkEndpoint(sizeParameter = "size", interactiveUpTo = PatientService.DEFAULT_PAGE_SIZE)
+    public ResponseEntity<ApiResponse<List<?>>> queryPatients(PatientQuery query,
+            @RequestParam(required = false) String fields) {
+        log.info(LogMarkers.REQUEST_PHI, "REST request to query patients: {}", query.text());
+
+        try {
+            PatientQueryResult<?> result = patientService.queryPatients(query, PatientView.fromFields(fields).type());
+            return ResponseEntity.ok(ApiResponse.<List<?>>builder()
+                    .success(true)
+                    .message("Patients query completed successfully")
+                    .data(result.items())
+                    .count(result.items().size())
+                    .total(result.total())
+                    .hasNext(result.hasNext())
+                    .facets(result.facets())
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error querying patients: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message("Failed to query patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Rebuild the full-text index from the patients table
+    @PostMapping("/query/reindex")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<Long>> rebuildSearchIndex() {
+        log.info("REST request to rebuild the patient search index");
+
+        try {
+            long documents = patientService.rebuildSearchIndex();
+            return ResponseEntity.ok(ApiResponse.<Long>builder()
+                    .success(true)
+                    .message("Patient search index rebuilt")
+                    .data(documents)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error rebuilding patient search index: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<Long>builder()
+                            .success(false)
+                            .message("Failed to rebuild search index: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Patient counts by gender, blood group, city, state, status, insurance provider and age band
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<PatientStats>> getPatientStatistics() {
+        log.info(LogMarkers.REQUEST, "REST request to get patient statistics");
+
+        try {
+            PatientStats stats = patientService.getPatientStatistics();
+            return ResponseEntity.ok(ApiResponse.<PatientStats>builder()
+                    .success(true)
+                    .message("Patient statistics retrieved successfully")
+                    .data(stats)
+                    .total(stats.total())
+                    .build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.<PatientStats>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error retrieving patient statistics: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<PatientStats>builder()
+                            .success(false)
+                            .message("Failed to retrieve patient statistics: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Count patients by gender, blood group, city, state, country, marital status, status, insurance provider and
+    // age, optionally grouped by one of those dimensions
+    @GetMapping("/analytics/count")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<PatientCountResult>> countPatients(PatientAnalyticsQuery query) {
+        log.info(LogMarkers.REQUEST, "REST request to count patients: {}", query);
+
+        try {
+            PatientCountResult result = patientService.countPatients(query);
+            return ResponseEntity.ok(ApiResponse.<PatientCountResult>builder()
+                    .success(true)
+                    .message("Patients counted successfully")
+                    .data(result)
+                    .total(result.count())
+                    .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<PatientCountResult>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.<PatientCountResult>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error counting patients: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<PatientCountResult>builder()
+                            .success(false)
+                            .message("Failed to count patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Find patients by city; fields=summary (default) or full, status=active (default) or all
+    @GetMapping("/city/{city}")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<List<?>>> findPatientsByCity(@PathVariable String city,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String status,
+            WebRequest request) {
+        log.info(LogMarkers.REQUEST, "REST request to find patients by city: {}", city);
+
+        try {
+            String etag = patientService.getCollectionEtag();
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            List<?> patients = patientService.findPatientsByCity(city, limit, StatusFilter.parse(status),
+                    PatientView.fromFields(fields).type());
+            return ResponseEntity.ok()
+                    .cacheControl(REVALIDATE)
+                    .eTag(etag)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(true)
+                            .message("Patients retrieved successfully")
+                            .data(patients)
+                            .count(patients.size())
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error finding patients by city {}: {}", city, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message("Failed to retrieve patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Find patients by blood group; fields=summary (default) or full, status=active (default) or all
+    @GetMapping("/bloodGroup/{bloodGroup}")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<List<?>>> findPatientsByBloodGroup(@PathVariable String bloodGroup,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String status,
+            WebRequest request) {
+        log.info(LogMarkers.REQUEST, "REST request to find patients by blood group: {}", bloodGroup);
+
+        try {
+            String etag = patientService.getCollectionEtag();
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            List<?> patients = patientService.findPatientsByBloodGroup(bloodGroup, limit, StatusFilter.parse(status),
+                    PatientView.fromFields(fields).type());
+            return ResponseEntity.ok()
+                    .cacheControl(REVALIDATE)
+                    .eTag(etag)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(true)
+                            .message("Patients retrieved successfully")
+                            .data(patients)
+                            .count(patients.size())
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error finding patients by blood group {}: {}", bloodGroup, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message("Failed to retrieve patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    // Find patients by age range, one page at a time; fields=summary (default) or full, status=active (default) or all
+    @GetMapping("/by-age")
+    @BulkEndpoint
+    public ResponseEntity<ApiResponse<List<?>>> findPatientsByAgeRange(@RequestParam int min,
+            @RequestParam int max,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String status,
+            WebRequest request) {
+        log.info(LogMarkers.REQUEST, "REST request to find patients aged {} to {}, page {}", min, max, page);
+
+        try {
+            // Ages move with the date, so the day is part of the ETag
+            String etag = patientService.getCollectionEtag() + "." + LocalDate.now().toEpochDay();
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            Slice<?> patients = patientService.findPatientsByAgeRange(min, max, page, size, StatusFilter.parse(status),
+                    PatientView.fromFields(fields).type());
+            return ResponseEntity.ok()
+                    .cacheControl(REVALIDATE)
+                    .eTag(etag)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(true)
+                            .message("Patients retrieved successfully")
+                            .data(patients.getContent())
+                            .count(patients.getNumberOfElements())
+                            .hasNext(patients.hasNext())
+                            .build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
+        } catch (Exception e) {
+            log.error("Error finding patients by age range: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.<List<?>>builder()
+                            .success(false)
+                            .message("Failed to retrieve patients: " + e.getMessage())
+                            .build());
+        }
+    }
+
+    private static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    // Fingerprint of a create request, so a key reused for a different patient is refused
+    private String requestHash(Patient patient) throws IOException {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(patient));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     // Inner class for API response wrapper
     @lombok.Data
     @lombok.Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class ApiResponse<T> {
         private boolean success;
         private String message;
         private T data;
         private Integer count;
+        private String nextCursor;
+        private Boolean hasNext;
+        private Long total;
+        private Map<String, Map<String, Long>> facets;
         private String timestamp;
 
-        public ApiResponse(boolean success, String message, T data, Integer count, String timestamp) {
+        public ApiResponse(boolean success, String message, T data, Integer count, String nextCursor,
+                Boolean hasNext, Long total, Map<String, Map<String, Long>> facets, String timestamp) {
             this.success = success;
             this.message = message;
             this.data = data;
             this.count = count;
-            this.timestamp = timestamp != null ? timestamp : java.time.LocalDateTime.now().toString();
+            this.nextCursor = nextCursor;
+            this.hasNext = hasNext;
+            this.total = total;
+            this.facets = facets;
+            this.timestamp = timestamp != null ? timestamp : ResponseTimestamp.now();
         }
     }
 }
@@ -0,0 +1,35 @@
+package com.healthcare.healthcare.controller;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Local date-time text for response envelopes, formatted at most once per
+ * millisecond. Under load many responses share a millisecond, and building
+ * the string is most of the cost of stamping a response.
+ */
+final class ResponseTimestamp {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static volatile Cached cached = new Cached(Long.MIN_VALUE, "");
+
+    private ResponseTimestamp() {
+    }
+
+    static String now() {
+        long millis = System.currentTimeMillis();
+        Cached current = cached;
+        if (current.millis() == millis) {
+            return current.text();
+        }
+        String text = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE).toString();
+        // Racing threads may both format; either result is correct for this millisecond
+        cached = new Cached(millis, text);
+        return text;
+    }
+
+    private record Cached(long millis, String text) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.healthcare.healthcare.controller;
+
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.healthcare.healthcare.controller.PatientController.ApiResponse;
+
+import jakarta.validation.ConstraintViolationException;
+
+/**
+ * Answers requests rejected by bean validation (an invalid {@code @Valid}
+ * body or a constrained parameter) with 400 and the usual response envelope
+ * naming the offending fields, instead of Spring's default error body.
+ */
+@RestControllerAdvice
+public class ValidationExceptionHandler {
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ApiResponse<Void>> invalidBody(MethodArgumentNotValidException e) {
+        return badRequest(e.getBindingResult().getFieldErrors().stream()
+                .map(ValidationExceptionHandler::describe)
+                .sorted()
+                .collect(Collectors.joining("; ")));
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ApiResponse<Void>> invalidParameter(ConstraintViolationException e) {
+        return badRequest(e.getConstraintViolations().stream()
+                .map(violation -> withoutMethod(violation.getPropertyPath().toString()) + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; ")));
+    }
+
+    private static ResponseEntity<ApiResponse<Void>> badRequest(String problems) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.<Void>builder()
+                        .success(false)
+                        .message("Invalid request: " + problems)
+                        .build());
+    }
+
+    private static String describe(FieldError error) {
+        return error.getField() + " " + error.getDefaultMessage();
+    }
+
+    // "getPatientById.id" -> "id", "createPatients.patients[2].email" -> "patients[2].email"
+    private static String withoutMethod(String path) {
+        return path.substring(path.indexOf('.') + 1);
+    }
+}
@@ -0,0 +1,18 @@
+package com.healthcare.healthcare.dedup;
+
+import java.time.LocalDate;
+
+import com.healthcare.healthcare.entity.Patient;
+
+// Columns compared by duplicate detection; used as a Spring Data projection
+public record DuplicateCandidate(
+        Long id,
+        String firstName,
+        String lastName,
+        LocalDate dateOfBirth,
+        Patient.Gender gender,
+        String phoneDigits,
+        String emailNormalized,
+        String identificationNumber,
+        String zipCode) {
+}
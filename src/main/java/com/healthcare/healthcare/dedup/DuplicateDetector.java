@@ -0,0 +1,273 @@
+package com.healthcare.healthcare.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.healthcare.healthcare.dto.DuplicateCluster;
+import com.healthcare.healthcare.dto.DuplicateScanReport;
+import com.healthcare.healthcare.dto.PatientPage;
+import com.healthcare.healthcare.dto.PatientSummary;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background job that finds patients registered more than once.
+ *
+ * <p>A run reads the compared columns of every patient with a parallel
+ * id-range scan, hands them to {@link DuplicateLinker} on a fork-join pool and
+ * keeps the resulting clusters in memory until the next run replaces them.
+ * Runs happen every {@code healthcare.duplicates.interval-ms} or on request,
+ * one at a time, on their own thread so they never hold up other scheduled
+ * jobs. Patients changed after a run are picked up by the next one.
+ */
+@Component
+@Slf4j
+public class DuplicateDetector {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final long CHUNK_SIZE = 10_000;
+    private static final int SUMMARY_BATCH_SIZE = 1_000;
+    private static final String CURSOR_PREFIX = "d:";
+
+    private final PatientRepository patientRepository;
+    private final double matchThreshold;
+    private final int maxBlockSize;
+    private final int threads;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "patient-duplicates");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+
+    @Value("${healthcare.duplicates.enabled:true}")
+    private boolean enabled;
+
+    public DuplicateDetector(PatientRepository patientRepository,
+            @Value("${healthcare.duplicates.match-threshold:0.85}") double matchThreshold,
+            @Value("${healthcare.duplicates.max-block-size:2000}") int maxBlockSize,
+            @Value("${healthcare.duplicates.threads:0}") int threads) {
+        if (matchThreshold <= 0 || matchThreshold > 1) {
+            throw new IllegalArgumentException("healthcare.duplicates.match-threshold must be in (0, 1]");
+        }
+        this.patientRepository = patientRepository;
+        this.matchThreshold = matchThreshold;
+        this.maxBlockSize = Math.max(2, maxBlockSize);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Scheduled(fixedDelayString = "${healthcare.duplicates.interval-ms:86400000}",
+            initialDelayString = "${healthcare.duplicates.interval-ms:86400000}")
+    public void detectOnSchedule() {
+        if (enabled && !running.get()) {
+            start();
+        }
+    }
+
+    // Start a run in the background; fails when one is already running
+    public CompletableFuture<DuplicateScanReport> start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A duplicate scan is already running");
+        }
+        return CompletableFuture.supplyAsync(this::runClaimed, runner);
+    }
+
+    // Run now on the calling thread; fails when one is already running
+    public DuplicateScanReport detect() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A duplicate scan is already running");
+        }
+        return runClaimed();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    // Report of the last completed run, if any
+    public Optional<DuplicateScanReport> lastReport() {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.of(current.report());
+    }
+
+    // One page of the last run's clusters, best scores first
+    public PatientPage<DuplicateCluster> getClusters(String cursor, Integer limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            throw new IllegalStateException("No duplicate scan has completed yet");
+        }
+        int from = decodeCursor(cursor, current.generation());
+        int size = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<DuplicateCluster> clusters = current.clusters();
+        int to = Math.min(clusters.size(), from + size);
+        String next = to < clusters.size() ? encodeCursor(current.generation(), to) : null;
+        return new PatientPage<>(from >= to ? List.of() : clusters.subList(from, to), next);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+    }
+
+    private DuplicateScanReport runClaimed() {
+        try {
+            return run();
+        } catch (RuntimeException e) {
+            log.error("Duplicate scan failed: {}", e.getMessage(), e);
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private DuplicateScanReport run() {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            // The linker copies what it compares, so the scanned rows can be collected once it is built
+            DuplicateLinker linker = new DuplicateLinker(scan(pool), matchThreshold, maxBlockSize);
+            DuplicateLinker.Result result = linker.link(pool);
+            List<DuplicateCluster> clusters = describe(result.clusters());
+
+            long matches = clusters.stream().mapToLong(cluster -> cluster.matches().size()).sum();
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            DuplicateScanReport report = new DuplicateScanReport(startedAt.toString(), result.patients(),
+                    result.blocks(), result.oversizedBlocks(), result.comparisons(), matches, clusters.size(),
+                    durationMs);
+            snapshot = new Snapshot(startedAt.toEpochMilli(), clusters, report);
+            if (result.oversizedBlocks() > 0) {
+                log.warn("Duplicate scan skipped {} blocking keys shared by more than {} patients",
+                        result.oversizedBlocks(), maxBlockSize);
+            }
+            log.info("Duplicate scan compared {} pairs among {} patients in {} ms and found {} clusters",
+                    result.comparisons(), result.patients(), durationMs, clusters.size());
+            return report;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Parallel id-range scan of the compared columns
+    private List<DuplicateCandidate> scan(ForkJoinPool pool) {
+        long maxId = patientRepository.findMaxId();
+        int chunks = (int) ((maxId + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        List<List<DuplicateCandidate>> byChunk = new ArrayList<>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            byChunk.add(null);
+        }
+        AtomicInteger nextChunk = new AtomicInteger();
+        List<CompletableFuture<Void>> workers = new ArrayList<>(threads);
+        for (int w = 0; w < threads; w++) {
+            workers.add(CompletableFuture.runAsync(() -> {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    long from = chunk * CHUNK_SIZE + 1;
+                    long to = Math.min(maxId, from + CHUNK_SIZE - 1);
+                    byChunk.set(chunk, patientRepository.findByIdBetween(from, to, DuplicateCandidate.class));
+                }
+            }, pool));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+
+        List<DuplicateCandidate> candidates = new ArrayList<>();
+        byChunk.forEach(candidates::addAll);
+        return candidates;
+    }
+
+    // Attach patient summaries; patients deleted since the scan drop out of their clusters
+    private List<DuplicateCluster> describe(List<DuplicateLinker.Cluster> clusters) {
+        List<Long> ids = new ArrayList<>();
+        clusters.forEach(cluster -> {
+            for (long id : cluster.ids()) {
+                ids.add(id);
+            }
+        });
+        Map<Long, PatientSummary> summaries = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i += SUMMARY_BATCH_SIZE) {
+            List<Long> batch = ids.subList(i, Math.min(ids.size(), i + SUMMARY_BATCH_SIZE));
+            patientRepository.findByIdIn(batch, PatientSummary.class)
+                    .forEach(summary -> summaries.put(summary.id(), summary));
+        }
+
+        List<DuplicateCluster> described = new ArrayList<>(clusters.size());
+        for (DuplicateLinker.Cluster cluster : clusters) {
+            List<PatientSummary> patients = new ArrayList<>(cluster.ids().length);
+            for (long id : cluster.ids()) {
+                PatientSummary summary = summaries.get(id);
+                if (summary != null) {
+                    patients.add(summary);
+                }
+            }
+            List<DuplicateCluster.Match> matches = new ArrayList<>(cluster.matches().size());
+            for (DuplicateLinker.Match match : cluster.matches()) {
+                PatientSummary patient = summaries.get(match.id());
+                PatientSummary other = summaries.get(match.otherId());
+                if (patient != null && other != null) {
+                    matches.add(new DuplicateCluster.Match(patient.patientId(), other.patientId(),
+                            Math.round(match.score() * 1000) / 1000.0, match.key().label()));
+                }
+            }
+            if (patients.size() > 1 && !matches.isEmpty()) {
+                described.add(new DuplicateCluster(matches.get(0).score(), List.copyOf(patients),
+                        List.copyOf(matches)));
+            }
+        }
+        return List.copyOf(described);
+    }
+
+    private static String encodeCursor(long generation, int offset) {
+        byte[] raw = (CURSOR_PREFIX + generation + ":" + offset).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    // Offsets only mean something within one run's results, so a cursor from an earlier run is refused
+    private static int decodeCursor(String cursor, long generation) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (parts.length != 3 || !CURSOR_PREFIX.equals(parts[0] + ":")) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            if (Long.parseLong(parts[1]) != generation) {
+                throw new IllegalArgumentException(
+                        "Cursor belongs to an earlier duplicate scan; start again from the first page");
+            }
+            return Math.max(0, Integer.parseInt(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private record Snapshot(long generation, List<DuplicateCluster> clusters, DuplicateScanReport report) {
+    }
+}
@@ -0,0 +1,489 @@
+package com.healthcare.healthcare.dedup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.healthcare.healthcare.entity.PatientKeys;
+
+/**
+ * Record linkage over one in-memory set of patients.
+ *
+ * <p>Only patients that share a blocking key are compared: the same
+ * identification number, the same phone number (last ten digits), or the
+ * same Soundex surname code and birth year. Blocks are cut into work units of
+ * similar pair counts that a fork-join pool scores in parallel, and a pair
+ * that shares several keys is scored once, in the first of its blocks. Blocks
+ * larger than {@code maxBlockSize} are placeholder values shared by unrelated
+ * patients (or a key too coarse for the data) and are skipped. Pairs scoring
+ * at least the threshold are joined into clusters with union-find.
+ *
+ * <p>Each compared field adds its agreement weight times the similarity to
+ * the evidence for a match and its disagreement weight times the
+ * dissimilarity to the evidence against; the score is the share of evidence
+ * for. Different phone numbers and e-mail addresses count for little because
+ * people change them, and fields missing on either side are left out.
+ */
+final class DuplicateLinker {
+
+    enum BlockingKey {
+        IDENTIFICATION_NUMBER("identificationNumber"),
+        PHONE_NUMBER("phoneNumber"),
+        SURNAME_AND_BIRTH_YEAR("surnameAndBirthYear");
+
+        private final String label;
+
+        BlockingKey(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+    }
+
+    private static final BlockingKey[] KEYS = BlockingKey.values();
+
+    private static final double FIRST_NAME_WEIGHT = 2.0;
+    private static final double LAST_NAME_WEIGHT = 3.0;
+    private static final double NAME_WEIGHT = FIRST_NAME_WEIGHT + LAST_NAME_WEIGHT;
+    // Names less similar than this are different names (twins), not misspellings, and count fully against
+    private static final double NAME_SIMILARITY_FLOOR = 0.8;
+    private static final double BIRTH_DATE_WEIGHT = 3.0;
+    private static final double IDENTIFICATION_WEIGHT = 4.0;
+    private static final double PHONE_AGREE = 2.0;
+    private static final double PHONE_DISAGREE = 0.5;
+    private static final double EMAIL_AGREE = 1.5;
+    private static final double EMAIL_DISAGREE = 0.5;
+    private static final double GENDER_AGREE = 0.5;
+    private static final double GENDER_DISAGREE = 1.0;
+    private static final double ZIP_AGREE = 0.5;
+    private static final double ZIP_DISAGREE = 0.25;
+
+    // Pairs scored by one fork-join leaf, and per work unit when a large block is split by rows
+    private static final long LEAF_PAIRS = 50_000;
+    private static final long UNIT_PAIRS = 20_000;
+    private static final int PHONE_KEY_DIGITS = 10;
+    private static final int MIN_PHONE_DIGITS = 7;
+    private static final int MIN_IDENTIFICATION_LENGTH = 4;
+
+    private final double threshold;
+    private final int maxBlockSize;
+
+    private final int size;
+    private final long[] ids;
+    private final String[] firstNames;
+    private final String[] lastNames;
+    // yyyymmdd, or 0 when unknown
+    private final int[] birthDates;
+    // Gender ordinal, or -1 when unknown
+    private final byte[] genders;
+    private final String[] emails;
+    private final String[] zipCodes;
+    // [BlockingKey ordinal][candidate]; the identification and phone keys are also the compared values
+    private final String[][] keys;
+    private final List<Set<String>> oversizedKeys = new ArrayList<>();
+
+    // Blocks and the work units they are cut into; unitPairs[u] is the pair count before unit u
+    private int[][] blockMembers;
+    private BlockingKey[] blockKeys;
+    private int[] unitBlock;
+    private int[] unitFrom;
+    private int[] unitTo;
+    private long[] unitPairs;
+
+    DuplicateLinker(List<DuplicateCandidate> candidates, double threshold, int maxBlockSize) {
+        this.threshold = threshold;
+        this.maxBlockSize = maxBlockSize;
+        this.size = candidates.size();
+        this.ids = new long[size];
+        this.firstNames = new String[size];
+        this.lastNames = new String[size];
+        this.birthDates = new int[size];
+        this.genders = new byte[size];
+        this.emails = new String[size];
+        this.zipCodes = new String[size];
+        this.keys = new String[KEYS.length][size];
+
+        for (int i = 0; i < size; i++) {
+            DuplicateCandidate candidate = candidates.get(i);
+            ids[i] = candidate.id();
+            firstNames[i] = normalizeName(candidate.firstName());
+            lastNames[i] = normalizeName(candidate.lastName());
+            LocalDate born = candidate.dateOfBirth();
+            birthDates[i] = born == null ? 0
+                    : born.getYear() * 10_000 + born.getMonthValue() * 100 + born.getDayOfMonth();
+            genders[i] = (byte) (candidate.gender() == null ? -1 : candidate.gender().ordinal());
+            emails[i] = PatientKeys.normalizeEmail(candidate.emailNormalized());
+            zipCodes[i] = normalizeZipCode(candidate.zipCode());
+
+            keys[BlockingKey.IDENTIFICATION_NUMBER.ordinal()][i] =
+                    normalizeIdentification(candidate.identificationNumber());
+            keys[BlockingKey.PHONE_NUMBER.ordinal()][i] = normalizePhone(candidate.phoneDigits());
+            String surname = PatientSimilarity.soundex(lastNames[i]);
+            keys[BlockingKey.SURNAME_AND_BIRTH_YEAR.ordinal()][i] =
+                    surname == null || born == null ? null : surname + born.getYear();
+        }
+    }
+
+    record Match(long id, long otherId, double score, BlockingKey key) {
+    }
+
+    // Patient ids in one cluster (ascending) and the scored pairs that joined them
+    record Cluster(long[] ids, List<Match> matches, double score) {
+    }
+
+    record Result(long patients, long blocks, long oversizedBlocks, long comparisons, List<Cluster> clusters) {
+    }
+
+    Result link(ForkJoinPool pool) {
+        buildBlocks();
+        Partial scored = unitBlock.length == 0 ? new Partial() : pool.invoke(new ScoreTask(0, unitBlock.length));
+        long oversized = oversizedKeys.stream().mapToLong(Set::size).sum();
+        return new Result(size, blockMembers.length, oversized, scored.comparisons, cluster(scored.links));
+    }
+
+    private void buildBlocks() {
+        List<int[]> members = new ArrayList<>();
+        List<BlockingKey> memberKeys = new ArrayList<>();
+        for (BlockingKey key : KEYS) {
+            String[] values = keys[key.ordinal()];
+            Map<String, IntList> groups = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                if (values[i] != null) {
+                    groups.computeIfAbsent(values[i], k -> new IntList()).add(i);
+                }
+            }
+            Set<String> oversized = new HashSet<>();
+            for (Map.Entry<String, IntList> group : groups.entrySet()) {
+                int count = group.getValue().size;
+                if (count > maxBlockSize) {
+                    oversized.add(group.getKey());
+                } else if (count > 1) {
+                    members.add(group.getValue().toArray());
+                    memberKeys.add(key);
+                }
+            }
+            oversizedKeys.add(oversized);
+        }
+        blockMembers = members.toArray(new int[0][]);
+        blockKeys = memberKeys.toArray(new BlockingKey[0]);
+
+        // Large blocks are split by outer row so no single unit dominates a worker
+        IntList block = new IntList();
+        IntList from = new IntList();
+        IntList to = new IntList();
+        List<Long> pairs = new ArrayList<>();
+        for (int b = 0; b < blockMembers.length; b++) {
+            int n = blockMembers[b].length;
+            int start = 0;
+            long accumulated = 0;
+            for (int row = 0; row < n - 1; row++) {
+                accumulated += n - 1 - row;
+                if (accumulated >= UNIT_PAIRS || row == n - 2) {
+                    block.add(b);
+                    from.add(start);
+                    to.add(row + 1);
+                    pairs.add(accumulated);
+                    start = row + 1;
+                    accumulated = 0;
+                }
+            }
+        }
+        unitBlock = block.toArray();
+        unitFrom = from.toArray();
+        unitTo = to.toArray();
+        unitPairs = new long[unitBlock.length + 1];
+        for (int u = 0; u < unitBlock.length; u++) {
+            unitPairs[u + 1] = unitPairs[u] + pairs.get(u);
+        }
+    }
+
+    private Partial scoreUnits(int fromUnit, int toUnit) {
+        Partial partial = new Partial();
+        for (int u = fromUnit; u < toUnit; u++) {
+            int[] members = blockMembers[unitBlock[u]];
+            BlockingKey key = blockKeys[unitBlock[u]];
+            for (int row = unitFrom[u]; row < unitTo[u]; row++) {
+                int a = members[row];
+                for (int column = row + 1; column < members.length; column++) {
+                    int b = members[column];
+                    if (sharesEarlierBlock(a, b, key)) {
+                        continue;
+                    }
+                    partial.comparisons++;
+                    double score = score(a, b);
+                    if (score >= threshold) {
+                        partial.links.add(new Link(a, b, score, key));
+                    }
+                }
+            }
+        }
+        return partial;
+    }
+
+    // Whether the pair was already scored in a block of an earlier key
+    private boolean sharesEarlierBlock(int a, int b, BlockingKey key) {
+        for (int k = 0; k < key.ordinal(); k++) {
+            String value = keys[k][a];
+            if (value != null && value.equals(keys[k][b]) && !oversizedKeys.get(k).contains(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private double score(int a, int b) {
+        double agree = 0;
+        double disagree = 0;
+
+        // Equality checks first, so pairs that cannot reach the threshold skip the name comparisons
+        if (birthDates[a] != 0 && birthDates[b] != 0) {
+            double similarity = birthDateSimilarity(birthDates[a], birthDates[b]);
+            agree += BIRTH_DATE_WEIGHT * similarity;
+            disagree += BIRTH_DATE_WEIGHT * (1 - similarity);
+        }
+        String[] identification = keys[BlockingKey.IDENTIFICATION_NUMBER.ordinal()];
+        if (identification[a] != null && identification[b] != null) {
+            if (identification[a].equals(identification[b])) {
+                agree += IDENTIFICATION_WEIGHT;
+            } else {
+                disagree += IDENTIFICATION_WEIGHT;
+            }
+        }
+        String[] phones = keys[BlockingKey.PHONE_NUMBER.ordinal()];
+        if (phones[a] != null && phones[b] != null) {
+            if (phones[a].equals(phones[b])) {
+                agree += PHONE_AGREE;
+            } else {
+                disagree += PHONE_DISAGREE;
+            }
+        }
+        if (emails[a] != null && emails[b] != null) {
+            if (emails[a].equals(emails[b])) {
+                agree += EMAIL_AGREE;
+            } else {
+                disagree += EMAIL_DISAGREE;
+            }
+        }
+        if (genders[a] >= 0 && genders[b] >= 0) {
+            if (genders[a] == genders[b]) {
+                agree += GENDER_AGREE;
+            } else {
+                disagree += GENDER_DISAGREE;
+            }
+        }
+        if (zipCodes[a] != null && zipCodes[b] != null) {
+            if (zipCodes[a].equals(zipCodes[b])) {
+                agree += ZIP_AGREE;
+            } else {
+                disagree += ZIP_DISAGREE;
+            }
+        }
+        if ((agree + NAME_WEIGHT) / (agree + NAME_WEIGHT + disagree) < threshold) {
+            return 0;
+        }
+
+        // First and last name, or the two swapped between registrations
+        double names = FIRST_NAME_WEIGHT * nameSimilarity(firstNames[a], firstNames[b])
+                + LAST_NAME_WEIGHT * nameSimilarity(lastNames[a], lastNames[b]);
+        if (names < NAME_WEIGHT * threshold) {
+            names = Math.max(names, FIRST_NAME_WEIGHT * nameSimilarity(firstNames[a], lastNames[b])
+                    + LAST_NAME_WEIGHT * nameSimilarity(lastNames[a], firstNames[b]));
+        }
+        agree += names;
+        disagree += NAME_WEIGHT - names;
+        return agree / (agree + disagree);
+    }
+
+    private static double nameSimilarity(String a, String b) {
+        double similarity = PatientSimilarity.jaroWinkler(a, b);
+        return similarity < NAME_SIMILARITY_FLOOR ? 0.0 : similarity;
+    }
+
+    // 1 for the same date, less for day and month swapped or one mistyped part
+    private static double birthDateSimilarity(int a, int b) {
+        if (a == b) {
+            return 1.0;
+        }
+        int aYear = a / 10_000;
+        int aMonth = a / 100 % 100;
+        int aDay = a % 100;
+        int bYear = b / 10_000;
+        int bMonth = b / 100 % 100;
+        int bDay = b % 100;
+        if (aYear == bYear && aMonth == bDay && aDay == bMonth) {
+            return 0.8;
+        }
+        int same = (aYear == bYear ? 1 : 0) + (aMonth == bMonth ? 1 : 0) + (aDay == bDay ? 1 : 0);
+        return same == 2 ? 0.5 : 0.0;
+    }
+
+    private List<Cluster> cluster(List<Link> links) {
+        int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        for (Link link : links) {
+            int a = find(parent, link.a);
+            int b = find(parent, link.b);
+            if (a != b) {
+                // The lower index becomes the root, so roots do not depend on scoring order
+                parent[Math.max(a, b)] = Math.min(a, b);
+            }
+        }
+
+        Map<Integer, IntList> members = new HashMap<>();
+        Map<Integer, List<Match>> matches = new HashMap<>();
+        for (Link link : links) {
+            int root = find(parent, link.a);
+            matches.computeIfAbsent(root, k -> new ArrayList<>())
+                    .add(new Match(ids[link.a], ids[link.b], link.score, link.key));
+            IntList clusterMembers = members.computeIfAbsent(root, k -> new IntList());
+            clusterMembers.add(link.a);
+            clusterMembers.add(link.b);
+        }
+
+        List<Cluster> clusters = new ArrayList<>(members.size());
+        for (Map.Entry<Integer, IntList> entry : members.entrySet()) {
+            long[] clusterIds = Arrays.stream(entry.getValue().toArray()).distinct().mapToLong(i -> ids[i])
+                    .sorted().toArray();
+            List<Match> clusterMatches = matches.get(entry.getKey());
+            clusterMatches.sort(Comparator.comparingDouble(Match::score).reversed()
+                    .thenComparingLong(Match::id).thenComparingLong(Match::otherId));
+            clusters.add(new Cluster(clusterIds, clusterMatches, clusterMatches.get(0).score()));
+        }
+        clusters.sort(Comparator.comparingDouble(Cluster::score).reversed()
+                .thenComparingLong(cluster -> cluster.ids()[0]));
+        return clusters;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            // Path halving
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder letters = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetter(c)) {
+                letters.append(Character.toLowerCase(c));
+            }
+        }
+        return letters.toString();
+    }
+
+    // The last ten digits, so a country code written on one registration only still matches
+    private static String normalizePhone(String digits) {
+        if (digits == null || digits.length() < MIN_PHONE_DIGITS) {
+            return null;
+        }
+        return digits.length() > PHONE_KEY_DIGITS ? digits.substring(digits.length() - PHONE_KEY_DIGITS) : digits;
+    }
+
+    // Letters and digits only, upper-cased, so "123-45-6789" and "123 45 6789" match
+    private static String normalizeIdentification(String number) {
+        if (number == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.length() < MIN_IDENTIFICATION_LENGTH ? null
+                : normalized.toString().toUpperCase(Locale.ROOT);
+    }
+
+    // Five-digit ZIP, ignoring any +4 suffix
+    private static String normalizeZipCode(String zipCode) {
+        if (zipCode == null || zipCode.isBlank()) {
+            return null;
+        }
+        String trimmed = zipCode.trim();
+        return trimmed.length() > 5 ? trimmed.substring(0, 5) : trimmed;
+    }
+
+    private record Link(int a, int b, double score, BlockingKey key) {
+    }
+
+    // Comparisons made and pairs above the threshold for a range of work units
+    private static final class Partial {
+        private long comparisons;
+        private List<Link> links = new ArrayList<>();
+
+        Partial merge(Partial other) {
+            comparisons += other.comparisons;
+            if (links.size() < other.links.size()) {
+                List<Link> smaller = links;
+                links = other.links;
+                links.addAll(smaller);
+            } else {
+                links.addAll(other.links);
+            }
+            return this;
+        }
+    }
+
+    // Splits a range of work units in two halves of equal pair counts until a range is small enough to score
+    private final class ScoreTask extends RecursiveTask<Partial> {
+        private final int fromUnit;
+        private final int toUnit;
+
+        ScoreTask(int fromUnit, int toUnit) {
+            this.fromUnit = fromUnit;
+            this.toUnit = toUnit;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (toUnit - fromUnit == 1 || unitPairs[toUnit] - unitPairs[fromUnit] <= LEAF_PAIRS) {
+                return scoreUnits(fromUnit, toUnit);
+            }
+            long half = (unitPairs[fromUnit] + unitPairs[toUnit]) / 2;
+            int middle = Arrays.binarySearch(unitPairs, fromUnit, toUnit, half);
+            middle = Math.max(fromUnit + 1, Math.min(toUnit - 1, middle < 0 ? -middle - 1 : middle));
+
+            ScoreTask left = new ScoreTask(fromUnit, middle);
+            left.fork();
+            Partial right = new ScoreTask(middle, toUnit).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // Growable int array; block membership would otherwise box every index
+    private static final class IntList {
+        private int[] values = new int[2];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
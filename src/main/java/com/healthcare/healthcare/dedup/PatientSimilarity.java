@@ -0,0 +1,112 @@
+package com.healthcare.healthcare.dedup;
+
+/**
+ * String comparisons used by duplicate detection: American Soundex for the
+ * phonetic surname blocking key and Jaro-Winkler similarity for scoring
+ * names. Both work on the normalized (lower-case, letters only) forms that
+ * {@link DuplicateLinker} prepares once per patient.
+ */
+final class PatientSimilarity {
+
+    // Soundex digit for 'a'..'z'; 0 for vowels and y, -1 for h and w, which do not separate equal codes
+    private static final byte[] SOUNDEX_CODES = {
+            0, 1, 2, 3, 0, 1, 2, -1, 0, 2, 2, 4, 5, 5, 0, 1, 2, 6, 2, 3, 0, 1, -1, 2, 0, 2
+    };
+    // Winkler's prefix bonus applies only to strings already this similar
+    private static final double WINKLER_THRESHOLD = 0.7;
+    private static final double WINKLER_SCALE = 0.1;
+    private static final int WINKLER_PREFIX = 4;
+    // Jaro matching marks characters in a long bit set; longer strings are compared on this prefix
+    private static final int MAX_COMPARED_LENGTH = 64;
+
+    private PatientSimilarity() {
+    }
+
+    // Four-character Soundex code ("R163"), or null when the name has no letters a-z
+    static String soundex(String name) {
+        if (name == null) {
+            return null;
+        }
+        char[] code = new char[4];
+        int length = 0;
+        int previous = 0;
+        for (int i = 0; i < name.length() && length < 4; i++) {
+            char c = Character.toLowerCase(name.charAt(i));
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            int digit = SOUNDEX_CODES[c - 'a'];
+            if (length == 0) {
+                code[length++] = Character.toUpperCase(c);
+                previous = digit;
+            } else if (digit > 0 && digit != previous) {
+                code[length++] = (char) ('0' + digit);
+                previous = digit;
+            } else if (digit == 0) {
+                previous = 0;
+            }
+        }
+        if (length == 0) {
+            return null;
+        }
+        while (length < 4) {
+            code[length++] = '0';
+        }
+        return new String(code);
+    }
+
+    // Jaro-Winkler similarity in [0, 1]; 1 for equal strings
+    static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1.0;
+        }
+        int aLength = Math.min(a.length(), MAX_COMPARED_LENGTH);
+        int bLength = Math.min(b.length(), MAX_COMPARED_LENGTH);
+        if (aLength == 0 || bLength == 0) {
+            return 0.0;
+        }
+        int window = Math.max(0, Math.max(aLength, bLength) / 2 - 1);
+        long aMatched = 0;
+        long bMatched = 0;
+        int matches = 0;
+        for (int i = 0; i < aLength; i++) {
+            char c = a.charAt(i);
+            int to = Math.min(bLength, i + window + 1);
+            for (int j = Math.max(0, i - window); j < to; j++) {
+                if ((bMatched & 1L << j) == 0 && b.charAt(j) == c) {
+                    aMatched |= 1L << i;
+                    bMatched |= 1L << j;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+        // Count matched characters that appear in a different order
+        int halfTranspositions = 0;
+        long bRemaining = bMatched;
+        for (int i = 0; i < aLength; i++) {
+            if ((aMatched & 1L << i) != 0) {
+                int j = Long.numberOfTrailingZeros(bRemaining);
+                bRemaining &= bRemaining - 1;
+                if (a.charAt(i) != b.charAt(j)) {
+                    halfTranspositions++;
+                }
+            }
+        }
+        double m = matches;
+        double jaro = (m / aLength + m / bLength + (m - halfTranspositions / 2) / m) / 3.0;
+        if (jaro < WINKLER_THRESHOLD) {
+            return jaro;
+        }
+
+        int prefix = 0;
+        int maxPrefix = Math.min(WINKLER_PREFIX, Math.min(aLength, bLength));
+        while (prefix < maxPrefix && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * WINKLER_SCALE * (1.0 - jaro);
+    }
+}
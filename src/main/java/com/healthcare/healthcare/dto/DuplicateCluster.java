@@ -0,0 +1,20 @@
+package com.healthcare.healthcare.dto;
+
+import java.util.List;
+
+/**
+ * Patients suspected to be registered more than once. {@code matches} are the
+ * scored pairs that linked them, best first; {@code score} is the best pair
+ * score. A cluster can hold patients that were never compared directly but
+ * are linked through a third registration.
+ */
+public record DuplicateCluster(double score, List<PatientSummary> patients, List<Match> matches) {
+
+    /**
+     * Two patients scoring at least the match threshold. {@code matchedOn}
+     * names the blocking key they shared: identificationNumber, phoneNumber
+     * or surnameAndBirthYear.
+     */
+    public record Match(String patientId, String otherPatientId, double score, String matchedOn) {
+    }
+}
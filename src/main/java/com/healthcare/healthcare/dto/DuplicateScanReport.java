@@ -0,0 +1,18 @@
+package com.healthcare.healthcare.dto;
+
+/**
+ * Outcome of one duplicate-detection run: how many patients were read, how
+ * many blocks were compared (and how many were skipped for exceeding
+ * {@code healthcare.duplicates.max-block-size}), how many pairs were scored
+ * and how many clusters were found.
+ */
+public record DuplicateScanReport(
+        String startedAt,
+        long patients,
+        long blocks,
+        long oversizedBlocks,
+        long comparisons,
+        long matches,
+        long clusters,
+        long durationMs) {
+}
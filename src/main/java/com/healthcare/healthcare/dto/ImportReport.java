@@ -0,0 +1,17 @@
+package com.healthcare.healthcare.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Rows are numbered from 1 in input order (the CSV
+ * header is not counted). {@code complete} is false when the input could not
+ * be read to the end; rows before the failure have already been imported.
+ * At most {@code MAX_ERRORS} errors are listed, {@code rejected} counts all.
+ */
+public record ImportReport(long rowsRead, long imported, long rejected, boolean complete, List<RowError> errors) {
+
+    public static final int MAX_ERRORS = 1000;
+
+    public record RowError(long row, String patientId, String message) {
+    }
+}
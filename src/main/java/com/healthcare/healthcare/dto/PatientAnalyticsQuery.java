@@ -0,0 +1,23 @@
+package com.healthcare.healthcare.dto;
+
+/**
+ * Filters for {@code GET /api/v1/patients/analytics/count}, bound from
+ * request parameters. Each dimension takes a comma-separated list of values,
+ * matched ignoring case, and {@code unknown} matches patients with no value.
+ * {@code status} defaults to active patients, and {@code all} widens it.
+ * {@code minAge} and {@code maxAge} bound the age in whole years.
+ * {@code groupBy} names a dimension to break the count down by.
+ */
+public record PatientAnalyticsQuery(
+        String gender,
+        String bloodGroup,
+        String city,
+        String state,
+        String country,
+        String maritalStatus,
+        String status,
+        String insuranceProvider,
+        Integer minAge,
+        Integer maxAge,
+        String groupBy) {
+}
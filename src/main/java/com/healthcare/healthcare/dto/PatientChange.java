@@ -0,0 +1,10 @@
+package com.healthcare.healthcare.dto;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+// One entry of the patient change log; patient is the patient's JSON after the change, embedded as is
+public record PatientChange(long offset, String type, String patientId, Instant occurredAt,
+        @JsonRawValue String patient) {
+}
@@ -0,0 +1,25 @@
+package com.healthcare.healthcare.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Version of the patients table as a whole, for list ETags, read from
+ * indexes in one query. Creating a patient raises the highest id, updating
+ * one raises the latest update time and deleting or archiving one lowers the
+ * count, so a write normally changes the ETag as soon as it commits.
+ *
+ * <p>Update times are taken before commit, so a transaction that commits
+ * after a later-stamped one leaves the maximum unchanged. The change-log
+ * offset is part of the ETag for that case: every committed change advances
+ * it once relayed, so no change stays hidden behind an old ETag. There is no
+ * collection Last-Modified, since a deletion leaves no later timestamp behind.
+ */
+public record PatientCollectionVersion(Long count, Long maxId, LocalDateTime maxUpdatedAt) {
+
+    public String etag(long changeOffset) {
+        long updatedMicros = maxUpdatedAt == null ? 0
+                : maxUpdatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + maxUpdatedAt.getNano() / 1_000;
+        return "patients." + count + "." + (maxId == null ? 0 : maxId) + "." + updatedMicros + "." + changeOffset;
+    }
+}
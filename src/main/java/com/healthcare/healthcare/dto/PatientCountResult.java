@@ -0,0 +1,13 @@
+package com.healthcare.healthcare.dto;
+
+import java.util.Map;
+
+/**
+ * Number of patients matching a {@link PatientAnalyticsQuery}. When the query
+ * has a {@code groupBy}, {@code groups} breaks the count down by that
+ * dimension, most frequent values first. {@code rows} is the number of
+ * patients in the columnar store. {@code builtAt} is when the store was last
+ * loaded from the table.
+ */
+public record PatientCountResult(long count, Map<String, Long> groups, long rows, String builtAt) {
+}
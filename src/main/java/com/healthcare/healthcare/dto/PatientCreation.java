@@ -0,0 +1,7 @@
+package com.healthcare.healthcare.dto;
+
+import com.healthcare.healthcare.entity.Patient;
+
+// A created patient, or the one an earlier request with the same idempotency key created
+public record PatientCreation(Patient patient, boolean replayed) {
+}
@@ -0,0 +1,10 @@
+package com.healthcare.healthcare.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of patients plus the opaque cursor for the following page.
+ * {@code nextCursor} is {@code null} once the last page has been reached.
+ */
+public record PatientPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,21 @@
+package com.healthcare.healthcare.dto;
+
+/**
+ * Criteria for {@code GET /api/v1/patients/query}, bound from request
+ * parameters. Every field is optional: {@code text} is matched against name,
+ * email, phone and address, the others are exact filters, and {@code minAge}
+ * and {@code maxAge} bound the age in whole years. {@code status} defaults to
+ * active patients; {@code all} or a comma-separated list widens it.
+ */
+public record PatientQuery(
+        String text,
+        String city,
+        String state,
+        String gender,
+        String bloodGroup,
+        String status,
+        Integer minAge,
+        Integer maxAge,
+        Integer page,
+        Integer size) {
+}
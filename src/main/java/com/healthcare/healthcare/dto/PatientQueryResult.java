@@ -0,0 +1,16 @@
+package com.healthcare.healthcare.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of ranked query results, the total number of matches, and facet
+ * counts over all matches: dimension (city, state, gender, bloodGroup,
+ * status) to value to count, most frequent values first.
+ */
+public record PatientQueryResult<T>(
+        List<T> items,
+        long total,
+        boolean hasNext,
+        Map<String, Map<String, Long>> facets) {
+}
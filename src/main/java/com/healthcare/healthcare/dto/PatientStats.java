@@ -0,0 +1,12 @@
+package com.healthcare.healthcare.dto;
+
+import java.util.Map;
+
+/**
+ * Patient counts per dimension (gender, bloodGroup, city, state, status,
+ * insuranceProvider, ageBand), most frequent values first except age bands,
+ * which are in age order. {@code builtAt} is when the counters were last
+ * rebuilt from the table; changes since then are applied incrementally.
+ */
+public record PatientStats(long total, Map<String, Map<String, Long>> counts, String builtAt) {
+}
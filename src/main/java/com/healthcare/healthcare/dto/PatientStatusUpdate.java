@@ -0,0 +1,7 @@
+package com.healthcare.healthcare.dto;
+
+import com.healthcare.healthcare.entity.Patient;
+
+// Request body of PATCH /api/v1/patients/{patientId}/status
+public record PatientStatusUpdate(Patient.PatientStatus status) {
+}
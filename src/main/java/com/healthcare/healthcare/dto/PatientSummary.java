@@ -0,0 +1,24 @@
+package com.healthcare.healthcare.dto;
+
+import java.time.LocalDate;
+
+import com.healthcare.healthcare.entity.Patient;
+
+/**
+ * List and search row for a patient. Spring Data selects only these columns
+ * when it is used as a projection type, so list endpoints neither hydrate
+ * nor serialize the full entity.
+ */
+public record PatientSummary(
+        Long id,
+        String patientId,
+        String firstName,
+        String lastName,
+        LocalDate dateOfBirth,
+        Patient.PatientStatus status) {
+
+    public static PatientSummary from(Patient patient) {
+        return new PatientSummary(patient.getId(), patient.getPatientId(), patient.getFirstName(),
+                patient.getLastName(), patient.getDateOfBirth(), patient.getStatus());
+    }
+}
@@ -0,0 +1,31 @@
+package com.healthcare.healthcare.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import com.healthcare.healthcare.entity.Patient;
+
+/**
+ * Version of one stored patient, readable without loading the entity. The
+ * strong ETag pairs the surrogate id with the row version Hibernate increments
+ * on every update, so it changes whenever the stored patient does and never
+ * repeats for a patient re-created under the same patient ID. Last-Modified is
+ * the last update, or the creation time for a patient never updated.
+ */
+public record PatientVersion(Long id, Long version, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+    public static PatientVersion of(Patient patient) {
+        return new PatientVersion(patient.getId(), patient.getVersion(), patient.getCreatedAt(),
+                patient.getUpdatedAt());
+    }
+
+    public String etag() {
+        return id + "." + version;
+    }
+
+    // Epoch milliseconds, or -1 when unknown
+    public long lastModified() {
+        LocalDateTime at = updatedAt != null ? updatedAt : createdAt;
+        return at == null ? -1 : at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
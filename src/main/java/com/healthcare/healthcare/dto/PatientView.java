@@ -0,0 +1,36 @@
+package com.healthcare.healthcare.dto;
+
+import java.util.Locale;
+
+import com.healthcare.healthcare.entity.Patient;
+
+/**
+ * Shape of the rows returned by list and search endpoints, chosen with the
+ * {@code fields} request parameter: {@code summary} (default) or {@code full}.
+ */
+public enum PatientView {
+
+    SUMMARY(PatientSummary.class),
+    FULL(Patient.class);
+
+    private final Class<?> type;
+
+    PatientView(Class<?> type) {
+        this.type = type;
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    public static PatientView fromFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return SUMMARY;
+        }
+        try {
+            return valueOf(fields.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown fields value: " + fields + " (expected summary or full)");
+        }
+    }
+}
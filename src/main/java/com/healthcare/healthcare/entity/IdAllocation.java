@@ -0,0 +1,26 @@
+package com.healthcare.healthcare.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A named counter: the high-water mark of a block-allocated id space (see PatientIdAllocator) or the DatabaseEpoch
+@Entity
+@Table(name = "id_allocations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdAllocation {
+
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+
+    // First value not yet handed out to any allocator
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
@@ -0,0 +1,37 @@
+package com.healthcare.healthcare.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of a create request sent with an Idempotency-Key header, kept so retries can be replayed
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String key;
+
+    // SHA-256 of the request body; a retry must send the same body
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "patient_id", nullable = false, length = 20)
+    private String patientId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -3,76 +3,133 @@ package com.healthcare.healthcare.entity;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.healthcare.healthcare.metrics.EntityLoadListener;
+
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+        // Lookup keys are matched through their normalized forms
+        @Index(name = "idx_patients_email_normalized", columnList = "email_normalized"),
+        @Index(name = "idx_patients_phone_digits", columnList = "phone_digits"),
+        @Index(name = "idx_patients_identification_number", columnList = "identification_number"),
+        @Index(name = "idx_patients_gender", columnList = "gender"),
+        // List endpoints filter on status first (ACTIVE by default), so those indexes lead with it
+        @Index(name = "idx_patients_status_id", columnList = "status, id"),
+        @Index(name = "idx_patients_status_city", columnList = "status, city, id"),
+        @Index(name = "idx_patients_status_blood_group", columnList = "status, blood_group, id"),
+        // Age searches are translated into date-of-birth ranges
+        @Index(name = "idx_patients_status_date_of_birth", columnList = "status, date_of_birth"),
+        // Collection ETags read MAX(updated_at)
+        @Index(name = "idx_patients_updated_at", columnList = "updated_at")
+})
+@EntityListeners(EntityLoadListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Patient {
 
+    // Pooled sequence ids keep JDBC insert batching on (IDENTITY disables it)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patients_seq")
+    @SequenceGenerator(name = "patients_seq", sequenceName = "patients_seq", allocationSize = 100)
     private Long id;
 
+    @Size(max = 20)
     @Column(name = "patient_id", unique = true, nullable = false, length = 20)
     private String patientId;
 
+    @NotBlank
+    @Size(max = 50)
     @Column(name = "first_name", nullable = false, length = 50)
     private String firstName;
 
+    @NotBlank
+    @Size(max = 50)
     @Column(name = "last_name", nullable = false, length = 50)
     private String lastName;
 
+    @NotNull
+    @PastOrPresent
     @Column(name = "date_of_birth", nullable = false)
     private LocalDate dateOfBirth;
 
+    @NotNull
     @Enumerated(EnumType.STRING)
     @Column(name = "gender", nullable = false)
     private Gender gender;
 
+    @Size(max = 15)
     @Column(name = "phone_number", length = 15)
     private String phoneNumber;
 
+    @Email
+    @Size(max = 100)
     @Column(name = "email", length = 100)
     private String email;
 
+    // Derived from phoneNumber and email on every write; see PatientKeys
+    @JsonIgnore
+    @Column(name = "phone_digits", length = 15)
+    private String phoneDigits;
+
+    @JsonIgnore
+    @Column(name = "email_normalized", length = 100)
+    private String emailNormalized;
+
+    @Size(max = 500)
     @Column(name = "address", length = 500)
     private String address;
 
+    @Size(max = 50)
     @Column(name = "city", length = 50)
     private String city;
 
+    @Size(max = 50)
     @Column(name = "state", length = 50)
     private String state;
 
+    @Size(max = 10)
     @Column(name = "zip_code", length = 10)
     private String zipCode;
 
+    @Size(max = 50)
     @Column(name = "country", length = 50)
     private String country;
 
+    @Size(max = 5)
     @Column(name = "blood_group", length = 5)
     private String bloodGroup;
 
+    @Size(max = 100)
     @Column(name = "emergency_contact_name", length = 100)
     private String emergencyContactName;
 
+    @Size(max = 15)
     @Column(name = "emergency_contact_phone", length = 15)
     private String emergencyContactPhone;
 
+    @Size(max = 50)
     @Column(name = "emergency_contact_relation", length = 50)
     private String emergencyContactRelation;
 
+    @Size(max = 50)
     @Column(name = "insurance_number", length = 50)
     private String insuranceNumber;
 
+    @Size(max = 100)
     @Column(name = "insurance_provider", length = 100)
     private String insuranceProvider;
 
@@ -80,15 +137,19 @@ public class Patient {
     @Column(name = "marital_status")
     private MaritalStatus maritalStatus;
 
+    @Size(max = 100)
     @Column(name = "occupation", length = 100)
     private String occupation;
 
+    @Size(max = 50)
     @Column(name = "nationality", length = 50)
     private String nationality;
 
+    @Size(max = 20)
     @Column(name = "identification_type", length = 20)
     private String identificationType;
 
+    @Size(max = 50)
     @Column(name = "identification_number", length = 50)
     private String identificationNumber;
 
@@ -98,8 +159,9 @@ public class Patient {
     @Column(name = "last_visit_date")
     private LocalDateTime lastVisitDate;
 
-    @Enumerated
-    @Column(name = "status", nullable = false)
+    // Stored by name so reordering the enum cannot change stored values (see db/manual/5-patient-status-by-name.sql)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
     private PatientStatus status;
 
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -108,16 +170,32 @@ public class Patient {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Incremented by Hibernate on every update; the patient's ETag is derived from it (see PatientVersion)
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         registrationDate = LocalDateTime.now();
-        status = PatientStatus.ACTIVE;
+        // Imports may bring historical patients with their status; new registrations are active
+        if (status == null) {
+            status = PatientStatus.ACTIVE;
+        }
+        normalizeLookupKeys();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        normalizeLookupKeys();
+    }
+
+    private void normalizeLookupKeys() {
+        phoneDigits = PatientKeys.normalizePhone(phoneNumber);
+        emailNormalized = PatientKeys.normalizeEmail(email);
     }
 
     // Enums
@@ -0,0 +1,39 @@
+package com.healthcare.healthcare.entity;
+
+import java.util.Locale;
+
+/**
+ * Canonical forms of the patient contact keys. Lookups compare these forms
+ * against the indexed {@code email_normalized} and {@code phone_digits}
+ * columns, so "(555) 010-1234" and "555.010.1234" find the same patient and
+ * the predicate stays a plain equality that can use the index.
+ */
+public final class PatientKeys {
+
+    private PatientKeys() {
+    }
+
+    // Trimmed and lower-cased, or null when blank
+    public static String normalizeEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String trimmed = email.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    // Digits only, or null when there are none
+    public static String normalizePhone(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.length() == 0 ? null : digits.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package com.healthcare.healthcare.entity;
+
+import java.time.Instant;
+
+import com.healthcare.healthcare.event.PatientChangedEvent.ChangeType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A patient change written in the same transaction as the change itself, waiting to be copied to the change log
+@Entity
+@Table(name = "patient_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_outbox_seq")
+    @SequenceGenerator(name = "patient_outbox_seq", sequenceName = "patient_outbox_seq", allocationSize = 100)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 20)
+    private ChangeType type;
+
+    @Column(name = "patient_id", nullable = false, length = 20)
+    private String patientId;
+
+    // The patient as JSON after the change
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+}
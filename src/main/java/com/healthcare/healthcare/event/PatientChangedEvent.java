@@ -0,0 +1,28 @@
+package com.healthcare.healthcare.event;
+
+import com.healthcare.healthcare.entity.Patient;
+
+/**
+ * Published by {@code PatientService} whenever a patient row is written.
+ * In-memory read models (search indexes, caches, counters) listen for it
+ * after commit instead of being wired into the service one by one.
+ *
+ * <p>{@code previous} is a detached copy of the row as it was before an
+ * update, so listeners can retract what they derived from the old values;
+ * it is {@code null} for creations. {@code STATUS_CHANGED} is an update that
+ * touched only the patient's status; {@code ARCHIVED} means the row moved to
+ * the archive table and read models should drop it.
+ */
+public record PatientChangedEvent(ChangeType type, Patient patient, Patient previous) {
+
+    public PatientChangedEvent(ChangeType type, Patient patient) {
+        this(type, patient, null);
+    }
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        ARCHIVED
+    }
+}
@@ -0,0 +1,10 @@
+package com.healthcare.healthcare.event;
+
+/**
+ * Published by {@code PatientDataSeeder} when background seeding has
+ * finished. Seeded rows are written with {@code saveAll} and raise no
+ * {@link PatientChangedEvent}s, so read models that were built while seeding
+ * was still running rebuild from the table when they receive this.
+ */
+public record PatientsSeededEvent(long count) {
+}
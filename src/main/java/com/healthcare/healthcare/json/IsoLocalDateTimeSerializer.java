@@ -0,0 +1,67 @@
+package com.healthcare.healthcare.json;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a {@link LocalDateTime} as ISO-8601 text, exactly as
+ * {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} would (seconds always present,
+ * fraction trimmed of trailing zeros), but straight into a char buffer instead
+ * of going through the formatter's parse-position and StringBuilder machinery.
+ * Every patient carries two or three of these, so this is a large share of the
+ * per-response allocation.
+ */
+public class IsoLocalDateTimeSerializer extends StdSerializer<LocalDateTime> {
+
+    // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+    private static final int MAX_LENGTH = 29;
+
+    public IsoLocalDateTimeSerializer() {
+        super(LocalDateTime.class);
+    }
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            // Signed and five-digit years are rare enough to leave to the formatter
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+            return;
+        }
+        char[] buf = new char[MAX_LENGTH];
+        digits(buf, 0, year, 4);
+        buf[4] = '-';
+        digits(buf, 5, value.getMonthValue(), 2);
+        buf[7] = '-';
+        digits(buf, 8, value.getDayOfMonth(), 2);
+        buf[10] = 'T';
+        digits(buf, 11, value.getHour(), 2);
+        buf[13] = ':';
+        digits(buf, 14, value.getMinute(), 2);
+        buf[16] = ':';
+        digits(buf, 17, value.getSecond(), 2);
+        int length = 19;
+        int nano = value.getNano();
+        if (nano != 0) {
+            buf[19] = '.';
+            digits(buf, 20, nano, 9);
+            length = MAX_LENGTH;
+            while (buf[length - 1] == '0') {
+                length--;
+            }
+        }
+        gen.writeString(buf, 0, length);
+    }
+
+    private static void digits(char[] buf, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
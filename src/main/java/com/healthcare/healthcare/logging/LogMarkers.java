@@ -0,0 +1,30 @@
+package com.healthcare.healthcare.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Markers understood by the logging pipeline in {@code logback-spring.xml}.
+ *
+ * <ul>
+ * <li>{@link #REQUEST}: one-per-request log lines; rate limited by
+ * {@link RequestLogRateLimiter} before the event is even created.</li>
+ * <li>{@link #PHI}: every string argument is patient data and is masked by
+ * {@link PhiMaskingMessageConverter} when the event is rendered.</li>
+ * <li>{@link #REQUEST_PHI}: both.</li>
+ * </ul>
+ */
+public final class LogMarkers {
+
+    public static final Marker REQUEST = MarkerFactory.getMarker("REQUEST");
+    public static final Marker PHI = MarkerFactory.getMarker("PHI");
+    public static final Marker REQUEST_PHI = MarkerFactory.getMarker("REQUEST_PHI");
+
+    static {
+        REQUEST_PHI.add(REQUEST);
+        REQUEST_PHI.add(PHI);
+    }
+
+    private LogMarkers() {
+    }
+}
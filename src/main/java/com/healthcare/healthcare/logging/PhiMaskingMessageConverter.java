@@ -0,0 +1,56 @@
+package com.healthcare.healthcare.logging;
+
+import java.util.List;
+
+import org.slf4j.Marker;
+import org.slf4j.helpers.MessageFormatter;
+
+import ch.qos.logback.classic.pattern.MessageConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Renders the log message with the arguments of {@link LogMarkers#PHI} events
+ * masked: every string argument keeps its first character and the rest becomes
+ * {@code ***}; numbers, enums and other non-string arguments are printed as
+ * they are. Registered for {@code %m}, {@code %msg} and {@code %message} in
+ * {@code logback-spring.xml}, so every pattern masks without changes.
+ *
+ * <p>Call sites pass the raw values with a marker and never build masked
+ * copies; masking only happens for events that are actually written.
+ */
+public class PhiMaskingMessageConverter extends MessageConverter {
+
+    static final String MASK = "***";
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        Object[] args = event.getArgumentArray();
+        if (args == null || args.length == 0 || !hasPhiMarker(event.getMarkerList())) {
+            return super.convert(event);
+        }
+        Object[] masked = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            masked[i] = args[i] instanceof CharSequence value ? mask(value) : args[i];
+        }
+        return MessageFormatter.basicArrayFormat(event.getMessage(), masked);
+    }
+
+    static String mask(CharSequence value) {
+        if (value.isEmpty()) {
+            return "";
+        }
+        return new StringBuilder(1 + MASK.length()).append(value.charAt(0)).append(MASK).toString();
+    }
+
+    private static boolean hasPhiMarker(List<Marker> markers) {
+        if (markers == null) {
+            return false;
+        }
+        for (Marker marker : markers) {
+            if (marker.contains(LogMarkers.PHI)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
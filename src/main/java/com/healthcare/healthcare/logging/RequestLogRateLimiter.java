@@ -0,0 +1,63 @@
+package com.healthcare.healthcare.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Lets at most {@code permitsPerSecond} {@link LogMarkers#REQUEST} events
+ * through per second and denies the rest. Turbo filters run before Logback
+ * builds the event, so a denied request log costs no allocation, formatting
+ * or queueing. Warnings and errors are never limited.
+ *
+ * <p>The current one-second window and the number of events let through in
+ * it are packed into a single {@link AtomicLong} (window in the high bits,
+ * count in the low 20), so admission is one CAS and no lock.
+ */
+public class RequestLogRateLimiter extends TurboFilter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLong state = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private int permitsPerSecond = 50;
+
+    public void setPermitsPerSecond(int permitsPerSecond) {
+        this.permitsPerSecond = (int) Math.min(Math.max(permitsPerSecond, 0), COUNT_MASK);
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+            Throwable t) {
+        if (marker == null || !marker.contains(LogMarkers.REQUEST) || level.isGreaterOrEqual(Level.WARN)
+                || !logger.isEnabledFor(level)) {
+            return FilterReply.NEUTRAL;
+        }
+        return tryAcquire(System.currentTimeMillis() / 1000) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    boolean tryAcquire(long second) {
+        while (true) {
+            long current = state.get();
+            long window = current >>> COUNT_BITS;
+            long count = window == second ? current & COUNT_MASK : 0;
+            if (count >= permitsPerSecond) {
+                suppressed.incrementAndGet();
+                return false;
+            }
+            if (state.compareAndSet(current, (second << COUNT_BITS) | (count + 1))) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.healthcare.healthcare.metrics;
+
+import jakarta.persistence.PostLoad;
+
+/**
+ * JPA entity listener that counts hydrated entities against the current
+ * request; registered on entities with {@code @EntityListeners}.
+ */
+public class EntityLoadListener {
+
+    @PostLoad
+    public void onPostLoad(Object entity) {
+        RequestQueryStats.rowLoaded();
+    }
+}
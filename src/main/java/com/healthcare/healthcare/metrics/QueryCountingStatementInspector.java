@@ -0,0 +1,15 @@
+package com.healthcare.healthcare.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every SQL statement Hibernate prepares against the current request.
+ */
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestQueryStats.statementPrepared();
+        return sql;
+    }
+}
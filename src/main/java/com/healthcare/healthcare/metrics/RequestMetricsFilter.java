@@ -0,0 +1,77 @@
+package com.healthcare.healthcare.metrics;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records how many SQL statements and entity rows each API request caused, as
+ * {@code patients.request.statements} and {@code patients.request.rows}
+ * summaries tagged with the matched URI pattern. Requests that issue more
+ * statements than {@code healthcare.metrics.statement-warn-threshold} are
+ * logged, which is usually an N+1 access pattern.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${healthcare.metrics.statement-warn-threshold:20}")
+    private int statementWarnThreshold;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestQueryStats stats = RequestQueryStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.end();
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestQueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("patients.request.statements")
+                .description("SQL statements issued per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("patients.request.rows")
+                .description("Entities loaded per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(stats.getRowsLoaded());
+
+        if (stats.getStatements() > statementWarnThreshold) {
+            log.warn("{} {} issued {} SQL statements (threshold {}); possible N+1 access",
+                    request.getMethod(), uri, stats.getStatements(), statementWarnThreshold);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.healthcare.healthcare.metrics;
+
+/**
+ * Per-request JPA counters, bound to the request thread by
+ * {@link RequestMetricsFilter}. Statements and entity loads that happen on
+ * other threads (async streaming, background jobs) are not attributed to any
+ * request and are ignored.
+ */
+public final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rowsLoaded;
+
+    private RequestQueryStats() {
+    }
+
+    static RequestQueryStats begin() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static void statementPrepared() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    static void rowLoaded() {
+        RequestQueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.rowsLoaded++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded;
+    }
+}
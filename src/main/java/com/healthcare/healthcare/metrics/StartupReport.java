@@ -0,0 +1,132 @@
+package com.healthcare.healthcare.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.support.ServletRequestHandledEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Startup timings for spotting regressions between releases. Once the
+ * application is ready this logs the time since JVM start and the beans whose
+ * own initialization (excluding the dependencies they pulled in) took
+ * longest; the first handled request logs the time-to-first-request, which
+ * also covers beans that lazy initialization deferred. That time is published
+ * as {@code application.first.request.time} next to Spring Boot's
+ * {@code application.started.time} and {@code application.ready.time}.
+ *
+ * <p>Bean timings need the {@link BufferingApplicationStartup} installed by
+ * {@code HealthcareApplication}; its full timeline is served at
+ * {@code /actuator/startup}. Contexts started another way (tests) report
+ * times only.
+ */
+@Component
+@Slf4j
+public class StartupReport {
+
+    static final String INSTANTIATE_STEP = "spring.beans.instantiate";
+
+    private final ApplicationStartup applicationStartup;
+    private final MeterRegistry meterRegistry;
+    private final int slowestBeans;
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    public StartupReport(ApplicationStartup applicationStartup, MeterRegistry meterRegistry,
+            @Value("${healthcare.startup.report-beans:10}") int slowestBeans) {
+        this.applicationStartup = applicationStartup;
+        this.meterRegistry = meterRegistry;
+        this.slowestBeans = slowestBeans;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady(ApplicationReadyEvent event) {
+        long sinceJvmStart = ManagementFactory.getRuntimeMXBean().getUptime();
+        Duration timeTaken = event.getTimeTaken();
+        if (!(applicationStartup instanceof BufferingApplicationStartup buffering)) {
+            log.info("Application ready {} ms after JVM start ({} ms in Spring)",
+                    sinceJvmStart, timeTaken == null ? "?" : timeTaken.toMillis());
+            return;
+        }
+        List<BeanInitCost> costs = slowestBeans(buffering.getBufferedTimeline().getEvents(), slowestBeans);
+        log.info("Application ready {} ms after JVM start ({} ms in Spring); slowest beans: {}",
+                sinceJvmStart, timeTaken == null ? "?" : timeTaken.toMillis(),
+                costs.stream().map(BeanInitCost::toString).collect(Collectors.joining(", ")));
+    }
+
+    // Published by the DispatcherServlet after every request; only the first one is reported
+    @EventListener
+    public void onRequestHandled(ServletRequestHandledEvent event) {
+        if (firstRequestSeen.get() || !firstRequestSeen.compareAndSet(false, true)) {
+            return;
+        }
+        long sinceJvmStart = ManagementFactory.getRuntimeMXBean().getUptime();
+        TimeGauge.builder("application.first.request.time", () -> sinceJvmStart, TimeUnit.MILLISECONDS)
+                .description("Time from JVM start until the first request was handled")
+                .register(meterRegistry);
+        log.info("First request ({} {}) handled {} ms after JVM start, taking {} ms",
+                event.getMethod(), event.getRequestUrl(), sinceJvmStart, event.getProcessingTimeMillis());
+    }
+
+    // Beans by the time spent creating them, minus the time spent creating beans they depend on
+    static List<BeanInitCost> slowestBeans(List<StartupTimeline.TimelineEvent> events, int limit) {
+        Map<Long, StartupTimeline.TimelineEvent> instantiations = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : events) {
+            if (INSTANTIATE_STEP.equals(event.getStartupStep().getName())) {
+                instantiations.put(event.getStartupStep().getId(), event);
+            }
+        }
+        Map<Long, Long> nestedNanos = new HashMap<>();
+        for (StartupTimeline.TimelineEvent event : instantiations.values()) {
+            Long parentId = event.getStartupStep().getParentId();
+            if (parentId != null && instantiations.containsKey(parentId)) {
+                nestedNanos.merge(parentId, event.getDuration().toNanos(), Long::sum);
+            }
+        }
+        List<BeanInitCost> costs = new ArrayList<>(instantiations.size());
+        for (StartupTimeline.TimelineEvent event : instantiations.values()) {
+            long selfNanos = event.getDuration().toNanos()
+                    - nestedNanos.getOrDefault(event.getStartupStep().getId(), 0L);
+            costs.add(new BeanInitCost(beanName(event.getStartupStep()), Duration.ofNanos(Math.max(0, selfNanos)),
+                    event.getDuration()));
+        }
+        costs.sort(Comparator.comparing(BeanInitCost::self).reversed());
+        return costs.subList(0, Math.min(limit, costs.size()));
+    }
+
+    private static String beanName(StartupStep step) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+
+    // Time spent in the bean itself, and including the dependencies it created
+    record BeanInitCost(String beanName, Duration self, Duration total) {
+
+        @Override
+        public String toString() {
+            return beanName + " " + self.toMillis() + " ms (" + total.toMillis() + " ms with dependencies)";
+        }
+    }
+}
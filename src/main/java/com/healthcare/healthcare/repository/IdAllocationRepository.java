@@ -0,0 +1,26 @@
+package com.healthcare.healthcare.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.healthcare.healthcare.entity.IdAllocation;
+
+@Repository
+public interface IdAllocationRepository extends JpaRepository<IdAllocation, String> {
+
+    // Moves the high-water mark; the row lock is held until commit, so concurrent reservations queue here
+    @Modifying
+    @Query("UPDATE IdAllocation a SET a.nextValue = a.nextValue + :size WHERE a.name = :name")
+    int advance(@Param("name") String name, @Param("size") long size);
+
+    // Plain INSERT so a row created concurrently is never overwritten (save would merge)
+    @Modifying
+    @Query(value = "INSERT INTO id_allocations (name, next_value) VALUES (:name, :nextValue)", nativeQuery = true)
+    void create(@Param("name") String name, @Param("nextValue") long nextValue);
+
+    @Query("SELECT a.nextValue FROM IdAllocation a WHERE a.name = :name")
+    long findNextValue(@Param("name") String name);
+}
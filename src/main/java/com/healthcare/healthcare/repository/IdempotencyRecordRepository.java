@@ -0,0 +1,26 @@
+package com.healthcare.healthcare.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.healthcare.healthcare.entity.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Plain INSERT: a concurrent request with the same key fails on the primary key instead of being merged over
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, patient_id, created_at) "
+            + "VALUES (:key, :requestHash, :patientId, :createdAt)", nativeQuery = true)
+    void create(@Param("key") String key, @Param("requestHash") String requestHash,
+            @Param("patientId") String patientId, @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
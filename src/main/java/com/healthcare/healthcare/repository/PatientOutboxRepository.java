@@ -0,0 +1,15 @@
+package com.healthcare.healthcare.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.healthcare.healthcare.entity.PatientOutboxEvent;
+
+@Repository
+public interface PatientOutboxRepository extends JpaRepository<PatientOutboxEvent, Long> {
+
+    List<PatientOutboxEvent> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+}
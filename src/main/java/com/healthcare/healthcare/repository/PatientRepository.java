@@ -1,13 +1,26 @@
 package com.healthcare.healthcare.repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.healthcare.healthcare.dto.PatientCollectionVersion;
+import com.healthcare.healthcare.dto.PatientVersion;
 import com.healthcare.healthcare.entity.Patient;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
 
@@ -17,39 +30,97 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     // Check if patient Id exists
     boolean existsByPatientId(String patientId);
 
-    // Find by email
-    Optional<Patient> findByEmail(String email);
+    // Nine-character patient IDs from P00000000 up to (excluding) before, highest first; generated-style IDs are
+    // among them, used once to start the allocator above existing data
+    @Query("SELECT p.patientId FROM Patient p WHERE LENGTH(p.patientId) = 9 AND p.patientId >= 'P00000000' "
+            + "AND p.patientId < :before ORDER BY p.patientId DESC")
+    List<String> findPrefixedPatientIdsBefore(@Param("before") String before, Limit limit);
+
+    // Find by email (pass PatientKeys.normalizeEmail form)
+    Optional<Patient> findFirstByEmailNormalizedOrderByIdAsc(String emailNormalized);
 
-    // Find by phone number
-    Optional<Patient> findByPhoneNumber(String phoneNumber);
+    // Find by phone number (pass PatientKeys.normalizePhone form)
+    Optional<Patient> findFirstByPhoneDigitsOrderByIdAsc(String phoneDigits);
 
     // Find by identification number
-    Optional<Patient> findByIdentificationNumber(String identificationNumber);
+    Optional<Patient> findFirstByIdentificationNumberOrderByIdAsc(String identificationNumber);
 
     // Find patients by name (case-insensitive)
     List<Patient> findAll();
 
+    // Keyset page: next rows after the given id, in id order, as entities or a projection
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit, Class<T> type);
+
+    // Keyset page restricted to some statuses (idx_patients_status_id)
+    <T> List<T> findByStatusInAndIdGreaterThanOrderByIdAsc(Collection<Patient.PatientStatus> statuses, Long id,
+            Limit limit, Class<T> type);
+
+    // Rows by surrogate id, as entities or a projection
+    <T> List<T> findByIdIn(Collection<Long> ids, Class<T> type);
+
+    // Rows in a surrogate id range, for scans split into chunks
+    <T> List<T> findByIdBetween(Long fromId, Long toId, Class<T> type);
+
+    // Row version and timestamps of one patient, for conditional requests
+    Optional<PatientVersion> findVersionByPatientId(String patientId);
+
+    // Row count, highest id and latest update, for collection ETags (idx_patients_updated_at)
+    @Query("SELECT new com.healthcare.healthcare.dto.PatientCollectionVersion(COUNT(*), MAX(p.id), MAX(p.updatedAt)) "
+            + "FROM Patient p")
+    PatientCollectionVersion findCollectionVersion();
+
+    // Highest surrogate id in use (0 when empty)
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Patient p")
+    long findMaxId();
+
+    // Which of the given business ids are already taken, for bulk import checks
+    @Query("SELECT p.patientId FROM Patient p WHERE p.patientId IN :patientIds")
+    List<String> findExistingPatientIds(@Param("patientIds") Collection<String> patientIds);
+
+    // Forward-only stream over the whole table; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Patient p ORDER BY p.id")
+    Stream<Patient> streamAll();
+
     // Find patients by name (case-insensitive)
     @Query("SELECT p FROM Patient p WHERE " +
             "LOWER(CONCAT(p.firstName, ' ', p.lastName)) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Patient> findByFullNameContaining(@Param("name") String name);
+    List<Patient> findByFullNameContaining(@Param("name") String name, Limit limit);
+
+    // Same, among patients with the given statuses
+    @Query("SELECT p FROM Patient p WHERE p.status IN :statuses AND " +
+            "LOWER(CONCAT(p.firstName, ' ', p.lastName)) LIKE LOWER(CONCAT('%', :name, '%'))")
+    List<Patient> findByFullNameContaining(@Param("name") String name,
+            @Param("statuses") Collection<Patient.PatientStatus> statuses, Limit limit);
+
+    // Names and statuses only, for building the in-memory name index
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id AS id, p.firstName AS firstName, p.lastName AS lastName, p.status AS status FROM Patient p")
+    Stream<NameView> streamNames();
 
     // Find patients by gender
     List<Patient> findByGender(Patient.Gender gender);
 
-    // Find patients by blood group
-    List<Patient> findByBloodGroup(String bloodGroup);
+    // Find patients by blood group among the given statuses
+    <T> List<T> findByStatusInAndBloodGroupOrderByIdAsc(Collection<Patient.PatientStatus> statuses,
+            String bloodGroup, Limit limit, Class<T> type);
 
-    // Find patients by city
-    List<Patient> findByCity(String city);
+    // Find patients by city among the given statuses
+    <T> List<T> findByStatusInAndCityOrderByIdAsc(Collection<Patient.PatientStatus> statuses, String city,
+            Limit limit, Class<T> type);
 
-    // Custom query to find patients by age range
-    @Query("SELECT p FROM Patient p WHERE YEAR(CURRENT_DATE) - YEAR(p.dateOfBirth) BETWEEN :minAge AND :maxAge")
-    List<Patient> findPatientsByAgeRange(@Param("minAge") int minAge, @Param("maxAge") int maxAge);
+    // Find patients born within a date range (age ranges are converted by PatientService)
+    <T> Slice<T> findByStatusInAndDateOfBirthBetween(Collection<Patient.PatientStatus> statuses, LocalDate from,
+            LocalDate to, Pageable pageable, Class<T> type);
 
-    // Custom query to find active patients only
-    // @Query("SELECT p FROM Patient p WHERE p.status = 'ACTIVE'")
-    // List<Patient> findActivePatients();
+    // Patients in the given statuses untouched since the cutoff, in id order, for archiving
+    @Query("SELECT p FROM Patient p WHERE p.status IN :statuses AND p.id > :afterId "
+            + "AND COALESCE(p.updatedAt, p.createdAt) < :cutoff ORDER BY p.id")
+    List<Patient> findArchivable(@Param("statuses") Collection<Patient.PatientStatus> statuses,
+            @Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Limit limit);
 
     // Custom query to find patients without insurance
     // @Query("SELECT p FROM Patient p WHERE p.insuranceNumber IS NULL OR
@@ -72,4 +143,14 @@ public interface PatientRepository extends JpaRepository<Patient, Long> {
     // MONTH(CURRENT_DATE) "
     // + "AND YEAR(p.registrationDate) = YEAR(CURRENT_DATE)")
     // List<Patient> findPatientsRegisteredThisMonth();
+
+    interface NameView {
+        Long getId();
+
+        String getFirstName();
+
+        String getLastName();
+
+        Patient.PatientStatus getStatus();
+    }
 }
@@ -0,0 +1,382 @@
+package com.healthcare.healthcare.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.event.PatientsSeededEvent;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory trigram index over patient first and last names.
+ *
+ * <p>Every live name is normalized to {@code "first last"} in lower case and
+ * assigned a dense document number. Each trigram of the name maps to an
+ * ascending posting list of document numbers, so a substring query is answered
+ * by intersecting the posting lists of its own trigrams and then verifying the
+ * few surviving candidates. Queries shorter than three characters cannot be
+ * split into trigrams and match word prefixes instead.
+ *
+ * <p>Updates replace the document: the old number is tombstoned and a new one
+ * is appended, which keeps posting lists sorted without re-sorting. Tombstones
+ * are dropped by {@link #compact()} once they make up a quarter of the index.
+ * Each document also carries the patient's status, so searches can skip
+ * inactive patients without loading them; a status change alone is applied
+ * in place.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PatientNameIndex {
+
+    private static final long PREFIX_KEY_FLAG = 1L << 62;
+    private static final int MAX_PREFIX_LENGTH = 2;
+
+    private final PatientRepository patientRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Document number -> patient id / normalized name (null once tombstoned) / status ordinal
+    private long[] patientIds = new long[1024];
+    private String[] names = new String[1024];
+    private byte[] statuses = new byte[1024];
+    private int docCount;
+    private int deletedCount;
+
+    private final Map<Long, Integer> docByPatientId = new HashMap<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByPatientId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Build the index from the table once the application is up, and again after background seeding
+    @EventListener({ ApplicationReadyEvent.class, PatientsSeededEvent.class })
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            clear();
+            try (Stream<PatientRepository.NameView> rows = patientRepository.streamNames()) {
+                rows.forEach(row -> addDocument(row.getId(), normalize(row.getFirstName(), row.getLastName()),
+                        statusOrdinal(row.getStatus())));
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Patient name index built with {} entries in {} ms",
+                docCount, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        Patient patient = event.patient();
+        if (event.type() == PatientChangedEvent.ChangeType.ARCHIVED) {
+            remove(patient.getId());
+        } else {
+            put(patient.getId(), patient.getFirstName(), patient.getLastName(), patient.getStatus());
+        }
+    }
+
+    // Insert or replace the indexed name of an active patient
+    public void put(Long patientId, String firstName, String lastName) {
+        put(patientId, firstName, lastName, Patient.PatientStatus.ACTIVE);
+    }
+
+    // Insert or replace the indexed name and status of a patient
+    public void put(Long patientId, String firstName, String lastName, Patient.PatientStatus status) {
+        String name = normalize(firstName, lastName);
+        byte statusOrdinal = statusOrdinal(status);
+        lock.writeLock().lock();
+        try {
+            Integer existing = docByPatientId.get(patientId);
+            if (existing != null) {
+                if (name.equals(names[existing])) {
+                    statuses[existing] = statusOrdinal;
+                    return;
+                }
+                tombstone(existing);
+            }
+            addDocument(patientId, name, statusOrdinal);
+            if (deletedCount > 1024 && deletedCount * 4 > docCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long patientId) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = docByPatientId.remove(patientId);
+            if (existing != null) {
+                tombstone(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of patients whose full name contains {@code query},
+     * best matches first: exact name, then name prefix, then word prefix, then
+     * any other substring; ties go to the shorter name.
+     */
+    public List<Long> search(String query, int limit) {
+        return search(query, limit, EnumSet.allOf(Patient.PatientStatus.class));
+    }
+
+    // Same, among patients with one of the given statuses
+    public List<Long> search(String query, int limit, Set<Patient.PatientStatus> wanted) {
+        int statusMask = 0;
+        for (Patient.PatientStatus status : wanted) {
+            statusMask |= 1 << status.ordinal();
+        }
+        String q = normalizeQuery(query);
+        if (q.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            IntList candidates = q.length() < 3 ? postings.get(prefixKey(q)) : intersectTrigrams(q);
+            if (candidates == null) {
+                return List.of();
+            }
+
+            Comparator<Match> worstFirst = Comparator.comparingLong(Match::score).reversed();
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, worstFirst);
+            for (int i = 0; i < candidates.size; i++) {
+                int doc = candidates.values[i];
+                String name = names[doc];
+                if (name == null || (statusMask & 1 << statuses[doc]) == 0) {
+                    continue;
+                }
+                int tier = matchTier(name, q);
+                if (tier < 0) {
+                    continue;
+                }
+                long score = ((long) tier << 48) | ((long) name.length() << 32) | doc;
+                if (best.size() < limit) {
+                    best.add(new Match(doc, score));
+                } else if (score < best.peek().score()) {
+                    best.poll();
+                    best.add(new Match(doc, score));
+                }
+            }
+
+            Match[] ordered = best.toArray(new Match[0]);
+            Arrays.sort(ordered, Comparator.comparingLong(Match::score));
+            List<Long> result = new ArrayList<>(ordered.length);
+            for (Match match : ordered) {
+                result.add(patientIds[match.doc()]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Drop tombstoned documents and renumber the live ones
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            long[] oldIds = Arrays.copyOf(patientIds, docCount);
+            String[] oldNames = Arrays.copyOf(names, docCount);
+            byte[] oldStatuses = Arrays.copyOf(statuses, docCount);
+            clear();
+            for (int doc = 0; doc < oldIds.length; doc++) {
+                if (oldNames[doc] != null) {
+                    addDocument(oldIds[doc], oldNames[doc], oldStatuses[doc]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        patientIds = new long[1024];
+        names = new String[1024];
+        statuses = new byte[1024];
+        docCount = 0;
+        deletedCount = 0;
+        docByPatientId.clear();
+        postings.clear();
+    }
+
+    private void addDocument(long patientId, String name, byte status) {
+        if (docCount == names.length) {
+            patientIds = Arrays.copyOf(patientIds, docCount * 2);
+            names = Arrays.copyOf(names, docCount * 2);
+            statuses = Arrays.copyOf(statuses, docCount * 2);
+        }
+        int doc = docCount++;
+        patientIds[doc] = patientId;
+        names[doc] = name;
+        statuses[doc] = status;
+        docByPatientId.put(patientId, doc);
+
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            postings.computeIfAbsent(trigramKey(name, i), k -> new IntList()).add(doc);
+        }
+        int wordStart = 0;
+        for (int i = 0; i <= name.length(); i++) {
+            if (i == name.length() || name.charAt(i) == ' ') {
+                int wordLength = i - wordStart;
+                for (int len = 1; len <= Math.min(MAX_PREFIX_LENGTH, wordLength); len++) {
+                    postings.computeIfAbsent(prefixKey(name.substring(wordStart, wordStart + len)),
+                            k -> new IntList()).add(doc);
+                }
+                wordStart = i + 1;
+            }
+        }
+    }
+
+    // Rows without a status are treated as active, as the entity defaults them on insert
+    private static byte statusOrdinal(Patient.PatientStatus status) {
+        return (byte) (status == null ? Patient.PatientStatus.ACTIVE : status).ordinal();
+    }
+
+    private void tombstone(int doc) {
+        names[doc] = null;
+        deletedCount++;
+    }
+
+    private IntList intersectTrigrams(String q) {
+        List<IntList> lists = new ArrayList<>(q.length());
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            IntList list = postings.get(trigramKey(q, i));
+            if (list == null) {
+                return null;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        IntList result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.size > 0; i++) {
+            result = result.intersect(lists.get(i));
+        }
+        return result;
+    }
+
+    // 0 = exact, 1 = name prefix, 2 = word prefix, 3 = substring, -1 = no match
+    private static int matchTier(String name, String q) {
+        if (name.equals(q)) {
+            return 0;
+        }
+        if (name.startsWith(q)) {
+            return 1;
+        }
+        int from = 0;
+        int at;
+        boolean found = false;
+        while ((at = name.indexOf(q, from)) >= 0) {
+            if (at > 0 && name.charAt(at - 1) == ' ') {
+                return 2;
+            }
+            found = true;
+            from = at + 1;
+        }
+        // Short queries only match word prefixes
+        return found && q.length() >= 3 ? 3 : -1;
+    }
+
+    private static long trigramKey(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+
+    private static long prefixKey(String prefix) {
+        long key = PREFIX_KEY_FLAG | ((long) prefix.length() << 32);
+        for (int i = 0; i < prefix.length(); i++) {
+            key |= (long) prefix.charAt(i) << (16 * (1 - i));
+        }
+        return key;
+    }
+
+    static String normalize(String firstName, String lastName) {
+        return normalizeQuery((firstName == null ? "" : firstName) + " " + (lastName == null ? "" : lastName));
+    }
+
+    static String normalizeQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private record Match(int doc, long score) {
+    }
+
+    // Growable, ascending list of document numbers
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            // Documents arrive in ascending order, so a repeat is always the last entry
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        IntList intersect(IntList other) {
+            IntList out = new IntList();
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                int a = values[i];
+                int b = other.values[j];
+                if (a < b) {
+                    i++;
+                } else if (a > b) {
+                    j++;
+                } else {
+                    out.add(a);
+                    i++;
+                    j++;
+                }
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package com.healthcare.healthcare.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.Facets;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.FileSystemUtils;
+
+import com.healthcare.healthcare.dto.PatientQuery;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.entity.PatientKeys;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.event.PatientsSeededEvent;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.service.AgeRange;
+import com.healthcare.healthcare.service.DatabaseEpoch;
+import com.healthcare.healthcare.service.StatusFilter;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lucene index over patients for multi-field text search with filters and
+ * facet counts.
+ *
+ * <p>Each patient is one document: name, email and address are analyzed text,
+ * the phone number is indexed as its digits, city/state/gender/blood
+ * group/status are lower-cased keyword filters (and sorted-set facets with
+ * their original values), and the date of birth is an epoch-day point for
+ * age ranges. Queries cover active patients unless their {@code status}
+ * filter says otherwise. The index lives in {@code healthcare.search.index-dir}, or in
+ * memory when that is blank.
+ *
+ * <p>Writes are applied as patients change and become searchable on the next
+ * scheduled refresh ({@code healthcare.search.refresh-interval-ms}); they are
+ * committed to disk every {@code healthcare.search.commit-interval-ms}. On
+ * startup the index is rebuilt from the table if its size does not match or
+ * it was built from another database (see {@link DatabaseEpoch}). A rebuild
+ * writes a complete new index beside the live one and only then swaps it in,
+ * so a failed rebuild leaves the previous index in place.
+ */
+@Component
+@Slf4j
+public class PatientSearchIndex {
+
+    public static final List<String> FACETS = List.of("city", "state", "gender", "bloodGroup", "status");
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    private static final String ID = "id";
+    private static final String ID_SORT = "id_sort";
+    private static final String NAME = "name";
+    private static final String EMAIL = "email";
+    private static final String EMAIL_EXACT = "email_exact";
+    private static final String PHONE = "phone";
+    private static final String ADDRESS = "address";
+    private static final String DATE_OF_BIRTH = "date_of_birth";
+    // Commit user data: the epoch of the database the index was built from
+    private static final String DATABASE_EPOCH = "database_epoch";
+    private static final int FACET_VALUES = 10;
+    private static final int MAX_AGE = 150;
+
+    private final PatientRepository patientRepository;
+    private final EntityManager entityManager;
+    private final DatabaseEpoch databaseEpoch;
+    private final Path indexDir;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    // Guards the swap of a rebuilt index against concurrent changes, refreshes and commits
+    private final Object swapLock = new Object();
+    // Changes that commit while a rebuild runs, replayed onto the new index
+    private final List<PatientChangedEvent> changesDuringRebuild = new ArrayList<>();
+
+    private volatile FacetState facetState;
+    private boolean rebuilding;
+    // Set while a rebuilt index is swapped in, and left set if that fails halfway: refreshes and commits stay off
+    // until a rebuild succeeds, so neither searchers nor the disk see a half-swapped index
+    private boolean swapIncomplete;
+    private volatile boolean ready;
+
+    public PatientSearchIndex(PatientRepository patientRepository, EntityManager entityManager,
+            DatabaseEpoch databaseEpoch, @Value("${healthcare.search.index-dir:}") String indexDir)
+            throws IOException {
+        this.patientRepository = patientRepository;
+        this.entityManager = entityManager;
+        this.databaseEpoch = databaseEpoch;
+        this.indexDir = indexDir == null || indexDir.isBlank() ? null : Path.of(indexDir);
+        this.directory = this.indexDir == null ? new ByteBuffersDirectory() : FSDirectory.open(this.indexDir);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Rebuild from the table once the application is up (and after background seeding), unless the stored index
+    // was built from this database and matches its size
+    @EventListener({ ApplicationReadyEvent.class, PatientsSeededEvent.class })
+    @Transactional(readOnly = true)
+    public void rebuildIfStale() {
+        long rows = patientRepository.count();
+        long docs = writer.getDocStats().numDocs;
+        String epoch = Long.toString(databaseEpoch.value());
+        String indexedEpoch = commitData().get(DATABASE_EPOCH);
+        if (docs == rows && epoch.equals(indexedEpoch)) {
+            log.info("Patient search index is current with {} documents", docs);
+            ready = true;
+            return;
+        }
+        if (docs > 0 && !epoch.equals(indexedEpoch)) {
+            log.info("Patient search index was built from another database; rebuilding");
+        }
+        rebuild();
+    }
+
+    // Replace the whole index with the current table contents; one rebuild at a time
+    @Transactional(readOnly = true)
+    public synchronized long rebuild() {
+        long start = System.nanoTime();
+        synchronized (swapLock) {
+            rebuilding = true;
+        }
+        try (Directory staging = stagingDirectory()) {
+            long count = 0;
+            try (IndexWriter stagingWriter = new IndexWriter(staging, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE));
+                    Stream<Patient> patients = patientRepository.streamAll()) {
+                for (Patient patient : (Iterable<Patient>) patients::iterator) {
+                    stagingWriter.addDocument(toDocument(patient));
+                    entityManager.detach(patient);
+                    count++;
+                }
+                stagingWriter.commit();
+            }
+            swapIn(staging);
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            log.info("Patient search index rebuilt with {} documents in {} ms",
+                    count, (System.nanoTime() - start) / 1_000_000);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rebuild patient search index", e);
+        } finally {
+            synchronized (swapLock) {
+                rebuilding = false;
+                changesDuringRebuild.clear();
+            }
+            deleteStagingDirectory();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        synchronized (swapLock) {
+            if (rebuilding) {
+                changesDuringRebuild.add(event);
+            }
+            apply(event);
+        }
+    }
+
+    private void apply(PatientChangedEvent event) {
+        if (event.type() == PatientChangedEvent.ChangeType.ARCHIVED) {
+            remove(event.patient().getId());
+        } else {
+            put(event.patient());
+        }
+    }
+
+    // Replace the live documents with the staged ones and replay what changed meanwhile, then commit
+    private void swapIn(Directory staging) throws IOException {
+        synchronized (swapLock) {
+            swapIncomplete = true;
+            writer.deleteAll();
+            writer.addIndexes(staging);
+            changesDuringRebuild.forEach(this::apply);
+            writer.setLiveCommitData(Map.of(DATABASE_EPOCH, Long.toString(databaseEpoch.value())).entrySet());
+            writer.commit();
+            swapIncomplete = false;
+        }
+    }
+
+    private Directory stagingDirectory() throws IOException {
+        if (indexDir == null) {
+            return new ByteBuffersDirectory();
+        }
+        deleteStagingDirectory();
+        return FSDirectory.open(stagingPath());
+    }
+
+    private void deleteStagingDirectory() {
+        if (indexDir == null) {
+            return;
+        }
+        try {
+            FileSystemUtils.deleteRecursively(stagingPath());
+        } catch (IOException e) {
+            log.warn("Could not delete the search index staging directory: {}", e.getMessage());
+        }
+    }
+
+    private Path stagingPath() {
+        return indexDir.resolveSibling(indexDir.getFileName() + ".rebuild");
+    }
+
+    private Map<String, String> commitData() {
+        Map<String, String> data = new HashMap<>();
+        Iterable<Map.Entry<String, String>> live = writer.getLiveCommitData();
+        if (live != null) {
+            live.forEach(entry -> data.put(entry.getKey(), entry.getValue()));
+        }
+        return data;
+    }
+
+    // Insert or replace a patient's document; visible after the next refresh
+    public void put(Patient patient) {
+        try {
+            writer.updateDocument(new Term(ID, Long.toString(patient.getId())), toDocument(patient));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to index patient " + patient.getId(), e);
+        }
+    }
+
+    public void remove(Long id) {
+        try {
+            writer.deleteDocuments(new Term(ID, Long.toString(id)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to remove patient " + id + " from the search index", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${healthcare.search.refresh-interval-ms:1000}")
+    public void refresh() {
+        synchronized (swapLock) {
+            if (swapIncomplete) {
+                return;
+            }
+            try {
+                searcherManager.maybeRefresh();
+            } catch (IOException e) {
+                log.warn("Patient search index refresh failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${healthcare.search.commit-interval-ms:30000}")
+    public void commit() {
+        synchronized (swapLock) {
+            if (swapIncomplete || !writer.hasUncommittedChanges()) {
+                return;
+            }
+            try {
+                writer.commit();
+            } catch (IOException e) {
+                log.warn("Patient search index commit failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the ids of the matching patients ranked by relevance (ties in id
+     * order), skipping {@code offset} and returning at most {@code limit},
+     * together with the total number of matches and facet counts over all of
+     * them.
+     */
+    public Hits search(PatientQuery query, int offset, int limit) {
+        if (offset + limit > MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("Result window is limited to " + MAX_RESULT_WINDOW + " patients");
+        }
+        Query luceneQuery = toQuery(query);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                Sort sort = new Sort(SortField.FIELD_SCORE, new SortField(ID_SORT, SortField.Type.LONG));
+                FacetsCollectorManager.FacetsResult result = FacetsCollectorManager.search(searcher, luceneQuery,
+                        offset + limit, sort, true, new FacetsCollectorManager());
+
+                ScoreDoc[] scoreDocs = result.topDocs().scoreDocs;
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>(Math.max(scoreDocs.length - offset, 0));
+                for (int i = offset; i < scoreDocs.length; i++) {
+                    ids.add(Long.parseLong(storedFields.document(scoreDocs[i].doc, Set.of(ID)).get(ID)));
+                }
+
+                long total = 0;
+                for (FacetsCollector.MatchingDocs matching : result.facetsCollector().getMatchingDocs()) {
+                    total += matching.totalHits;
+                }
+                return new Hits(ids, total, facetCounts(searcher.getIndexReader(), result.facetsCollector()));
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Patient search failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    Document toDocument(Patient patient) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField(ID, Long.toString(patient.getId()), Field.Store.YES));
+        doc.add(new NumericDocValuesField(ID_SORT, patient.getId()));
+
+        addText(doc, NAME, join(patient.getFirstName(), patient.getLastName()));
+        addText(doc, EMAIL, patient.getEmail());
+        addText(doc, ADDRESS, join(patient.getAddress(), patient.getCity(), patient.getState(),
+                patient.getZipCode(), patient.getCountry()));
+        addKeyword(doc, EMAIL_EXACT, PatientKeys.normalizeEmail(patient.getEmail()));
+        addKeyword(doc, PHONE, PatientKeys.normalizePhone(patient.getPhoneNumber()));
+        if (patient.getDateOfBirth() != null) {
+            doc.add(new IntPoint(DATE_OF_BIRTH, (int) patient.getDateOfBirth().toEpochDay()));
+        }
+
+        addFilter(doc, "city", patient.getCity());
+        addFilter(doc, "state", patient.getState());
+        addFilter(doc, "gender", patient.getGender() == null ? null : patient.getGender().name());
+        addFilter(doc, "bloodGroup", patient.getBloodGroup());
+        addFilter(doc, "status", patient.getStatus() == null ? null : patient.getStatus().name());
+        return facetsConfig.build(doc);
+    }
+
+    private Query toQuery(PatientQuery query) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        Query text = textQuery(query.text());
+        builder.add(text != null ? text : new MatchAllDocsQuery(), Occur.MUST);
+
+        addFilterClause(builder, "city", query.city());
+        addFilterClause(builder, "state", query.state());
+        addFilterClause(builder, "gender", query.gender());
+        addFilterClause(builder, "bloodGroup", query.bloodGroup());
+        StatusFilter statuses = StatusFilter.parse(query.status());
+        if (!statuses.isAll()) {
+            List<BytesRef> terms = new ArrayList<>();
+            statuses.statuses().forEach(status -> terms.add(new BytesRef(keyword(status.name()))));
+            builder.add(new TermInSetQuery("status", terms), Occur.FILTER);
+        }
+
+        if (query.minAge() != null || query.maxAge() != null) {
+            AgeRange ages = AgeRange.of(query.minAge() == null ? 0 : query.minAge(),
+                    query.maxAge() == null ? MAX_AGE : query.maxAge(), LocalDate.now());
+            builder.add(IntPoint.newRangeQuery(DATE_OF_BIRTH, (int) ages.bornFrom().toEpochDay(),
+                    (int) ages.bornTo().toEpochDay()), Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    // Every word must match name, email or address; a whole email or phone number may match on its own
+    private Query textQuery(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        BooleanQuery.Builder anyForm = new BooleanQuery.Builder();
+
+        List<String> terms = analyze(text);
+        if (!terms.isEmpty()) {
+            BooleanQuery.Builder allTerms = new BooleanQuery.Builder();
+            for (String term : terms) {
+                BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+                anyField.add(new BoostQuery(new TermQuery(new Term(NAME, term)), 3f), Occur.SHOULD);
+                if (term.length() >= 2) {
+                    anyField.add(new BoostQuery(new PrefixQuery(new Term(NAME, term)), 1.5f), Occur.SHOULD);
+                }
+                anyField.add(new BoostQuery(new TermQuery(new Term(EMAIL, term)), 2f), Occur.SHOULD);
+                anyField.add(new TermQuery(new Term(ADDRESS, term)), Occur.SHOULD);
+                allTerms.add(anyField.build(), Occur.MUST);
+            }
+            anyForm.add(allTerms.build(), Occur.SHOULD);
+        }
+
+        String email = PatientKeys.normalizeEmail(text);
+        if (email != null && email.indexOf('@') > 0) {
+            anyForm.add(new BoostQuery(new TermQuery(new Term(EMAIL_EXACT, email)), 5f), Occur.SHOULD);
+        }
+        String digits = PatientKeys.normalizePhone(text);
+        if (digits != null && digits.length() >= 4) {
+            anyForm.add(new BoostQuery(new PrefixQuery(new Term(PHONE, digits)), 5f), Occur.SHOULD);
+        }
+        return anyForm.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private Map<String, Map<String, Long>> facetCounts(IndexReader reader, FacetsCollector collector)
+            throws IOException {
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        if (reader.numDocs() == 0) {
+            return facets;
+        }
+        Facets counts = new SortedSetDocValuesFacetCounts(facetState(reader), collector);
+        Map<String, FacetResult> byDimension = new LinkedHashMap<>();
+        for (FacetResult result : counts.getAllDims(FACET_VALUES)) {
+            byDimension.put(result.dim, result);
+        }
+        for (String dimension : FACETS) {
+            FacetResult result = byDimension.get(dimension);
+            Map<String, Long> values = new LinkedHashMap<>();
+            if (result != null) {
+                for (LabelAndValue labelAndValue : result.labelValues) {
+                    values.put(labelAndValue.label, labelAndValue.value.longValue());
+                }
+            }
+            facets.put(dimension, values);
+        }
+        return facets;
+    }
+
+    // Facet ordinals are per reader; rebuild them only when a refresh produced a new one
+    private SortedSetDocValuesReaderState facetState(IndexReader reader) throws IOException {
+        FacetState current = facetState;
+        if (current == null || current.reader() != reader) {
+            current = new FacetState(reader, new DefaultSortedSetDocValuesReaderState(reader, facetsConfig));
+            facetState = current;
+        }
+        return current.state();
+    }
+
+    private static void addText(Document doc, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            doc.add(new TextField(field, value, Field.Store.NO));
+        }
+    }
+
+    private static void addKeyword(Document doc, String field, String value) {
+        if (value != null) {
+            doc.add(new StringField(field, value, Field.Store.NO));
+        }
+    }
+
+    private static void addFilter(Document doc, String dimension, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        doc.add(new StringField(dimension, keyword(value), Field.Store.NO));
+        doc.add(new SortedSetDocValuesFacetField(dimension, value.trim()));
+    }
+
+    private static void addFilterClause(BooleanQuery.Builder builder, String dimension, String value) {
+        if (value != null && !value.isBlank()) {
+            builder.add(new TermQuery(new Term(dimension, keyword(value))), Occur.FILTER);
+        }
+    }
+
+    private static String keyword(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String join(String... parts) {
+        StringBuilder joined = new StringBuilder();
+        for (String part : parts) {
+            if (part != null && !part.isBlank()) {
+                if (joined.length() > 0) {
+                    joined.append(' ');
+                }
+                joined.append(part);
+            }
+        }
+        return joined.toString();
+    }
+
+    public record Hits(List<Long> ids, long total, Map<String, Map<String, Long>> facets) {
+    }
+
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.healthcare.healthcare.service;
+
+import java.time.LocalDate;
+
+/**
+ * An age range in whole years, translated into the inclusive range of birth
+ * dates that have exactly those ages on {@code today}, so that it can be
+ * matched against an index on date of birth.
+ */
+public record AgeRange(LocalDate bornFrom, LocalDate bornTo) {
+
+    public static AgeRange of(int minAge, int maxAge, LocalDate today) {
+        if (minAge < 0 || maxAge < minAge) {
+            throw new IllegalArgumentException("Invalid age range: " + minAge + " to " + maxAge);
+        }
+        // Age N means born after today minus N+1 years and on or before today minus N years
+        return new AgeRange(today.minusYears(maxAge + 1L).plusDays(1), today.minusYears(minAge));
+    }
+}
@@ -0,0 +1,67 @@
+package com.healthcare.healthcare.service;
+
+import java.security.SecureRandom;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.healthcare.repository.IdAllocationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A random number identifying the database the application runs against,
+ * stored once in the {@code id_allocations} table. Files kept outside the
+ * database (the search index, the change log) record it, so a restart against
+ * a different database, including a fresh in-memory one, is recognized and
+ * the files are rebuilt instead of trusted.
+ */
+@Component
+@Slf4j
+public class DatabaseEpoch {
+
+    static final String ALLOCATION_NAME = "database_epoch";
+
+    private final IdAllocationRepository idAllocationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Long value;
+
+    public DatabaseEpoch(IdAllocationRepository idAllocationRepository,
+            PlatformTransactionManager transactionManager) {
+        this.idAllocationRepository = idAllocationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long value() {
+        Long current = value;
+        if (current == null) {
+            current = load();
+            value = current;
+        }
+        return current;
+    }
+
+    private long load() {
+        Long stored = transactionTemplate.execute(status -> idAllocationRepository.findById(ALLOCATION_NAME)
+                .map(allocation -> allocation.getNextValue())
+                .orElse(null));
+        if (stored != null) {
+            return stored;
+        }
+        long created = new SecureRandom().nextLong();
+        try {
+            transactionTemplate.executeWithoutResult(
+                    status -> idAllocationRepository.create(ALLOCATION_NAME, created));
+            log.info("New database epoch {}", Long.toHexString(created));
+            return created;
+        } catch (DataIntegrityViolationException e) {
+            // Another node stored the epoch first
+            return transactionTemplate.execute(status -> idAllocationRepository.findNextValue(ALLOCATION_NAME));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.healthcare.healthcare.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.healthcare.healthcare.repository.IdempotencyRecordRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+// Forgets idempotency keys once clients can no longer be retrying the request
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyKeyExpiry {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${healthcare.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Scheduled(fixedDelayString = "${healthcare.idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${healthcare.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (purged > 0) {
+            log.info("Purged {} idempotency keys older than {}", purged, ttl);
+        }
+    }
+}
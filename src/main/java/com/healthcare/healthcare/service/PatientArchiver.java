@@ -0,0 +1,168 @@
+package com.healthcare.healthcare.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves patients that have been inactive for a long time out of the
+ * {@code patients} table into {@code patients_archive}, so the table that
+ * every list, search and index serves stays the size of the working set.
+ *
+ * <p>A patient qualifies once its status is not {@code ACTIVE} and its row
+ * has not changed for {@code healthcare.archive.inactive-after}. Each batch is
+ * copied with {@code INSERT ... SELECT} and deleted in one transaction, and an
+ * {@code ARCHIVED} event per patient removes it from the in-memory read models
+ * and the change log's consumers.
+ *
+ * <p>The archive table mirrors the patient columns plus {@code archived_at};
+ * it is created from the live table's shape on startup when missing. Rows are
+ * copied by column name, so the two tables may order their columns
+ * differently, but an archive lacking a patient column (one added to the
+ * entity after the archive was created) stops startup rather than losing
+ * that column's values.
+ */
+@Component
+@Slf4j
+public class PatientArchiver {
+
+    private static final Set<Patient.PatientStatus> ARCHIVABLE =
+            EnumSet.complementOf(EnumSet.of(Patient.PatientStatus.ACTIVE));
+
+    private final PatientRepository patientRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // Set on startup from the patients table's columns
+    private String insertArchived;
+
+    @Value("${healthcare.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${healthcare.archive.inactive-after:365d}")
+    private Duration inactiveAfter;
+
+    @Value("${healthcare.archive.batch-size:1000}")
+    private int batchSize;
+
+    public PatientArchiver(PatientRepository patientRepository, NamedParameterJdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void createArchiveTable() {
+        List<String> columns = columnsOf("PATIENTS");
+        String columnList = String.join(", ", columns);
+        jdbcTemplate.getJdbcTemplate().execute(
+                "CREATE TABLE IF NOT EXISTS patients_archive AS SELECT " + columnList + " FROM patients WHERE 1 = 0");
+        jdbcTemplate.getJdbcTemplate().execute(
+                "ALTER TABLE patients_archive ADD COLUMN IF NOT EXISTS archived_at TIMESTAMP");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_patients_archive_patient_id "
+                + "ON patients_archive (patient_id)");
+
+        List<String> missing = new ArrayList<>(columns);
+        missing.removeAll(columnsOf("PATIENTS_ARCHIVE"));
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("patients_archive has no column for " + missing
+                    + "; add them before starting (see db/manual)");
+        }
+        insertArchived = "INSERT INTO patients_archive (" + columnList + ", archived_at) SELECT "
+                + columns.stream().map(column -> "p." + column).collect(Collectors.joining(", "))
+                + ", :archivedAt FROM patients p WHERE p.id IN (:ids)";
+    }
+
+    @Scheduled(fixedDelayString = "${healthcare.archive.interval-ms:86400000}",
+            initialDelayString = "${healthcare.archive.interval-ms:86400000}")
+    public void archiveOnSchedule() {
+        if (enabled) {
+            archiveInactive();
+        }
+    }
+
+    // Archive patients inactive for longer than healthcare.archive.inactive-after
+    public long archiveInactive() {
+        return archive(inactiveAfter);
+    }
+
+    // Archive every patient inactive for at least the given time; returns how many were moved
+    public long archive(Duration inactiveFor) {
+        if (inactiveFor == null || inactiveFor.isNegative()) {
+            throw new IllegalArgumentException("Inactivity period must not be negative");
+        }
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(inactiveFor);
+        long archived = 0;
+        long afterId = 0;
+        while (true) {
+            long fromId = afterId;
+            List<Long> moved = transactionTemplate.execute(status -> archiveBatch(cutoff, fromId));
+            if (moved.isEmpty()) {
+                break;
+            }
+            archived += moved.size();
+            afterId = moved.get(moved.size() - 1);
+        }
+        if (archived > 0) {
+            log.info("Archived {} patients inactive since before {} in {} ms", archived, cutoff,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return archived;
+    }
+
+    // Look up a patient that has been archived
+    public Optional<Patient> findArchived(String patientId) {
+        List<Patient> rows = jdbcTemplate.query("SELECT * FROM patients_archive WHERE patient_id = :patientId",
+                Map.of("patientId", patientId), new BeanPropertyRowMapper<>(Patient.class));
+        return rows.stream().findFirst();
+    }
+
+    private List<Long> archiveBatch(LocalDateTime cutoff, long afterId) {
+        List<Patient> patients = patientRepository.findArchivable(ARCHIVABLE, cutoff, afterId, Limit.of(batchSize));
+        if (patients.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(patients.size());
+        patients.forEach(patient -> ids.add(patient.getId()));
+
+        jdbcTemplate.update(insertArchived, Map.of("archivedAt", LocalDateTime.now(), "ids", ids));
+        patientRepository.deleteAllByIdInBatch(ids);
+        for (Patient patient : patients) {
+            eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.ChangeType.ARCHIVED, patient));
+        }
+        return ids;
+    }
+
+    private List<String> columnsOf(String table) {
+        return jdbcTemplate.getJdbcTemplate().queryForList("SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_SCHEMA = CURRENT_SCHEMA AND TABLE_NAME = ? ORDER BY ORDINAL_POSITION", String.class,
+                table);
+    }
+}
@@ -0,0 +1,38 @@
+package com.healthcare.healthcare.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque keyset cursor handed out by the patient list
+ * endpoints. The cursor wraps the surrogate id of the last row on a page so the
+ * next page can be read with an index range scan instead of an OFFSET.
+ */
+public final class PatientCursor {
+
+    private static final String PREFIX = "p:";
+
+    private PatientCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    // Returns 0 for a missing cursor so the first page starts at the lowest id
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.healthcare.healthcare.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.healthcare.repository.IdAllocationRepository;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands out patient IDs ({@code P00000001}, {@code P00000002}, ...) without a
+ * database round trip per ID.
+ *
+ * <p>Ranges are reserved from the {@code id_allocations} row in a short
+ * transaction of their own: an UPDATE moves the high-water mark, and its row
+ * lock makes concurrent reservations, from this node or any other, queue
+ * instead of overlapping. IDs within the current block are then taken with a
+ * single atomic increment; only the thread that finds the block exhausted
+ * takes the refill lock. IDs left in a block at shutdown are skipped, so the
+ * sequence has gaps but never repeats.
+ */
+@Component
+@Slf4j
+public class PatientIdAllocator {
+
+    static final String ALLOCATION_NAME = "patient_id";
+    private static final char PREFIX = 'P';
+    private static final int DIGITS = 8;
+    private static final int SCAN_BATCH = 100;
+
+    private final IdAllocationRepository idAllocationRepository;
+    private final PatientRepository patientRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    public PatientIdAllocator(IdAllocationRepository idAllocationRepository, PatientRepository patientRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${healthcare.patients.id-block-size:1000}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Patient ID block size must be positive");
+        }
+        this.idAllocationRepository = idAllocationRepository;
+        this.patientRepository = patientRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Never join the caller's transaction: a rollback there must not give the range back
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public String next() {
+        while (true) {
+            Block block = current.get();
+            long value = block.cursor.getAndIncrement();
+            if (value < block.end) {
+                return format(value);
+            }
+            refill(block);
+        }
+    }
+
+    // Reserves count consecutive numbers outside any block and returns the first
+    public long reserveRange(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Range size must be positive");
+        }
+        return reserve(count);
+    }
+
+    public static String format(long value) {
+        StringBuilder id = new StringBuilder(DIGITS + 1).append(PREFIX);
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < DIGITS; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            // Another thread may have refilled while this one waited
+            if (current.get() == exhausted) {
+                long start = reserve(blockSize);
+                current.set(new Block(start, start + blockSize));
+                log.debug("Reserved patient IDs {} to {}", format(start), format(start + blockSize - 1));
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private long reserve(long size) {
+        Long start = transactionTemplate.execute(status -> {
+            if (idAllocationRepository.advance(ALLOCATION_NAME, size) == 0) {
+                return null;
+            }
+            return idAllocationRepository.findNextValue(ALLOCATION_NAME) - size;
+        });
+        if (start != null) {
+            return start;
+        }
+        initialize();
+        return reserve(size);
+    }
+
+    // First use against this database: start above any generated-style IDs already stored
+    private void initialize() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                long floor = highestExistingNumber() + 1;
+                idAllocationRepository.create(ALLOCATION_NAME, floor);
+                log.info("Patient ID allocation starts at {}", format(floor));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the row first; its floor is as good as ours
+            log.debug("Patient ID allocation row already created: {}", e.getMessage());
+        }
+    }
+
+    // Generated IDs have fixed width, so among them text order is numeric order; scan down from the top of the
+    // range and skip other IDs that happen to share its shape
+    private long highestExistingNumber() {
+        String before = PREFIX + ":";
+        while (true) {
+            List<String> candidates = patientRepository.findPrefixedPatientIdsBefore(before, Limit.of(SCAN_BATCH));
+            for (String candidate : candidates) {
+                if (isGenerated(candidate)) {
+                    return Long.parseLong(candidate, 1, candidate.length(), 10);
+                }
+            }
+            if (candidates.size() < SCAN_BATCH) {
+                return 0;
+            }
+            before = candidates.get(candidates.size() - 1);
+        }
+    }
+
+    // P followed by exactly eight digits
+    static boolean isGenerated(String patientId) {
+        if (patientId.length() != DIGITS + 1 || patientId.charAt(0) != PREFIX) {
+            return false;
+        }
+        for (int i = 1; i < patientId.length(); i++) {
+            if (patientId.charAt(i) < '0' || patientId.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Block {
+
+        private final AtomicLong cursor;
+        private final long end;
+
+        Block(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -1,71 +1,517 @@
 package com.healthcare.healthcare.service;
 
 // import org.hibernate.mapping.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.healthcare.healthcare.analytics.PatientColumnStore;
+import com.healthcare.healthcare.cache.PatientLookupCache;
+import com.healthcare.healthcare.changelog.PatientChangeLog;
+import com.healthcare.healthcare.dto.PatientAnalyticsQuery;
+import com.healthcare.healthcare.dto.PatientCountResult;
+import com.healthcare.healthcare.dto.PatientCreation;
+import com.healthcare.healthcare.dto.PatientPage;
+import com.healthcare.healthcare.dto.PatientQuery;
+import com.healthcare.healthcare.dto.PatientQueryResult;
+import com.healthcare.healthcare.dto.PatientStats;
+import com.healthcare.healthcare.dto.PatientSummary;
+import com.healthcare.healthcare.dto.PatientVersion;
 import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.entity.PatientKeys;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.logging.LogMarkers;
+import com.healthcare.healthcare.repository.IdempotencyRecordRepository;
 import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.search.PatientNameIndex;
+import com.healthcare.healthcare.search.PatientSearchIndex;
+import com.healthcare.healthcare.stats.PatientStatistics;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
+// Reads run in read-only transactions: no dirty-checking snapshots, no flush, read-only JDBC connection
+@Transactional(readOnly = true)
+@Timed(value = "patients.service", percentiles = { 0.5, 0.99, 0.999 })
 public class PatientService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 100;
+
     private final PatientRepository patientRepository;
+    private final EntityManager entityManager;
+    private final PatientNameIndex patientNameIndex;
+    private final PatientSearchIndex patientSearchIndex;
+    private final PatientStatistics patientStatistics;
+    // Absent unless healthcare.analytics.enabled
+    private final ObjectProvider<PatientColumnStore> patientColumnStore;
+    private final PatientLookupCache patientLookupCache;
+    private final PatientChangeLog patientChangeLog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PatientIdAllocator patientIdAllocator;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int jdbcBatchSize;
+
+    @Value("${healthcare.patients.batch.max-size:5000}")
+    private int maxBatchSize;
 
-    // Create a new patient
+    // Create a new patient; a patient ID is allocated when none is given
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Patient createPatient(Patient patient) {
-        log.info("Creating new patient: {}", patient.getFirstName() + " " + patient.getLastName());
+        log.debug(LogMarkers.PHI, "Creating new patient: {} {}", patient.getFirstName(), patient.getLastName());
 
         // Validate required fields
         // validatePatientData(patient);
-        Patient savePatient = patientRepository.save(patient);
-        return savePatient;
+        boolean allocated = assignPatientIds(List.of(patient)) > 0;
+        return inWriteTransaction(() -> insertPatient(patient, allocated));
+    }
+
+    // Create a patient once per idempotency key; a retry with the same key and body gets the first result back
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PatientCreation createPatient(Patient patient, String idempotencyKey, String requestHash) {
+        if (idempotencyKey == null) {
+            return new PatientCreation(createPatient(patient), false);
+        }
+        log.debug(LogMarkers.PHI, "Creating new patient: {} {}", patient.getFirstName(), patient.getLastName());
+        boolean allocated = assignPatientIds(List.of(patient)) > 0;
+        return inWriteTransaction(() -> {
+            Optional<PatientCreation> replay = lookUpIdempotentCreation(idempotencyKey, requestHash);
+            if (replay.isPresent()) {
+                return replay.get();
+            }
+            Patient created = insertPatient(patient, allocated);
+            // A concurrent request with the same key makes this insert fail and the whole transaction roll back
+            idempotencyRecordRepository.create(idempotencyKey, requestHash, created.getPatientId(),
+                    LocalDateTime.now());
+            return new PatientCreation(created, false);
+        });
+    }
+
+    // Read-write so that, with a replica configured, the lookup sees the primary
+    @Transactional
+    public Optional<PatientCreation> findIdempotentCreation(String idempotencyKey, String requestHash) {
+        return lookUpIdempotentCreation(idempotencyKey, requestHash);
+    }
+
+    // Create many patients in one transaction using JDBC batch inserts
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Long> createPatients(List<Patient> patients) {
+        if (patients == null || patients.isEmpty()) {
+            throw new IllegalArgumentException("At least one patient is required");
+        }
+        if (patients.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch size " + patients.size() + " exceeds maximum of " + maxBatchSize);
+        }
+        log.debug("Creating {} patients in bulk", patients.size());
+        assignPatientIds(patients);
+
+        return inWriteTransaction(() -> {
+            List<Long> ids = new ArrayList<>(patients.size());
+            for (int i = 0; i < patients.size(); i++) {
+                Patient patient = patients.get(i);
+                entityManager.persist(patient);
+                ids.add(patient.getId());
+                eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.ChangeType.CREATED, patient));
+
+                // Flush each full JDBC batch and drop it from the persistence context
+                if ((i + 1) % jdbcBatchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            return ids;
+        });
+    }
+
+    // Replace the editable fields of an existing patient
+    @Transactional
+    public Optional<Patient> updatePatient(String patientId, Patient changes) {
+        log.debug("Updating patient: {}", patientId);
+        Optional<Patient> found = patientRepository.findByPatientId(patientId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Patient patient = found.get();
+        Patient previous = patient.toBuilder().build();
+
+        patient.setFirstName(changes.getFirstName());
+        patient.setLastName(changes.getLastName());
+        patient.setDateOfBirth(changes.getDateOfBirth());
+        patient.setGender(changes.getGender());
+        patient.setPhoneNumber(changes.getPhoneNumber());
+        patient.setEmail(changes.getEmail());
+        patient.setAddress(changes.getAddress());
+        patient.setCity(changes.getCity());
+        patient.setState(changes.getState());
+        patient.setZipCode(changes.getZipCode());
+        patient.setCountry(changes.getCountry());
+        patient.setBloodGroup(changes.getBloodGroup());
+        patient.setEmergencyContactName(changes.getEmergencyContactName());
+        patient.setEmergencyContactPhone(changes.getEmergencyContactPhone());
+        patient.setEmergencyContactRelation(changes.getEmergencyContactRelation());
+        patient.setInsuranceNumber(changes.getInsuranceNumber());
+        patient.setInsuranceProvider(changes.getInsuranceProvider());
+        patient.setMaritalStatus(changes.getMaritalStatus());
+        patient.setOccupation(changes.getOccupation());
+        patient.setNationality(changes.getNationality());
+        patient.setIdentificationType(changes.getIdentificationType());
+        patient.setIdentificationNumber(changes.getIdentificationNumber());
+        patient.setLastVisitDate(changes.getLastVisitDate());
+        if (changes.getStatus() != null) {
+            patient.setStatus(changes.getStatus());
+        }
+
+        // Flush now so @PreUpdate has run and listeners see the stored values
+        patientRepository.saveAndFlush(patient);
+        eventPublisher.publishEvent(
+                new PatientChangedEvent(PatientChangedEvent.ChangeType.UPDATED, patient, previous));
+        return Optional.of(patient);
     }
 
-    // Get all patients
-    @Transactional()
-    public List<Patient> getAllPatients() {
-        return patientRepository.findAll(); // Returns List (empty if no records)
+    // Set a patient's status; no change is recorded when it already has that status
+    @Transactional
+    public Optional<Patient> updatePatientStatus(String patientId, Patient.PatientStatus status) {
+        if (status == null) {
+            throw new IllegalArgumentException("status is required");
+        }
+        log.debug("Updating status of patient {} to {}", patientId, status);
+        Optional<Patient> found = patientRepository.findByPatientId(patientId);
+        if (found.isEmpty() || found.get().getStatus() == status) {
+            return found;
+        }
+        Patient patient = found.get();
+        Patient previous = patient.toBuilder().build();
+        patient.setStatus(status);
+
+        patientRepository.saveAndFlush(patient);
+        eventPublisher.publishEvent(
+                new PatientChangedEvent(PatientChangedEvent.ChangeType.STATUS_CHANGED, patient, previous));
+        return Optional.of(patient);
     }
 
+    // Get one keyset page of patients with the given statuses, ordered by id, as entities or summaries
+    public <T> PatientPage<T> getPatientsPage(String cursor, Integer limit, StatusFilter status, Class<T> type) {
+        long afterId = PatientCursor.decode(cursor);
+        int pageSize = clampPageSize(limit);
+
+        // Read one extra row to learn whether another page exists
+        List<T> rows = patientRepository.findByStatusInAndIdGreaterThanOrderByIdAsc(status.statuses(), afterId,
+                Limit.of(pageSize + 1), type);
+        if (rows.size() <= pageSize) {
+            return new PatientPage<>(rows, null);
+        }
+        List<T> page = rows.subList(0, pageSize);
+        return new PatientPage<>(page, PatientCursor.encode(idOf(page.get(pageSize - 1))));
+    }
+
+    // Stream every patient to the sink without materializing the table
+    public long streamAllPatients(Consumer<Patient> sink) {
+        long count = 0;
+        try (Stream<Patient> patients = patientRepository.streamAll()) {
+            Iterator<Patient> it = patients.iterator();
+            while (it.hasNext()) {
+                Patient patient = it.next();
+                sink.accept(patient);
+                // Detach as we go so the persistence context stays flat
+                entityManager.detach(patient);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * The single-patient lookups below fill the lookup cache, and the versions
+     * answer conditional requests, so they read from the primary: a row from a
+     * lagging replica would be served from the cache for its whole TTL, or
+     * confirmed with 304. They are NOT_SUPPORTED so that a cache hit takes no
+     * connection, and a miss reads in a short transaction of its own.
+     */
+
     // Get patient by patient ID
-    @Transactional()
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Patient> getPatientById(String patiendId) {
-        log.info("Fetching patient by patient ID: {}", patiendId);
-        return patientRepository.findByPatientId(patiendId);
+        log.debug("Fetching patient by patient ID: {}", patiendId);
+        return patientLookupCache.getByPatientId(patiendId,
+                id -> fromPrimary(() -> patientRepository.findByPatientId(id)));
+    }
+
+    // Version of a patient for conditional requests: from the lookup cache, else a query that skips the entity
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<PatientVersion> getPatientVersion(String patientId) {
+        Optional<Patient> cached = patientLookupCache.peekByPatientId(patientId);
+        if (cached.isPresent()) {
+            return cached.map(PatientVersion::of);
+        }
+        return fromPrimary(() -> patientRepository.findVersionByPatientId(patientId));
+    }
+
+    // ETag for patient lists; read before the list itself so a concurrent write can only make it older
+    public String getCollectionEtag() {
+        return patientRepository.findCollectionVersion().etag(patientChangeLog.endOffset());
     }
 
     // Get patient by email
-    @Transactional()
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Patient> getPatientByEmail(String email) {
-        log.info("Fetching patient by Email: {}", email);
-        return patientRepository.findByEmail(email);
+        log.debug(LogMarkers.PHI, "Fetching patient by Email: {}", email);
+        String emailNormalized = PatientKeys.normalizeEmail(email);
+        if (emailNormalized == null) {
+            return Optional.empty();
+        }
+        return patientLookupCache.getByEmail(emailNormalized,
+                key -> fromPrimary(() -> patientRepository.findFirstByEmailNormalizedOrderByIdAsc(key)));
     }
 
     // Get patient by phone number
-    @Transactional()
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Patient> getPatientByPhoneNumber(String phoneNumber) {
-        log.info("Fetching patient by phoneNumber: {}", phoneNumber);
-        return patientRepository.findByPhoneNumber(phoneNumber);
+        log.debug(LogMarkers.PHI, "Fetching patient by phoneNumber: {}", phoneNumber);
+        String phoneDigits = PatientKeys.normalizePhone(phoneNumber);
+        if (phoneDigits == null) {
+            return Optional.empty();
+        }
+        return patientLookupCache.getByPhoneNumber(phoneDigits,
+                key -> fromPrimary(() -> patientRepository.findFirstByPhoneDigitsOrderByIdAsc(key)));
     }
 
     // Get patient by identification number
-    @Transactional()
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Patient> getPatientIdentificationNumber(String identificationNumber) {
-        return patientRepository.findByIdentificationNumber(identificationNumber);
+        return patientLookupCache.getByIdentificationNumber(identificationNumber,
+                key -> fromPrimary(() -> patientRepository.findFirstByIdentificationNumberOrderByIdAsc(key)));
     }
 
-    // Search patients by name
-    @Transactional
-    public List<Patient> searchPatientsByName(String name) {
-        return patientRepository.findByFullNameContaining(name);
+    // Search patients with the given statuses by name, best matches first
+    public <T> List<T> searchPatientsByName(String name, Integer limit, StatusFilter status, Class<T> type) {
+        int max = clampLimit(limit, DEFAULT_SEARCH_LIMIT, MAX_SEARCH_LIMIT);
+
+        // The index is built once the application is ready; fall back to the scan until then
+        if (!patientNameIndex.isReady()) {
+            List<T> matches = new ArrayList<>();
+            for (Patient patient : patientRepository.findByFullNameContaining(name, status.statuses(),
+                    Limit.of(max))) {
+                matches.add(asView(patient, type));
+            }
+            return matches;
+        }
+
+        return loadRanked(patientNameIndex.search(name, max, status.statuses()), type);
+    }
+
+    // Full-text search over name, email, phone and address with filters and facet counts
+    public <T> PatientQueryResult<T> queryPatients(PatientQuery query, Class<T> type) {
+        if (!patientSearchIndex.isReady()) {
+            throw new IllegalStateException("Patient search index is still being built");
+        }
+        int page = query.page() == null ? 0 : query.page();
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        int size = clampPageSize(query.size());
+        if ((long) page * size + size > PatientSearchIndex.MAX_RESULT_WINDOW) {
+            throw new IllegalArgumentException("page * size must not exceed " + PatientSearchIndex.MAX_RESULT_WINDOW);
+        }
+
+        PatientSearchIndex.Hits hits = patientSearchIndex.search(query, page * size, size);
+        boolean hasNext = (long) (page + 1) * size < hits.total();
+        return new PatientQueryResult<>(loadRanked(hits.ids(), type), hits.total(), hasNext, hits.facets());
+    }
+
+    // Rebuild the full-text index from the table
+    public long rebuildSearchIndex() {
+        return patientSearchIndex.rebuild();
+    }
+
+    // Dashboard counts from the in-memory aggregates; no transaction or query needed
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PatientStats getPatientStatistics() {
+        if (!patientStatistics.isReady()) {
+            throw new IllegalStateException("Patient statistics are still being built");
+        }
+        return patientStatistics.snapshot();
+    }
+
+    // Filtered counts from the in-memory columnar store; no query needed
+    public PatientCountResult countPatients(PatientAnalyticsQuery query) {
+        PatientColumnStore store = patientColumnStore.getIfAvailable();
+        if (store == null) {
+            throw new IllegalStateException("Patient analytics are disabled (healthcare.analytics.enabled=false)");
+        }
+        if (!store.isReady()) {
+            throw new IllegalStateException("Patient analytics store is still being loaded");
+        }
+        return store.count(query);
+    }
+
+    // Find patients in a city, in id order
+    public <T> List<T> findPatientsByCity(String city, Integer limit, StatusFilter status, Class<T> type) {
+        return patientRepository.findByStatusInAndCityOrderByIdAsc(status.statuses(), city,
+                Limit.of(clampPageSize(limit)), type);
+    }
+
+    // Find patients with a blood group, in id order
+    public <T> List<T> findPatientsByBloodGroup(String bloodGroup, Integer limit, StatusFilter status,
+            Class<T> type) {
+        return patientRepository.findByStatusInAndBloodGroupOrderByIdAsc(status.statuses(), bloodGroup,
+                Limit.of(clampPageSize(limit)), type);
+    }
+
+    // Find patients whose age today lies in [minAge, maxAge], youngest last
+    public <T> Slice<T> findPatientsByAgeRange(int minAge, int maxAge, int page, Integer size, StatusFilter status,
+            Class<T> type) {
+        AgeRange ages = AgeRange.of(minAge, maxAge, LocalDate.now());
+        if (page < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        PageRequest pageRequest = PageRequest.of(page, clampPageSize(size), Sort.by("dateOfBirth", "id"));
+        return patientRepository.findByStatusInAndDateOfBirthBetween(status.statuses(), ages.bornFrom(),
+                ages.bornTo(), pageRequest, type);
+    }
+
+    // Load rows for ids ranked by an index, keeping the index order
+    private <T> List<T> loadRanked(List<Long> ids, Class<T> type) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : patientRepository.findByIdIn(ids, type)) {
+            byId.put(idOf(row), row);
+        }
+        List<T> ranked = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                ranked.add(row);
+            }
+        }
+        return ranked;
+    }
+
+    // Surrogate id of a row returned as an entity or a summary
+    private static Long idOf(Object row) {
+        if (row instanceof Patient patient) {
+            return patient.getId();
+        }
+        if (row instanceof PatientSummary summary) {
+            return summary.id();
+        }
+        throw new IllegalArgumentException("Unsupported patient view: " + row.getClass().getName());
+    }
+
+    private static <T> T asView(Patient patient, Class<T> type) {
+        if (type.isInstance(patient)) {
+            return type.cast(patient);
+        }
+        if (type == PatientSummary.class) {
+            return type.cast(PatientSummary.from(patient));
+        }
+        throw new IllegalArgumentException("Unsupported patient view: " + type.getName());
+    }
+
+    private static int clampPageSize(Integer limit) {
+        return clampLimit(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE);
+    }
+
+    private static int clampLimit(Integer limit, int defaultLimit, int maxLimit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    /*
+     * Patient IDs are allocated before the write transaction opens. Refilling
+     * the allocator takes a connection of its own; a thread that waited for it
+     * while holding another could, with enough of them, drain the pool for good.
+     * The create methods are NOT_SUPPORTED for the same reason and must not be
+     * called from inside a transaction.
+     *
+     * Callers may store IDs of the generated form themselves (an import of
+     * exported patients does), so allocated IDs are checked too, one query per
+     * round, and taken ones are skipped. Returns how many IDs were allocated.
+     */
+    private int assignPatientIds(List<Patient> patients) {
+        List<Patient> unassigned = patients.stream()
+                .filter(patient -> patient.getPatientId() == null || patient.getPatientId().isBlank())
+                .toList();
+        int allocated = unassigned.size();
+        while (!unassigned.isEmpty()) {
+            Map<String, Patient> byPatientId = new HashMap<>();
+            for (Patient patient : unassigned) {
+                patient.setPatientId(patientIdAllocator.next());
+                byPatientId.put(patient.getPatientId(), patient);
+            }
+            // In a transaction of its own, so the connection is returned before the next allocation
+            List<String> taken = inWriteTransaction(
+                    () -> patientRepository.findExistingPatientIds(byPatientId.keySet()));
+            if (!taken.isEmpty()) {
+                log.warn("Skipped {} allocated patient IDs already stored by callers, e.g. {}", taken.size(),
+                        taken.get(0));
+            }
+            unassigned = taken.stream().map(byPatientId::get).toList();
+        }
+        return allocated;
+    }
+
+    private <T> T inWriteTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    // A read-write transaction is never routed to the replica
+    private <T> T fromPrimary(Supplier<T> read) {
+        return inWriteTransaction(read);
+    }
+
+    // Allocated IDs were checked when they were assigned
+    private Patient insertPatient(Patient patient, boolean allocated) {
+        if (!allocated && patientRepository.existsByPatientId(patient.getPatientId())) {
+            throw new IllegalStateException("Patient ID already exists: " + patient.getPatientId());
+        }
+        Patient savePatient = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(PatientChangedEvent.ChangeType.CREATED, savePatient));
+        return savePatient;
+    }
+
+    private Optional<PatientCreation> lookUpIdempotentCreation(String idempotencyKey, String requestHash) {
+        return idempotencyRecordRepository.findById(idempotencyKey).map(record -> {
+            if (!record.getRequestHash().equals(requestHash)) {
+                throw new IllegalStateException("Idempotency key " + idempotencyKey
+                        + " was already used with a different request");
+            }
+            Patient patient = patientRepository.findByPatientId(record.getPatientId())
+                    .orElseThrow(() -> new IllegalStateException("Patient " + record.getPatientId()
+                            + " created with idempotency key " + idempotencyKey + " no longer exists"));
+            return new PatientCreation(patient, true);
+        });
     }
 
 }
@@ -0,0 +1,51 @@
+package com.healthcare.healthcare.service;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+import com.healthcare.healthcare.entity.Patient.PatientStatus;
+
+/**
+ * The patient statuses a list or search request covers, from its
+ * {@code status} parameter: absent means {@code ACTIVE} only, {@code all}
+ * means every status, otherwise a comma-separated list such as
+ * {@code inactive,deceased}.
+ */
+public record StatusFilter(Set<PatientStatus> statuses) {
+
+    public static final StatusFilter ACTIVE = new StatusFilter(EnumSet.of(PatientStatus.ACTIVE));
+    public static final StatusFilter ALL = new StatusFilter(EnumSet.allOf(PatientStatus.class));
+
+    public StatusFilter {
+        statuses = Collections.unmodifiableSet(EnumSet.copyOf(statuses));
+    }
+
+    public static StatusFilter parse(String status) {
+        if (status == null || status.isBlank()) {
+            return ACTIVE;
+        }
+        if ("all".equalsIgnoreCase(status.trim())) {
+            return ALL;
+        }
+        EnumSet<PatientStatus> statuses = EnumSet.noneOf(PatientStatus.class);
+        for (String value : status.split(",")) {
+            try {
+                statuses.add(PatientStatus.valueOf(value.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown status: " + value.trim()
+                        + " (expected all or any of " + EnumSet.allOf(PatientStatus.class) + ")");
+            }
+        }
+        return new StatusFilter(statuses);
+    }
+
+    public boolean isAll() {
+        return statuses.size() == PatientStatus.values().length;
+    }
+
+    public boolean includes(PatientStatus status) {
+        return statuses.contains(status);
+    }
+}
@@ -0,0 +1,357 @@
+package com.healthcare.healthcare.stats;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.healthcare.healthcare.dto.PatientStats;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.event.PatientsSeededEvent;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory patient counts for dashboards.
+ *
+ * <p>The counters are built from the table by a parallel scan: worker threads
+ * claim fixed id ranges and read only the counted columns. After that every
+ * {@link PatientChangedEvent} adjusts them (an update retracts the previous
+ * values first), and a scheduled scan every
+ * {@code healthcare.stats.reconcile-interval-ms} replaces them to correct any
+ * drift.
+ *
+ * <p>Changes that commit while a scan runs are settled per patient when it
+ * ends, whatever their id: pooled sequence ids let a creation commit below
+ * the highest id the scan started from. A row already changed when its chunk
+ * is read is skipped and counted from its last change; a row read before its
+ * first change held the state that change replaced, which is retracted first.
+ * A change that commits before its row is read but is delivered only after,
+ * in the moment before the after-commit callback runs, stays off until the
+ * next scan.
+ *
+ * <p>Dates of birth are counted per day rather than per age band, so age
+ * bands are exact on the day they are read and never go stale.
+ */
+@Component
+@Slf4j
+public class PatientStatistics {
+
+    public static final List<String> DIMENSIONS =
+            List.of("gender", "bloodGroup", "city", "state", "status", "insuranceProvider");
+    static final String UNKNOWN = "UNKNOWN";
+
+    private static final int[] AGE_BAND_STARTS = { 0, 18, 30, 45, 65 };
+    private static final String[] AGE_BANDS = { "0-17", "18-29", "30-44", "45-64", "65+" };
+    private static final long CHUNK_SIZE = 10_000;
+
+    private final PatientRepository patientRepository;
+    private final int scanThreads;
+
+    private final Object swapLock = new Object();
+    private volatile Counters counters = new Counters();
+    private volatile Instant builtAt;
+    // Non-null while a scan runs; collects the changes to settle onto its counters, and their patient ids
+    private Queue<PatientChangedEvent> changesDuringScan;
+    private volatile Set<Long> idsChangedDuringScan;
+
+    public PatientStatistics(PatientRepository patientRepository,
+            @Value("${healthcare.stats.scan-threads:0}") int scanThreads) {
+        this.patientRepository = patientRepository;
+        this.scanThreads = scanThreads > 0 ? scanThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public boolean isReady() {
+        return builtAt != null;
+    }
+
+    @EventListener({ ApplicationReadyEvent.class, PatientsSeededEvent.class })
+    public void build() {
+        rebuildCounters();
+    }
+
+    @Scheduled(fixedDelayString = "${healthcare.stats.reconcile-interval-ms:600000}",
+            initialDelayString = "${healthcare.stats.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        Counters before = counters;
+        Counters after = rebuildCounters();
+        long drift = before.distanceTo(after);
+        if (drift > 0) {
+            log.warn("Patient statistics drifted by {} counts since the last scan; corrected", drift);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        synchronized (swapLock) {
+            apply(counters, event);
+            if (changesDuringScan != null) {
+                changesDuringScan.add(event);
+                idsChangedDuringScan.add(event.patient().getId());
+            }
+        }
+    }
+
+    // Replace the counters with a fresh parallel scan of the table; returns the row count
+    public long rebuild() {
+        return rebuildCounters().total.sum();
+    }
+
+    private synchronized Counters rebuildCounters() {
+        long start = System.nanoTime();
+        synchronized (swapLock) {
+            changesDuringScan = new ConcurrentLinkedQueue<>();
+            idsChangedDuringScan = ConcurrentHashMap.newKeySet();
+        }
+        Set<Long> skipped = ConcurrentHashMap.newKeySet();
+        long maxId = 0;
+        Counters fresh = null;
+        try {
+            maxId = patientRepository.findMaxId();
+            fresh = scan(maxId, skipped);
+        } finally {
+            synchronized (swapLock) {
+                if (fresh != null) {
+                    settle(fresh, maxId, skipped);
+                    counters = fresh;
+                    builtAt = Instant.now();
+                }
+                changesDuringScan = null;
+                idsChangedDuringScan = null;
+            }
+        }
+        log.info("Patient statistics built from {} rows in {} ms",
+                fresh.total.sum(), (System.nanoTime() - start) / 1_000_000);
+        return fresh;
+    }
+
+    // Brings each patient changed during the scan to its last change, whatever the scan saw of it
+    private void settle(Counters fresh, long maxId, Set<Long> skipped) {
+        Map<Long, List<PatientChangedEvent>> byPatient = new LinkedHashMap<>();
+        for (PatientChangedEvent event : changesDuringScan) {
+            byPatient.computeIfAbsent(event.patient().getId(), id -> new ArrayList<>()).add(event);
+        }
+        for (Map.Entry<Long, List<PatientChangedEvent>> entry : byPatient.entrySet()) {
+            List<PatientChangedEvent> events = entry.getValue();
+            if (entry.getKey() <= maxId && !skipped.contains(entry.getKey())) {
+                // Read before its first change: the scan counted what that change replaced
+                Patient counted = stateBefore(events.get(0));
+                if (counted != null) {
+                    add(fresh, counted, -1);
+                }
+            }
+            PatientChangedEvent last = events.get(events.size() - 1);
+            if (last.type() != PatientChangedEvent.ChangeType.ARCHIVED) {
+                add(fresh, last.patient(), 1);
+            }
+        }
+    }
+
+    private static Patient stateBefore(PatientChangedEvent event) {
+        return switch (event.type()) {
+            case CREATED -> null;
+            case ARCHIVED -> event.patient();
+            case UPDATED, STATUS_CHANGED -> event.previous();
+        };
+    }
+
+    public PatientStats snapshot() {
+        return snapshot(LocalDate.now());
+    }
+
+    PatientStats snapshot(LocalDate today) {
+        Counters current = counters;
+        Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+        for (String dimension : DIMENSIONS) {
+            counts.put(dimension, sortedByCount(current.byDimension.get(dimension)));
+        }
+        counts.put("ageBand", ageBands(current.byBirthDay, today));
+        return new PatientStats(current.total.sum(), counts, builtAt == null ? null : builtAt.toString());
+    }
+
+    // Ids whose changes were delivered before their chunk was read are recorded in skipped, for settle()
+    private Counters scan(long maxId, Set<Long> skipped) {
+        Counters fresh = new Counters();
+        AtomicLong nextChunk = new AtomicLong(1);
+        ExecutorService pool = Executors.newFixedThreadPool(scanThreads, new ScanThreadFactory());
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(scanThreads);
+            for (int w = 0; w < scanThreads; w++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    long from;
+                    while ((from = nextChunk.getAndAdd(CHUNK_SIZE)) <= maxId) {
+                        long to = Math.min(maxId, from + CHUNK_SIZE - 1);
+                        List<PatientStatsView> rows =
+                                patientRepository.findByIdBetween(from, to, PatientStatsView.class);
+                        // Changes already delivered are settled later, whether or not the read saw them
+                        for (Long id : idsChangedDuringScan) {
+                            if (id >= from && id <= to) {
+                                skipped.add(id);
+                            }
+                        }
+                        for (PatientStatsView row : rows) {
+                            if (skipped.contains(row.getId())) {
+                                continue;
+                            }
+                            fresh.add(row.getGender(), row.getBloodGroup(), row.getCity(), row.getState(),
+                                    row.getStatus(), row.getInsuranceProvider(), row.getDateOfBirth(), 1);
+                        }
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } finally {
+            pool.shutdownNow();
+        }
+        return fresh;
+    }
+
+    private static void apply(Counters target, PatientChangedEvent event) {
+        if (event.type() == PatientChangedEvent.ChangeType.ARCHIVED) {
+            // Archived rows leave the table and the counts
+            add(target, event.patient(), -1);
+            return;
+        }
+        if (event.previous() != null) {
+            add(target, event.previous(), -1);
+        }
+        add(target, event.patient(), 1);
+    }
+
+    private static void add(Counters target, Patient patient, int delta) {
+        target.add(patient.getGender(), patient.getBloodGroup(), patient.getCity(), patient.getState(),
+                patient.getStatus(), patient.getInsuranceProvider(), patient.getDateOfBirth(), delta);
+    }
+
+    private static Map<String, Long> sortedByCount(Map<String, LongAdder> counts) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(counts.size());
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > 0) {
+                entries.add(Map.entry(entry.getKey(), count));
+            }
+        }
+        entries.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    private static Map<String, Long> ageBands(Map<Long, LongAdder> byBirthDay, LocalDate today) {
+        long[] bands = new long[AGE_BANDS.length];
+        long unknown = 0;
+        for (Map.Entry<Long, LongAdder> entry : byBirthDay.entrySet()) {
+            long count = entry.getValue().sum();
+            if (entry.getKey() == Long.MIN_VALUE) {
+                unknown += count;
+                continue;
+            }
+            int age = LocalDate.ofEpochDay(entry.getKey()).until(today).getYears();
+            int band = AGE_BAND_STARTS.length - 1;
+            while (band > 0 && age < AGE_BAND_STARTS[band]) {
+                band--;
+            }
+            bands[band] += count;
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < AGE_BANDS.length; i++) {
+            result.put(AGE_BANDS[i], bands[i]);
+        }
+        if (unknown > 0) {
+            result.put(UNKNOWN, unknown);
+        }
+        return result;
+    }
+
+    // One set of counters; replaced wholesale by each scan
+    private static final class Counters {
+        private final LongAdder total = new LongAdder();
+        private final Map<String, ConcurrentHashMap<String, LongAdder>> byDimension = new LinkedHashMap<>();
+        // Epoch day of birth -> count; Long.MIN_VALUE counts unknown dates
+        private final ConcurrentHashMap<Long, LongAdder> byBirthDay = new ConcurrentHashMap<>();
+
+        Counters() {
+            for (String dimension : DIMENSIONS) {
+                byDimension.put(dimension, new ConcurrentHashMap<>());
+            }
+        }
+
+        void add(Enum<?> gender, String bloodGroup, String city, String state, Enum<?> status,
+                String insuranceProvider, LocalDate dateOfBirth, int delta) {
+            total.add(delta);
+            increment("gender", gender == null ? null : gender.name(), delta);
+            increment("bloodGroup", bloodGroup, delta);
+            increment("city", city, delta);
+            increment("state", state, delta);
+            increment("status", status == null ? null : status.name(), delta);
+            increment("insuranceProvider", insuranceProvider, delta);
+            long day = dateOfBirth == null ? Long.MIN_VALUE : dateOfBirth.toEpochDay();
+            byBirthDay.computeIfAbsent(day, k -> new LongAdder()).add(delta);
+        }
+
+        private void increment(String dimension, String value, int delta) {
+            String key = value == null || value.isBlank() ? UNKNOWN : value;
+            byDimension.get(dimension).computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        }
+
+        // Sum of absolute differences over every counter
+        long distanceTo(Counters other) {
+            long distance = Math.abs(total.sum() - other.total.sum());
+            for (String dimension : DIMENSIONS) {
+                distance += distance(byDimension.get(dimension), other.byDimension.get(dimension));
+            }
+            return distance + distance(byBirthDay, other.byBirthDay);
+        }
+
+        private static <K> long distance(Map<K, LongAdder> a, Map<K, LongAdder> b) {
+            long distance = 0;
+            for (Map.Entry<K, LongAdder> entry : a.entrySet()) {
+                LongAdder other = b.get(entry.getKey());
+                distance += Math.abs(entry.getValue().sum() - (other == null ? 0 : other.sum()));
+            }
+            for (Map.Entry<K, LongAdder> entry : b.entrySet()) {
+                if (!a.containsKey(entry.getKey())) {
+                    distance += Math.abs(entry.getValue().sum());
+                }
+            }
+            return distance;
+        }
+    }
+
+    private static final class ScanThreadFactory implements ThreadFactory {
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "patient-stats-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
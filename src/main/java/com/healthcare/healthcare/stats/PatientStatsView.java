@@ -0,0 +1,25 @@
+package com.healthcare.healthcare.stats;
+
+import java.time.LocalDate;
+
+import com.healthcare.healthcare.entity.Patient;
+
+// Columns read by the statistics scan; used as a Spring Data projection
+public interface PatientStatsView {
+
+    Long getId();
+
+    Patient.Gender getGender();
+
+    String getBloodGroup();
+
+    String getCity();
+
+    String getState();
+
+    Patient.PatientStatus getStatus();
+
+    String getInsuranceProvider();
+
+    LocalDate getDateOfBirth();
+}
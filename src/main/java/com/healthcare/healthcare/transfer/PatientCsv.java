@@ -0,0 +1,59 @@
+package com.healthcare.healthcare.transfer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * CSV layout of a patient: one column per JSON property of {@code Patient},
+ * in entity order, with a header row. Dates use the same ISO format as the
+ * JSON API so an export can be imported again unchanged.
+ */
+final class PatientCsv {
+
+    static final CsvSchema SCHEMA = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("patientId")
+            .addColumn("firstName")
+            .addColumn("lastName")
+            .addColumn("dateOfBirth")
+            .addColumn("gender")
+            .addColumn("phoneNumber")
+            .addColumn("email")
+            .addColumn("address")
+            .addColumn("city")
+            .addColumn("state")
+            .addColumn("zipCode")
+            .addColumn("country")
+            .addColumn("bloodGroup")
+            .addColumn("emergencyContactName")
+            .addColumn("emergencyContactPhone")
+            .addColumn("emergencyContactRelation")
+            .addColumn("insuranceNumber")
+            .addColumn("insuranceProvider")
+            .addColumn("maritalStatus")
+            .addColumn("occupation")
+            .addColumn("nationality")
+            .addColumn("identificationType")
+            .addColumn("identificationNumber")
+            .addColumn("registrationDate")
+            .addColumn("lastVisitDate")
+            .addColumn("status")
+            .addColumn("createdAt")
+            .addColumn("updatedAt")
+            .build()
+            .withHeader();
+
+    private PatientCsv() {
+    }
+
+    static CsvMapper mapper() {
+        return CsvMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .enable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+                .build();
+    }
+}
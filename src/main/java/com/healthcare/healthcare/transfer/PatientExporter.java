@@ -0,0 +1,62 @@
+package com.healthcare.healthcare.transfer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.healthcare.healthcare.service.PatientService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes every patient as CSV or NDJSON, optionally gzip-compressed.
+ *
+ * <p>Rows come from {@link PatientService#streamAllPatients}, a forward-only
+ * cursor that detaches each entity after it is written, and go out through a
+ * fixed-size buffer, so memory use does not depend on the table size.
+ */
+@Component
+@Slf4j
+public class PatientExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PatientService patientService;
+    private final ObjectWriter ndjsonWriter;
+    private final ObjectWriter csvWriter;
+
+    public PatientExporter(PatientService patientService, ObjectMapper objectMapper) {
+        this.patientService = patientService;
+        this.ndjsonWriter = objectMapper.writer().withRootValueSeparator("\n");
+        this.csvWriter = PatientCsv.mapper().writer(PatientCsv.SCHEMA);
+    }
+
+    // Returns the number of patients written; closes the stream
+    public long export(TransferFormat format, boolean gzip, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        OutputStream target = gzip
+                ? new GZIPOutputStream(out, BUFFER_SIZE)
+                : new BufferedOutputStream(out, BUFFER_SIZE);
+        ObjectWriter writer = format == TransferFormat.CSV ? csvWriter : ndjsonWriter;
+        long count;
+        try (SequenceWriter rows = writer.writeValues(target)) {
+            count = patientService.streamAllPatients(patient -> {
+                try {
+                    rows.write(patient);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        log.info("Exported {} patients as {}{} in {} ms", count, format.extension(), gzip ? ".gz" : "",
+                (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+}
@@ -0,0 +1,225 @@
+package com.healthcare.healthcare.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.healthcare.healthcare.dto.ImportReport;
+import com.healthcare.healthcare.dto.ImportReport.RowError;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.service.PatientService;
+
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads patients from a CSV or NDJSON stream and inserts them in chunks.
+ *
+ * <p>Rows are parsed one at a time and buffered only up to the chunk size, so
+ * the file is never held in memory. Each row is checked against the same
+ * bean validation constraints as a create request before it joins a chunk; a
+ * chunk goes to {@link PatientService#createPatients} in its own transaction.
+ * If a chunk fails as a whole, its rows are retried one by one so a single bad
+ * row does not reject its neighbours. Database ids and audit timestamps in the
+ * input are ignored; {@code patientId} must be new.
+ */
+@Component
+@Slf4j
+public class PatientImporter {
+
+    private final PatientService patientService;
+    private final PatientRepository patientRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = PatientCsv.mapper();
+    private final int chunkSize;
+
+    public PatientImporter(PatientService patientService, PatientRepository patientRepository, Validator validator,
+            ObjectMapper objectMapper, @Value("${healthcare.patients.import.chunk-size:1000}") int chunkSize) {
+        this.patientService = patientService;
+        this.patientRepository = patientRepository;
+        this.validator = validator;
+        // Unknown columns (e.g. from a newer export) are skipped rather than failing the row
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReport importPatients(TransferFormat format, boolean gzip, InputStream in) throws IOException {
+        long start = System.nanoTime();
+        Run run = new Run();
+        try (InputStream source = gzip ? new GZIPInputStream(in) : in) {
+            if (format == TransferFormat.CSV) {
+                readCsv(source, run);
+            } else {
+                readNdjson(source, run);
+            }
+            run.complete = true;
+        } catch (IOException | RuntimeException e) {
+            // Malformed input: keep what was imported so far and report where it stopped
+            run.errors.add(new RowError(run.rowsRead + 1, null, "Input unreadable, import stopped: " + e.getMessage()));
+        }
+        run.flush();
+        log.info("Imported {} of {} patients ({} rejected) in {} ms", run.imported, run.rowsRead, run.rejected,
+                (System.nanoTime() - start) / 1_000_000);
+        return new ImportReport(run.rowsRead, run.imported, run.rejected, run.complete, run.errors);
+    }
+
+    private void readCsv(InputStream source, Run run) throws IOException {
+        CsvSchema schema = CsvSchema.emptySchema().withHeader();
+        try (MappingIterator<Map<String, String>> rows = csvMapper.readerForMapOf(String.class)
+                .with(schema)
+                .readValues(source)) {
+            while (rows.hasNextValue()) {
+                Map<String, String> row = rows.nextValue();
+                // Empty cells mean "not set", not an empty string
+                row.values().removeIf(value -> value == null || value.isEmpty());
+                run.rowsRead++;
+                try {
+                    run.add(objectMapper.convertValue(row, Patient.class));
+                } catch (IllegalArgumentException e) {
+                    run.error(run.rowsRead, row.get("patientId"), "Invalid value: " + rootMessage(e));
+                }
+            }
+        }
+    }
+
+    private void readNdjson(InputStream source, Run run) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(source, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            run.rowsRead++;
+            try {
+                run.add(objectMapper.readValue(line, Patient.class));
+            } catch (JsonProcessingException e) {
+                run.error(run.rowsRead, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof JsonProcessingException json ? json.getOriginalMessage() : cause.getMessage();
+    }
+
+    // Every violated constraint, named like ValidationExceptionHandler names them, or null when the row is valid
+    private String validate(Patient patient) {
+        // Creates generate a patientId; imports must bring their own
+        if (patient.getPatientId() == null || patient.getPatientId().isBlank()) {
+            return "patientId is required";
+        }
+        String problems = validator.validate(patient).stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        return problems.isEmpty() ? null : problems;
+    }
+
+    // State of one import: counters plus the chunk being filled
+    private final class Run {
+
+        private final List<Patient> chunk = new ArrayList<>(chunkSize);
+        private final List<Long> chunkRows = new ArrayList<>(chunkSize);
+        private final Set<String> chunkPatientIds = new HashSet<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+        private boolean complete;
+
+        void add(Patient patient) {
+            String problem = validate(patient);
+            if (problem == null && !chunkPatientIds.add(patient.getPatientId())) {
+                problem = "Duplicate patientId in input";
+            }
+            if (problem != null) {
+                error(rowsRead, patient.getPatientId(), problem);
+                return;
+            }
+            patient.setId(null);
+            patient.setCreatedAt(null);
+            patient.setUpdatedAt(null);
+            chunk.add(patient);
+            chunkRows.add(rowsRead);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Set<String> existing = new HashSet<>(patientRepository.findExistingPatientIds(chunkPatientIds));
+            List<Patient> fresh = new ArrayList<>(chunk.size());
+            List<Long> freshRows = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Patient patient = chunk.get(i);
+                if (existing.contains(patient.getPatientId())) {
+                    error(chunkRows.get(i), patient.getPatientId(), "patientId already exists");
+                } else {
+                    fresh.add(patient);
+                    freshRows.add(chunkRows.get(i));
+                }
+            }
+            chunk.clear();
+            chunkRows.clear();
+            // Ids seen in earlier chunks stay reserved: the database check covers them from here on
+            chunkPatientIds.clear();
+            if (fresh.isEmpty()) {
+                return;
+            }
+            try {
+                imported += patientService.createPatients(fresh).size();
+            } catch (RuntimeException e) {
+                log.warn("Import chunk of {} rows failed, retrying row by row: {}", fresh.size(), e.getMessage());
+                insertOneByOne(fresh, freshRows);
+            }
+        }
+
+        private void insertOneByOne(List<Patient> patients, List<Long> rows) {
+            for (int i = 0; i < patients.size(); i++) {
+                Patient patient = patients.get(i);
+                // The failed batch may have assigned an id before rolling back
+                patient.setId(null);
+                try {
+                    patientService.createPatient(patient);
+                    imported++;
+                } catch (RuntimeException e) {
+                    error(rows.get(i), patient.getPatientId(), "Insert failed: " + rootMessage(e));
+                }
+            }
+        }
+
+        void error(long row, String patientId, String message) {
+            rejected++;
+            if (errors.size() < ImportReport.MAX_ERRORS) {
+                errors.add(new RowError(row, patientId, message));
+            }
+        }
+    }
+}
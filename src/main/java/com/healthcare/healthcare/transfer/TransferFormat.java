@@ -0,0 +1,52 @@
+package com.healthcare.healthcare.transfer;
+
+import java.util.Locale;
+
+import org.springframework.http.MediaType;
+
+// File formats accepted by the patient export and import endpoints
+public enum TransferFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    TransferFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static TransferFormat fromParam(String format) {
+        if (format == null || format.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown format: " + format + " (expected csv or ndjson)");
+        }
+    }
+
+    public static TransferFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType type = MediaType.parseMediaType(contentType);
+            for (TransferFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(type)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content type: " + contentType
+                + " (expected text/csv or application/x-ndjson)");
+    }
+}
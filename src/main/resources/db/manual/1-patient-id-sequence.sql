@@ -0,0 +1,14 @@
+-- Manual upgrade script; the application never runs it. Apply the scripts in this directory in numeric
+-- order, each once, to a file or server database created by an older version, before starting the new one,
+-- starting from the first script that version did not have,
+-- e.g. java -cp h2.jar org.h2.tools.RunScript -url <url> -script 1-patient-id-sequence.sql
+-- The in-memory database is generated from the entities and needs none of them.
+--
+-- Patient ids came from an identity column; they now come from patients_seq, which Hibernate reads once
+-- per 100 inserts (allocationSize = 100). A value V read from the sequence hands out V-99..V, so the
+-- sequence starts 100 above the largest existing id.
+
+ALTER TABLE patients ALTER COLUMN id DROP IDENTITY;
+
+CREATE SEQUENCE patients_seq START WITH 100 INCREMENT BY 100;
+ALTER SEQUENCE patients_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 100 FROM patients);
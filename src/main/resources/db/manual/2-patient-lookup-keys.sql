@@ -0,0 +1,21 @@
+-- Manual upgrade script, applied after 1-patient-id-sequence.sql (see there).
+--
+-- Email and phone lookups match on normalized copies of the columns, which the entity fills on every
+-- write (PatientKeys): the email trimmed and lower-cased, the phone number reduced to its digits, each
+-- null when nothing is left. Existing rows are backfilled the same way. Lookup and filter columns are
+-- indexed, and age searches become date-of-birth ranges.
+
+ALTER TABLE patients ADD COLUMN email_normalized VARCHAR(100);
+ALTER TABLE patients ADD COLUMN phone_digits VARCHAR(15);
+
+UPDATE patients SET
+    email_normalized = NULLIF(LOWER(TRIM(email)), ''),
+    phone_digits = NULLIF(REGEXP_REPLACE(phone_number, '[^0-9]', ''), '');
+
+CREATE INDEX idx_patients_email_normalized ON patients (email_normalized);
+CREATE INDEX idx_patients_phone_digits ON patients (phone_digits);
+CREATE INDEX idx_patients_identification_number ON patients (identification_number);
+CREATE INDEX idx_patients_city ON patients (city);
+CREATE INDEX idx_patients_blood_group ON patients (blood_group);
+CREATE INDEX idx_patients_gender ON patients (gender);
+CREATE INDEX idx_patients_date_of_birth ON patients (date_of_birth);
@@ -0,0 +1,18 @@
+-- Manual upgrade script, applied after 2-patient-lookup-keys.sql (see 1-patient-id-sequence.sql).
+--
+-- Patient IDs are handed out in blocks recorded in id_allocations; PatientIdAllocator adds its row on
+-- first use, above the largest existing patient ID. Creates carrying an Idempotency-Key are remembered in
+-- idempotency_keys, and the purge of expired keys scans by creation time.
+
+CREATE TABLE id_allocations (
+    name VARCHAR(50) NOT NULL PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(100) NOT NULL PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    patient_id VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
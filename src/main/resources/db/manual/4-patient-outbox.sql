@@ -0,0 +1,14 @@
+-- Manual upgrade script, applied after 3-patient-id-allocation.sql (see 1-patient-id-sequence.sql).
+--
+-- Patient changes are written to patient_outbox in the transaction that makes them and relayed to the
+-- change log from there. Outbox ids come from patient_outbox_seq, 100 at a time like patient ids.
+
+CREATE SEQUENCE patient_outbox_seq START WITH 1 INCREMENT BY 100;
+
+CREATE TABLE patient_outbox (
+    id BIGINT NOT NULL PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    patient_id VARCHAR(20) NOT NULL,
+    payload CLOB NOT NULL,
+    occurred_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,30 @@
+-- Manual upgrade script, applied after 4-patient-outbox.sql (see 1-patient-id-sequence.sql).
+--
+-- Patient status was stored as its enum ordinal; it is now stored by name
+-- (@Enumerated(EnumType.STRING)).
+-- Ordinals follow the declaration order at the time:
+-- ACTIVE, INACTIVE, DECEASED, TRANSFERRED.
+
+ALTER TABLE patients ADD COLUMN status_name VARCHAR(20);
+
+UPDATE patients SET status_name = CASE status
+    WHEN 0 THEN 'ACTIVE'
+    WHEN 1 THEN 'INACTIVE'
+    WHEN 2 THEN 'DECEASED'
+    WHEN 3 THEN 'TRANSFERRED'
+END;
+
+ALTER TABLE patients ALTER COLUMN status_name SET NOT NULL;
+ALTER TABLE patients DROP COLUMN status;
+ALTER TABLE patients RENAME COLUMN status_name TO status;
+ALTER TABLE patients ADD CONSTRAINT ck_patients_status
+    CHECK (status IN ('ACTIVE', 'INACTIVE', 'DECEASED', 'TRANSFERRED'));
+
+-- Status-led indexes replace the single-column city, blood group and date of birth indexes
+DROP INDEX IF EXISTS idx_patients_city;
+DROP INDEX IF EXISTS idx_patients_blood_group;
+DROP INDEX IF EXISTS idx_patients_date_of_birth;
+CREATE INDEX idx_patients_status_id ON patients (status, id);
+CREATE INDEX idx_patients_status_city ON patients (status, city, id);
+CREATE INDEX idx_patients_status_blood_group ON patients (status, blood_group, id);
+CREATE INDEX idx_patients_status_date_of_birth ON patients (status, date_of_birth);
@@ -0,0 +1,10 @@
+-- Manual upgrade script, applied after 5-patient-status-by-name.sql (see 1-patient-id-sequence.sql).
+--
+-- Patients carry a row version (@Version) for optimistic locking and ETags, and list ETags read
+-- MAX(updated_at).
+
+ALTER TABLE patients ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+CREATE INDEX idx_patients_updated_at ON patients (updated_at);
+
+-- PatientArchiver refuses to start while the archive lacks a patient column
+ALTER TABLE IF EXISTS patients_archive ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
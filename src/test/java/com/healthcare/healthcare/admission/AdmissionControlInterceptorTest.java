@@ -0,0 +1,169 @@
+package com.healthcare.healthcare.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+
+class AdmissionControlInterceptorTest {
+
+	@Test
+	void clientsOverTheirRateGet429WithTheWaitAsRetryAfter() throws Exception {
+		// One token per second and bursts of 10, so a single bulk call empties the bucket
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		AdmissionControlInterceptor interceptor = interceptor(meterRegistry, 1, 10, 4, 2);
+		MockHttpServletRequest first = request();
+		assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), handler("list"))).isTrue();
+		interceptor.afterCompletion(first, new MockHttpServletResponse(), handler("list"), null);
+
+		MockHttpServletResponse bulk = new MockHttpServletResponse();
+		assertThat(interceptor.preHandle(request(), bulk, handler("list"))).isFalse();
+		assertThat(bulk.getStatus()).isEqualTo(429);
+		assertThat(bulk.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("10");
+		assertThat(bulk.getContentAsString()).contains("\"success\":false");
+
+		MockHttpServletResponse lookup = new MockHttpServletResponse();
+		assertThat(interceptor.preHandle(request(), lookup, handler("lookup"))).isFalse();
+		assertThat(lookup.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+		assertThat(meterRegistry.get("patients.admission.rejected").tags("reason", "rate_limited", "priority", "bulk")
+				.counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("patients.admission.rejected").tags("reason", "rate_limited",
+				"priority", "interactive").counter().count()).isEqualTo(1);
+		// Prometheus, for one, refuses a second meter of the same name with other tag keys
+		assertThat(meterRegistry.get("patients.admission.rejected").meters())
+				.hasSize(4)
+				.allSatisfy(meter -> assertThat(meter.getId().getTags())
+						.extracting(Tag::getKey)
+						.containsExactlyInAnyOrder("reason", "priority"));
+	}
+
+	@Test
+	void believesTheClientHeaderOnlyFromATrustedProxy() throws Exception {
+		// Slots are never released here, so allow enough of them
+		AdmissionControlInterceptor interceptor = interceptor(1, 10, 64, 8);
+		assertThat(interceptor.preHandle(from("10.0.0.1", "a"), new MockHttpServletResponse(), handler("list")))
+				.isTrue();
+		// A new id from the same caller is still the same caller
+		assertThat(interceptor.preHandle(from("10.0.0.1", "b"), new MockHttpServletResponse(), handler("lookup")))
+				.isFalse();
+
+		assertThat(interceptor.preHandle(from("10.0.0.9", "a"), new MockHttpServletResponse(), handler("list")))
+				.isTrue();
+		assertThat(interceptor.preHandle(from("10.0.0.9", "b"), new MockHttpServletResponse(), handler("list")))
+				.isTrue();
+		assertThat(interceptor.preHandle(from("10.0.0.9", "a"), new MockHttpServletResponse(), handler("lookup")))
+				.isFalse();
+
+		// A signed-in user is limited as that user, whatever the header says
+		MockHttpServletRequest signedIn = from("10.0.0.9", "c");
+		signedIn.setUserPrincipal(() -> "b");
+		assertThat(interceptor.preHandle(signedIn, new MockHttpServletResponse(), handler("list"))).isTrue();
+		signedIn = from("10.0.0.9", "d");
+		signedIn.setUserPrincipal(() -> "b");
+		assertThat(interceptor.preHandle(signedIn, new MockHttpServletResponse(), handler("lookup"))).isFalse();
+	}
+
+	@Test
+	void asyncResponsesHoldTheirSlotUntilTheyComplete() throws Exception {
+		AdmissionControlInterceptor interceptor = interceptor(1000, 1000, 2, 1);
+		MockHttpServletRequest streaming = request();
+		assertThat(interceptor.preHandle(streaming, new MockHttpServletResponse(), handler("list"))).isTrue();
+		streaming.startAsync();
+		interceptor.afterConcurrentHandlingStarted(streaming, new MockHttpServletResponse(), handler("list"));
+
+		MockHttpServletResponse shed = new MockHttpServletResponse();
+		assertThat(interceptor.preHandle(request(), shed, handler("list"))).isFalse();
+		assertThat(shed.getStatus()).isEqualTo(503);
+		assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+		// Lookups keep the slot bulk calls cannot take
+		MockHttpServletRequest lookup = request();
+		assertThat(interceptor.preHandle(lookup, new MockHttpServletResponse(), handler("lookup"))).isTrue();
+		interceptor.afterCompletion(lookup, new MockHttpServletResponse(), handler("lookup"), null);
+
+		// The async dispatch that writes the result is neither admitted nor released again
+		streaming.setDispatcherType(DispatcherType.ASYNC);
+		assertThat(interceptor.preHandle(streaming, new MockHttpServletResponse(), handler("list"))).isTrue();
+		interceptor.afterCompletion(streaming, new MockHttpServletResponse(), handler("list"), null);
+		assertThat(interceptor.preHandle(request(), new MockHttpServletResponse(), handler("list"))).isFalse();
+
+		((MockAsyncContext) streaming.getAsyncContext()).complete();
+		assertThat(interceptor.preHandle(request(), new MockHttpServletResponse(), handler("list"))).isTrue();
+	}
+
+	@Test
+	void sizedEndpointsAreBulkOnlyAboveTheirInteractiveSize() throws Exception {
+		assertThat(AdmissionControlInterceptor.classify(handler("lookup"), request()))
+				.isEqualTo(AdmissionControlInterceptor.Priority.INTERACTIVE);
+		assertThat(AdmissionControlInterceptor.classify(handler("list"), request()))
+				.isEqualTo(AdmissionControlInterceptor.Priority.BULK);
+		assertThat(AdmissionControlInterceptor.classify(handler("query"), request()))
+				.isEqualTo(AdmissionControlInterceptor.Priority.INTERACTIVE);
+		assertThat(AdmissionControlInterceptor.classify(handler("query"), request("size", "100")))
+				.isEqualTo(AdmissionControlInterceptor.Priority.INTERACTIVE);
+		assertThat(AdmissionControlInterceptor.classify(handler("query"), request("size", "101")))
+				.isEqualTo(AdmissionControlInterceptor.Priority.BULK);
+		assertThat(AdmissionControlInterceptor.classify(handler("query"), request("size", "lots")))
+				.isEqualTo(AdmissionControlInterceptor.Priority.BULK);
+	}
+
+	private static AdmissionControlInterceptor interceptor(double ratePerSecond, int burst, int maxConcurrent,
+			int maxConcurrentBulk) {
+		return interceptor(new SimpleMeterRegistry(), ratePerSecond, burst, maxConcurrent, maxConcurrentBulk);
+	}
+
+	private static AdmissionControlInterceptor interceptor(MeterRegistry meterRegistry, double ratePerSecond,
+			int burst, int maxConcurrent, int maxConcurrentBulk) {
+		return new AdmissionControlInterceptor(new ObjectMapper(), meterRegistry, true, "X-Client-Id",
+				Set.of("10.0.0.9"), ratePerSecond, burst, 10, 100, 100, maxConcurrent, maxConcurrentBulk,
+				Duration.ofSeconds(2));
+	}
+
+	private static MockHttpServletRequest request(String... parameters) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/patients");
+		request.setAsyncSupported(true);
+		for (int i = 0; i < parameters.length; i += 2) {
+			request.setParameter(parameters[i], parameters[i + 1]);
+		}
+		return request;
+	}
+
+	private static MockHttpServletRequest from(String remoteAddress, String clientId) {
+		MockHttpServletRequest request = request();
+		request.setRemoteAddr(remoteAddress);
+		request.addHeader("X-Client-Id", clientId);
+		return request;
+	}
+
+	private static HandlerMethod handler(String name) throws NoSuchMethodException {
+		return new HandlerMethod(new Endpoints(), name);
+	}
+
+	public static class Endpoints {
+
+		public void lookup() {
+		}
+
+		@BulkEndpoint
+		public void list() {
+		}
+
+		@BulkEndpoint(sizeParameter = "size", interactiveUpTo = 100)
+		public void query() {
+		}
+	}
+}
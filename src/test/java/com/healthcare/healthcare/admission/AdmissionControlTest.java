@@ -0,0 +1,50 @@
+package com.healthcare.healthcare.admission;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Admission through the application's own handler mappings: requests are
+ * charged by the handler they reach, however the path is spelled.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:admission",
+		// Bursts of 25 tokens that do not refill during the test; bulk calls cost 10
+		"healthcare.admission.rate-per-second=0.001",
+		"healthcare.admission.burst=25",
+		"healthcare.admission.bulk-cost=10"
+})
+@AutoConfigureMockMvc
+class AdmissionControlTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void chargesRequestsByTheHandlerTheyReach() throws Exception {
+		// Neither a context path nor a path parameter hides the list endpoint
+		mockMvc.perform(get("/app/api/v1/patients;v=1").contextPath("/app"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/v1/patients/analytics/count"))
+				.andExpect(status().isOk());
+
+		// Five tokens left: a large query page is bulk, the default page and a lookup are not
+		mockMvc.perform(get("/api/v1/patients/query").param("size", "500"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+		mockMvc.perform(get("/api/v1/patients/query"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/v1/patients/P00000001"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/api/v1/patients/by-age").param("min", "0").param("max", "120"))
+				.andExpect(status().isTooManyRequests());
+	}
+}
@@ -0,0 +1,68 @@
+package com.healthcare.healthcare.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class ClientRateLimiterTest {
+
+	private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(5));
+
+	@Test
+	void eachClientGetsItsBurstThenItsRate() {
+		// 10 tokens per second, bursts of 3
+		ClientRateLimiter limiter = new ClientRateLimiter(10, 3, 100, 100, clock::get);
+
+		assertThat(limiter.tryAcquire("a", "10.0.0.1", 1)).isZero();
+		assertThat(limiter.tryAcquire("a", "10.0.0.1", 2)).isZero();
+		assertThat(limiter.tryAcquire("a", "10.0.0.1", 1)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(limiter.tryAcquire("b", "10.0.0.1", 3)).isZero();
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(limiter.tryAcquire("a", "10.0.0.1", 1)).isZero();
+		assertThat(limiter.tryAcquire("a", "10.0.0.1", 2)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+	}
+
+	@Test
+	void idleClientsAreEvictedAndNewClientsFallBackToTheirAddressAtCapacity() {
+		ClientRateLimiter limiter = new ClientRateLimiter(10, 2, 2, 100, clock::get);
+		limiter.tryAcquire("a", "10.0.0.1", 2);
+		limiter.tryAcquire("b", "10.0.0.2", 2);
+
+		// Both still limited, so new clients are charged to the address they came from
+		assertThat(limiter.tryAcquire("c", "10.0.0.3", 2)).isZero();
+		assertThat(limiter.tryAcquire("d", "10.0.0.3", 1)).isPositive();
+		assertThat(limiter.tryAcquire("e", "10.0.0.4", 2)).isZero();
+		assertThat(limiter.clients()).isEqualTo(4);
+
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertThat(limiter.evictIdle()).isEqualTo(4);
+		assertThat(limiter.tryAcquire("d", "10.0.0.3", 2)).isZero();
+		assertThat(limiter.clients()).isEqualTo(1);
+	}
+
+	@Test
+	void oneAddressCannotMintBucketsPastItsShare() {
+		ClientRateLimiter limiter = new ClientRateLimiter(10, 2, 100, 2, clock::get);
+		assertThat(limiter.tryAcquire("a", "10.0.0.1", 2)).isZero();
+		assertThat(limiter.tryAcquire("b", "10.0.0.1", 2)).isZero();
+
+		// Further ids from the same address share its bucket instead of getting fresh bursts
+		assertThat(limiter.tryAcquire("c", "10.0.0.1", 2)).isZero();
+		assertThat(limiter.tryAcquire("d", "10.0.0.1", 1)).isPositive();
+		assertThat(limiter.tryAcquire("10.0.0.1", "10.0.0.1", 1)).isPositive();
+		// Clients from elsewhere still get their own
+		assertThat(limiter.tryAcquire("e", "10.0.0.2", 2)).isZero();
+		assertThat(limiter.clients()).isEqualTo(4);
+
+		// Once its clients go idle, the address has room again
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		limiter.evictIdle();
+		assertThat(limiter.tryAcquire("c", "10.0.0.1", 2)).isZero();
+		assertThat(limiter.tryAcquire("d", "10.0.0.1", 2)).isZero();
+		assertThat(limiter.clients()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,191 @@
+package com.healthcare.healthcare.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.healthcare.dto.PatientAnalyticsQuery;
+import com.healthcare.healthcare.dto.PatientCountResult;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.event.PatientChangedEvent.ChangeType;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+class PatientColumnStoreTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+	private final PatientColumnStore store = new PatientColumnStore(null, 2);
+
+	@AfterEach
+	void shutdown() {
+		store.shutdown();
+	}
+
+	@Test
+	void countsPatientsMatchingEveryFilter() {
+		changed(ChangeType.CREATED, patient(1L, "Texas", "O-", null, LocalDate.of(1960, 1, 1)));
+		changed(ChangeType.CREATED, patient(2L, "Texas", "O-", "Aetna", LocalDate.of(1955, 3, 3)));
+		// Turns 60 tomorrow
+		changed(ChangeType.CREATED, patient(3L, "Texas", "O-", " ", LocalDate.of(1965, 6, 16)));
+		changed(ChangeType.CREATED, patient(4L, "Ohio", "O-", null, LocalDate.of(1950, 1, 1)));
+		changed(ChangeType.CREATED, patient(5L, "Texas", "O-", null, LocalDate.of(1940, 1, 1))
+				.toBuilder().status(Patient.PatientStatus.DECEASED).build());
+
+		PatientCountResult uninsured = store.count(query("texas", "O-", "unknown", 60, null, null, null), TODAY);
+		assertThat(uninsured.count()).isEqualTo(1);
+		assertThat(uninsured.rows()).isEqualTo(5);
+		assertThat(uninsured.groups()).isNull();
+
+		assertThat(store.count(query("Texas", null, null, null, null, "all", null), TODAY).count()).isEqualTo(4);
+		assertThat(store.count(query("Texas,Ohio", "o-", null, 60, 70, null, null), TODAY).count()).isEqualTo(2);
+		assertThat(store.count(query("Nevada", null, null, null, null, null, null), TODAY).count()).isZero();
+
+		PatientCountResult byState = store.count(query(null, null, null, null, null, "all", "STATE"), TODAY);
+		assertThat(byState.groups()).containsExactly(Map.entry("Texas", 4L), Map.entry("Ohio", 1L));
+	}
+
+	@Test
+	void updatesAndArchivingReplaceRows() {
+		Patient patient = patient(1L, "Texas", "A+", null, LocalDate.of(1980, 1, 1));
+		changed(ChangeType.CREATED, patient);
+		// Beyond the initial capacity
+		changed(ChangeType.CREATED, patient(10_000L, "Texas", "A+", null, LocalDate.of(1980, 1, 1)));
+		changed(ChangeType.UPDATED, patient.toBuilder().state("Ohio").insuranceProvider("Cigna").build());
+
+		assertThat(store.count(query(null, null, null, null, null, null, "state"), TODAY).groups())
+				.containsExactly(Map.entry("Ohio", 1L), Map.entry("Texas", 1L));
+		assertThat(store.count(query(null, null, "unknown", null, null, null, null), TODAY).count()).isEqualTo(1);
+
+		changed(ChangeType.ARCHIVED, patient);
+		PatientCountResult remaining = store.count(query(null, null, null, null, null, null, null), TODAY);
+		assertThat(remaining.count()).isEqualTo(1);
+		assertThat(remaining.rows()).isEqualTo(1);
+	}
+
+	@Test
+	void parallelScansMatchABruteForceCountWithAndWithoutBitmaps() {
+		SplittableRandom random = new SplittableRandom(11);
+		String[] bloodGroups = { "A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-" };
+		List<Patient> patients = new ArrayList<>();
+		// Sparse ids over several scan tasks; 400 cities is too many for per-value bitmaps
+		for (long id = 1; id < 400_000; id += 1 + random.nextInt(3)) {
+			Patient patient = patient(id, "State" + random.nextInt(50), bloodGroups[random.nextInt(8)], null,
+					LocalDate.of(1930 + random.nextInt(90), 1 + random.nextInt(12), 1 + random.nextInt(28)))
+					.toBuilder().city("City" + random.nextInt(400)).build();
+			patients.add(patient);
+			changed(ChangeType.CREATED, patient);
+		}
+
+		PatientAnalyticsQuery query = new PatientAnalyticsQuery(null, "O-,AB-", "City7,City300", null, null, null,
+				"all", null, 30, 59, "bloodGroup");
+		PatientCountResult result = store.count(query, TODAY);
+
+		LocalDate bornFrom = TODAY.minusYears(60).plusDays(1);
+		LocalDate bornTo = TODAY.minusYears(30);
+		long expected = patients.stream()
+				.filter(p -> p.getBloodGroup().equals("O-") || p.getBloodGroup().equals("AB-"))
+				.filter(p -> p.getCity().equals("City7") || p.getCity().equals("City300"))
+				.filter(p -> !p.getDateOfBirth().isBefore(bornFrom) && !p.getDateOfBirth().isAfter(bornTo))
+				.count();
+		assertThat(expected).isPositive();
+		assertThat(result.count()).isEqualTo(expected);
+		assertThat(result.groups().keySet()).containsOnly("O-", "AB-");
+		assertThat(result.groups().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(expected);
+	}
+
+	@Test
+	void loadReplaysChangesCommittedDuringTheScan() {
+		NavigableMap<Long, Patient> table = new TreeMap<>();
+		for (long id = 1; id <= 24_001; id += 800) {
+			table.put(id, patient(id, id % 1600 == 1 ? "Texas" : "Ohio", "A+", null, LocalDate.of(1970, 1, 1)));
+		}
+		PatientRepository repository = mock(PatientRepository.class);
+		when(repository.findMaxId()).thenReturn(24_001L);
+		// One scan thread reads the three 10,000-id chunks in order
+		PatientColumnStore loading = new PatientColumnStore(repository, 1);
+		when(repository.findByIdBetween(anyLong(), anyLong(), eq(PatientColumns.class))).thenAnswer(invocation -> {
+			long from = invocation.getArgument(0);
+			long to = invocation.getArgument(1);
+			if (from == 10_001) {
+				// Commits landing after the first chunk was read and before the last one is
+				commit(loading, table, ChangeType.UPDATED, table.get(1L).toBuilder().state("Nevada").build());
+				commit(loading, table, ChangeType.UPDATED, table.get(22_401L).toBuilder().state("Nevada").build());
+				commit(loading, table, ChangeType.ARCHIVED, table.get(24_001L));
+				commit(loading, table, ChangeType.CREATED,
+						patient(24_802L, "Nevada", "A+", null, LocalDate.of(1970, 1, 1)));
+			}
+			return table.subMap(from, true, to, true).values().stream().map(PatientColumns::of).toList();
+		});
+
+		try {
+			assertThat(loading.isReady()).isFalse();
+			assertThat(loading.load()).isEqualTo(table.size());
+			assertThat(loading.isReady()).isTrue();
+
+			PatientCountResult byState = loading.count(query(null, null, null, null, null, null, "state"), TODAY);
+			assertThat(byState.count()).isEqualTo(table.size());
+			assertThat(byState.groups()).isEqualTo(table.values().stream()
+					.collect(Collectors.groupingBy(Patient::getState, Collectors.counting())));
+			assertThat(byState.groups()).containsEntry("Nevada", 3L);
+		} finally {
+			loading.shutdown();
+		}
+	}
+
+	@Test
+	void rejectsUnknownEnumValuesAndDimensions() {
+		assertThatThrownBy(() -> store.count(new PatientAnalyticsQuery("robot", null, null, null, null, null, null,
+				null, null, null, null), TODAY)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> store.count(query(null, null, null, null, null, null, "zipCode"), TODAY))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private void changed(ChangeType type, Patient patient) {
+		store.onPatientChanged(new PatientChangedEvent(type, patient));
+	}
+
+	private static void commit(PatientColumnStore store, Map<Long, Patient> table, ChangeType type,
+			Patient patient) {
+		if (type == ChangeType.ARCHIVED) {
+			table.remove(patient.getId());
+		} else {
+			table.put(patient.getId(), patient);
+		}
+		store.onPatientChanged(new PatientChangedEvent(type, patient));
+	}
+
+	private static PatientAnalyticsQuery query(String state, String bloodGroup, String insuranceProvider,
+			Integer minAge, Integer maxAge, String status, String groupBy) {
+		return new PatientAnalyticsQuery(null, bloodGroup, null, state, null, null, status, insuranceProvider,
+				minAge, maxAge, groupBy);
+	}
+
+	private static Patient patient(Long id, String state, String bloodGroup, String insuranceProvider,
+			LocalDate dateOfBirth) {
+		return Patient.builder()
+				.id(id)
+				.state(state)
+				.bloodGroup(bloodGroup)
+				.insuranceProvider(insuranceProvider)
+				.dateOfBirth(dateOfBirth)
+				.gender(Patient.Gender.FEMALE)
+				.status(Patient.PatientStatus.ACTIVE)
+				.build();
+	}
+}
@@ -0,0 +1,99 @@
+package com.healthcare.healthcare.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.event.PatientChangedEvent.ChangeType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PatientLookupCacheTest {
+
+	private SimpleMeterRegistry registry;
+	private PatientLookupCache cache;
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		cache = new PatientLookupCache(100, Duration.ofMinutes(10), registry);
+	}
+
+	@Test
+	void secondaryKeysResolveThroughThePrimaryEntry() {
+		Patient patient = patient("P00000001", "jane@example.com");
+		cache.getByEmail("jane@example.com", email -> load(patient));
+
+		assertThat(cache.getByEmail("jane@example.com", email -> load(null))).contains(patient);
+		assertThat(cache.getByPatientId("P00000001", id -> load(null))).contains(patient);
+		assertThat(loads).hasValue(1);
+		assertThat(registry.get("patients.cache.lookups").tag("key", "email").tag("result", "hit").counter()
+				.count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void aSharedEmailKeepsResolvingToThePatientItsQueryFound() {
+		Patient first = patient("P00000001", "family@example.com");
+		Patient second = patient("P00000002", "family@example.com");
+		// The query answers with the lowest id
+		assertThat(cache.getByEmail("family@example.com", email -> load(first))).contains(first);
+		cache.getByPatientId("P00000002", id -> load(second));
+
+		assertThat(cache.getByEmail("family@example.com", email -> load(first))).contains(first);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void aLoadOverlappingAnUpdateIsNotCached() {
+		Patient before = patient("P00000001", "jane@example.com");
+		Patient after = patient("P00000001", "jane.doe@example.com");
+
+		// The update commits after the lookup read the row, but before the row reaches the cache
+		Optional<Patient> stale = cache.getByPatientId("P00000001", id -> {
+			cache.onPatientChanged(new PatientChangedEvent(ChangeType.UPDATED, after, before));
+			return load(before);
+		});
+		assertThat(stale).contains(before);
+		assertThat(cache.peekByPatientId("P00000001")).isEmpty();
+		assertThat(cache.getByPatientId("P00000001", id -> load(after))).contains(after);
+
+		// Likewise for a lookup by a key the update took away
+		cache.getByEmail("jane.doe@example.com", email -> {
+			cache.onPatientChanged(new PatientChangedEvent(ChangeType.UPDATED, before, after));
+			return load(after);
+		});
+		assertThat(cache.peekByPatientId("P00000001")).isEmpty();
+		assertThat(cache.getByEmail("jane.doe@example.com", email -> load(null))).isEmpty();
+		assertThat(loads).hasValue(4);
+	}
+
+	@Test
+	void changedKeysAreInvalidated() {
+		Patient original = patient("P00000001", "jane@example.com");
+		cache.put(original);
+
+		Patient updated = patient("P00000001", "jane.doe@example.com");
+		cache.invalidate(updated);
+
+		assertThat(cache.size()).isZero();
+		assertThat(cache.getByEmail("jane@example.com", email -> load(null))).isEmpty();
+		assertThat(loads).hasValue(1);
+	}
+
+	private Optional<Patient> load(Patient patient) {
+		loads.incrementAndGet();
+		return Optional.ofNullable(patient);
+	}
+
+	private static Patient patient(String patientId, String email) {
+		return Patient.builder().patientId(patientId).email(email).build();
+	}
+}
@@ -0,0 +1,97 @@
+package com.healthcare.healthcare.changelog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.healthcare.healthcare.dto.PatientChange;
+import com.healthcare.healthcare.entity.PatientOutboxEvent;
+import com.healthcare.healthcare.event.PatientChangedEvent.ChangeType;
+import com.healthcare.healthcare.repository.PatientOutboxRepository;
+import com.healthcare.healthcare.service.DatabaseEpoch;
+
+class ChangeLogRelayTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void restartsOverAnExistingLog() throws Exception {
+		PatientChangeLog log = open();
+		try {
+			relay(log, 1, row(1, "P00000001"), row(2, "P00000002")).relay();
+			assertThat(log.endOffset()).isEqualTo(2);
+		} finally {
+			log.close();
+		}
+
+		// Same database: row 2 was logged but its delete never committed, so it comes back with a new one
+		log = open();
+		try {
+			PatientOutboxRepository outbox = outbox(row(2, "P00000002"), row(3, "P00000003"));
+			relay(log, outbox, 1).relay();
+			assertThat(log.read(0, 10)).extracting(PatientChange::patientId)
+					.containsExactly("P00000001", "P00000002", "P00000003");
+			verify(outbox).deleteAllByIdInBatch(List.of(2L, 3L));
+		} finally {
+			log.close();
+		}
+
+		// A new in-memory database starts the outbox sequence over; its rows are not the logged ones
+		log = open();
+		try {
+			relay(log, 2, row(1, "P00000001"), row(2, "P00000007")).relay();
+			assertThat(log.endOffset()).isEqualTo(5);
+			assertThat(log.startOffset()).isEqualTo(3);
+			assertThat(log.read(3, 10)).extracting(PatientChange::patientId)
+					.containsExactly("P00000001", "P00000007");
+			PatientChangeLog reopened = log;
+			assertThatThrownBy(() -> reopened.read(0, 10)).isInstanceOf(IllegalArgumentException.class);
+		} finally {
+			log.close();
+		}
+	}
+
+	private PatientChangeLog open() throws Exception {
+		return new PatientChangeLog(dir.toString(), 4096, 16);
+	}
+
+	private static ChangeLogRelay relay(PatientChangeLog log, long epoch, PatientOutboxEvent... rows) {
+		return relay(log, outbox(rows), epoch);
+	}
+
+	private static ChangeLogRelay relay(PatientChangeLog log, PatientOutboxRepository outbox, long epoch) {
+		DatabaseEpoch databaseEpoch = mock(DatabaseEpoch.class);
+		when(databaseEpoch.value()).thenReturn(epoch);
+		return new ChangeLogRelay(outbox, log, mock(PlatformTransactionManager.class), databaseEpoch, 500);
+	}
+
+	private static PatientOutboxRepository outbox(PatientOutboxEvent... rows) {
+		PatientOutboxRepository outbox = mock(PatientOutboxRepository.class);
+		when(outbox.findByIdGreaterThanOrderByIdAsc(anyLong(), any(Limit.class))).thenReturn(List.of(rows));
+		return outbox;
+	}
+
+	private static PatientOutboxEvent row(long id, String patientId) {
+		return PatientOutboxEvent.builder()
+				.id(id)
+				.type(ChangeType.CREATED)
+				.patientId(patientId)
+				.payload("{\"patientId\":\"" + patientId + "\"}")
+				.occurredAt(Instant.ofEpochMilli(id))
+				.build();
+	}
+}
@@ -0,0 +1,134 @@
+package com.healthcare.healthcare.changelog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.healthcare.healthcare.dto.PatientChange;
+import com.healthcare.healthcare.event.PatientChangedEvent.ChangeType;
+
+class PatientChangeLogTest {
+
+	private static final int SEGMENT_SIZE = 4096;
+	private static final long EPOCH = 42;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsBackAppendedChangesByOffset() throws Exception {
+		try (Closing log = open(16)) {
+			CompletableFuture<Void> first = log.get().awaitOffset(0);
+			assertThat(first).isNotDone();
+
+			append(log.get(), 10, ChangeType.CREATED, "P00000001");
+			append(log.get(), 11, ChangeType.STATUS_CHANGED, "P00000001");
+
+			assertThat(first).isDone();
+			assertThat(log.get().endOffset()).isEqualTo(2);
+			List<PatientChange> changes = log.get().read(0, 10);
+			assertThat(changes).extracting(PatientChange::offset).containsExactly(0L, 1L);
+			assertThat(changes).extracting(PatientChange::type).containsExactly("CREATED", "STATUS_CHANGED");
+			assertThat(changes.get(1).patient()).isEqualTo(json("P00000001", 11));
+			assertThat(log.get().read(1, 10)).hasSize(1);
+			assertThat(log.get().read(2, 10)).isEmpty();
+			assertThatThrownBy(() -> log.get().read(3, 10)).isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	void rollsSegmentsAndDropsTheOldest() throws Exception {
+		try (Closing log = open(3)) {
+			for (int i = 0; i < 200; i++) {
+				append(log.get(), i + 1, ChangeType.UPDATED, String.format("P%08d", i));
+			}
+
+			assertThat(segmentFiles()).hasSize(3);
+			long start = log.get().startOffset();
+			assertThat(start).isPositive();
+			assertThatThrownBy(() -> log.get().read(start - 1, 10)).isInstanceOf(IllegalArgumentException.class);
+			// One read may cross from one segment into the next
+			List<PatientChange> changes = log.get().read(start, 1000);
+			assertThat(changes).hasSize((int) (200 - start));
+			assertThat(changes).extracting(PatientChange::patientId)
+					.containsExactlyElementsOf(Stream.iterate(start, i -> i + 1).limit(200 - start)
+							.map(i -> String.format("P%08d", i)).toList());
+		}
+	}
+
+	@Test
+	void reopensWhereItLeftOffAndCutsATornRecord() throws Exception {
+		try (Closing log = open(16)) {
+			for (int i = 0; i < 60; i++) {
+				append(log.get(), i + 1, ChangeType.CREATED, String.format("P%08d", i));
+			}
+		}
+		try (Closing log = open(16)) {
+			assertThat(log.get().endOffset()).isEqualTo(60);
+			assertThat(log.get().outboxIdsFrom(58, EPOCH)).containsExactlyInAnyOrder(59L, 60L);
+			assertThat(log.get().outboxIdsFrom(58, EPOCH + 1)).isEmpty();
+			append(log.get(), 61, ChangeType.UPDATED, "P00000060");
+			assertThat(log.get().read(60, 1).get(0).patientId()).isEqualTo("P00000060");
+		}
+
+		// Corrupt the body of the last record, as a crash in the middle of writing it would
+		Path last = segmentFiles().get(segmentFiles().size() - 1);
+		byte[] bytes = Files.readAllBytes(last);
+		int position = 0;
+		int lastRecord = 0;
+		while (toInt(bytes, position) > 0) {
+			lastRecord = position;
+			position += 8 + toInt(bytes, position);
+		}
+		bytes[lastRecord + 20] ^= 0x7f;
+		Files.write(last, bytes);
+
+		try (Closing log = open(16)) {
+			assertThat(log.get().endOffset()).isEqualTo(60);
+			append(log.get(), 62, ChangeType.UPDATED, "P00000061");
+			assertThat(log.get().read(60, 10)).extracting(PatientChange::patientId).containsExactly("P00000061");
+		}
+	}
+
+	private Closing open(int maxSegments) throws Exception {
+		return new Closing(new PatientChangeLog(dir.toString(), SEGMENT_SIZE, maxSegments));
+	}
+
+	private static void append(PatientChangeLog log, long outboxId, ChangeType type, String patientId) {
+		log.append(EPOCH, outboxId, type, patientId, Instant.ofEpochMilli(outboxId),
+				json(patientId, outboxId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String json(String patientId, long version) {
+		return "{\"patientId\":\"" + patientId + "\",\"version\":" + version + "}";
+	}
+
+	private List<Path> segmentFiles() throws Exception {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.sorted().toList();
+		}
+	}
+
+	private static int toInt(byte[] bytes, int at) {
+		return (bytes[at] & 0xff) << 24 | (bytes[at + 1] & 0xff) << 16 | (bytes[at + 2] & 0xff) << 8
+				| (bytes[at + 3] & 0xff);
+	}
+
+	private record Closing(PatientChangeLog get) implements AutoCloseable {
+
+		@Override
+		public void close() throws Exception {
+			get.close();
+		}
+	}
+}
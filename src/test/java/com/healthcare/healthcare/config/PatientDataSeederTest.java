@@ -0,0 +1,104 @@
+package com.healthcare.healthcare.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+
+import com.healthcare.healthcare.analytics.PatientColumnStore;
+import com.healthcare.healthcare.dto.PatientAnalyticsQuery;
+import com.healthcare.healthcare.dto.PatientQuery;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientsSeededEvent;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.search.PatientNameIndex;
+import com.healthcare.healthcare.search.PatientSearchIndex;
+import com.healthcare.healthcare.service.PatientService;
+import com.healthcare.healthcare.stats.PatientStatistics;
+
+/**
+ * Background seeding as the prod profile runs it: the context is ready while
+ * rows are still being written, a patient registered meanwhile does not stop
+ * seeding, and the read models built at startup catch up once it finishes.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:background-seeding",
+		"healthcare.seed.background=true",
+		"healthcare.seed.count=20000",
+		"healthcare.seed.batch-size=500"
+})
+class PatientDataSeederTest {
+
+	@Autowired
+	private SeededListener seededListener;
+
+	@Autowired
+	private PatientService patientService;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private PatientNameIndex patientNameIndex;
+
+	@Autowired
+	private PatientSearchIndex patientSearchIndex;
+
+	@Autowired
+	private PatientStatistics patientStatistics;
+
+	@Autowired
+	private PatientColumnStore patientColumnStore;
+
+	@Test
+	void readModelsMatchTheTableOnceBackgroundSeedingFinishes() throws Exception {
+		patientService.createPatient(Patient.builder()
+				.firstName("Early")
+				.lastName("Bird")
+				.dateOfBirth(LocalDate.of(1990, 1, 1))
+				.gender(Patient.Gender.FEMALE)
+				.build());
+
+		PatientsSeededEvent seeded = seededListener.seeded.get(2, TimeUnit.MINUTES);
+		assertThat(seeded.count()).isEqualTo(20_000);
+
+		// The read models rebuild on the seeder thread, after this listener may have run
+		long deadline = System.currentTimeMillis() + 60_000;
+		while (true) {
+			long rows = patientRepository.count();
+			try {
+				assertThat(rows).isEqualTo(20_001);
+				assertThat(patientNameIndex.size()).isEqualTo(rows);
+				assertThat(patientSearchIndex.search(new PatientQuery(null, null, null, null, null, "all", null, null,
+						null, null), 0, 1).total()).isEqualTo(rows);
+				assertThat(patientStatistics.snapshot().total()).isEqualTo(rows);
+				assertThat(patientColumnStore.count(new PatientAnalyticsQuery(null, null, null, null, null, null,
+						"all", null, null, null, null)).count()).isEqualTo(rows);
+				return;
+			} catch (AssertionError e) {
+				if (System.currentTimeMillis() > deadline) {
+					throw e;
+				}
+				Thread.sleep(100);
+			}
+		}
+	}
+
+	@TestConfiguration
+	static class SeededListener {
+
+		private final CompletableFuture<PatientsSeededEvent> seeded = new CompletableFuture<>();
+
+		@EventListener
+		void onSeeded(PatientsSeededEvent event) {
+			seeded.complete(event);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.healthcare.healthcare.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.service.PatientService;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// The "replica" is a second pool on the same in-memory database, so both pools see the schema
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:replica-routing",
+		"healthcare.datasource.replica.url=jdbc:h2:mem:replica-routing",
+		"healthcare.seed.enabled=false"
+})
+class ReadReplicaRoutingTest {
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private PatientService patientService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	@Qualifier("primaryDataSource")
+	private DataSource primaryDataSource;
+
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private DataSource replicaDataSource;
+
+	@Test
+	void readOnlyTransactionsUseTheReplicaPool() throws Exception {
+		TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+
+		readOnly.executeWithoutResult(status -> {
+			patientRepository.count();
+			assertThat(activeConnections(replicaDataSource)).isEqualTo(1);
+			assertThat(activeConnections(primaryDataSource)).isZero();
+		});
+	}
+
+	@Test
+	void readWriteTransactionsUseThePrimaryPool() throws Exception {
+		TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+		readWrite.executeWithoutResult(status -> {
+			patientRepository.count();
+			assertThat(activeConnections(primaryDataSource)).isEqualTo(1);
+			assertThat(activeConnections(replicaDataSource)).isZero();
+		});
+	}
+
+	@Test
+	void lookupsThatFillTheCacheReadThePrimary() {
+		String patientId = patientService.createPatient(Patient.builder()
+				.firstName("Nora")
+				.lastName("Lindqvist")
+				.email("nora@example.com")
+				.dateOfBirth(LocalDate.of(1984, 2, 3))
+				.gender(Patient.Gender.FEMALE)
+				.build()).getPatientId();
+		double replicaBefore = connectionsUsed("replica");
+		double primaryBefore = connectionsUsed("primary");
+
+		assertThat(patientService.getPatientVersion(patientId)).isPresent();
+		assertThat(patientService.getPatientById(patientId)).isPresent();
+		assertThat(patientService.getPatientByEmail("nora@example.com")).isPresent();
+
+		assertThat(connectionsUsed("replica")).isEqualTo(replicaBefore);
+		// At least; the change log relay may pick up the new patient meanwhile
+		assertThat(connectionsUsed("primary")).isGreaterThanOrEqualTo(primaryBefore + 3);
+	}
+
+	private double connectionsUsed(String pool) {
+		return meterRegistry.get("hikaricp.connections.usage").tag("pool", pool).timer().count();
+	}
+
+	private static int activeConnections(DataSource dataSource) {
+		try {
+			return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
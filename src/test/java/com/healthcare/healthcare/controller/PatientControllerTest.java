@@ -0,0 +1,213 @@
+package com.healthcare.healthcare.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.healthcare.healthcare.cache.PatientLookupCache;
+import com.healthcare.healthcare.changelog.ChangeLogRelay;
+import com.healthcare.healthcare.changelog.PatientChangeLog;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:controller")
+@AutoConfigureMockMvc
+class PatientControllerTest {
+
+	private static final String VALID = """
+			{"firstName": "Mara", "lastName": "Quinn", "dateOfBirth": "1984-02-03", "gender": "FEMALE",
+			 "email": "mara.quinn@example.com"}""";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ChangeLogRelay changeLogRelay;
+
+	@Autowired
+	private PatientChangeLog patientChangeLog;
+
+	@Autowired
+	private PatientLookupCache patientLookupCache;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void updatesAreValidatedLikeCreates() throws Exception {
+		mockMvc.perform(put("/api/v1/patients/P00000001").contentType(MediaType.APPLICATION_JSON).content(VALID))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.firstName").value("Mara"));
+
+		String invalid = """
+				{"firstName": " ", "lastName": "Quinn", "dateOfBirth": "2999-01-01", "gender": "FEMALE",
+				 "email": "not-an-address"}""";
+		mockMvc.perform(put("/api/v1/patients/P00000001").contentType(MediaType.APPLICATION_JSON).content(invalid))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false))
+				// Rejected by validation before the service runs, not by the database
+				.andExpect(jsonPath("$.message").value(allOf(startsWith("Invalid request: "),
+						containsString("dateOfBirth"), containsString("email"), containsString("firstName"))));
+		mockMvc.perform(post("/api/v1/patients").contentType(MediaType.APPLICATION_JSON).content(invalid))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/api/v1/patients/P00000001"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.firstName").value("Mara"));
+	}
+
+	@Test
+	void batchCreatesValidateEveryPatient() throws Exception {
+		String batch = """
+				[{"firstName": "Iris", "lastName": "Vane", "dateOfBirth": "1975-06-07", "gender": "FEMALE",
+				  "email": "iris.vane@example.com"},
+				 {"firstName": "Otto", "lastName": "Berg", "dateOfBirth": "1968-09-10", "gender": "MALE",
+				  "email": "not-an-address"}]""";
+		mockMvc.perform(post("/api/v1/patients/batch").contentType(MediaType.APPLICATION_JSON).content(batch))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.message").value(allOf(startsWith("Invalid request: "),
+						containsString("patients[1].email"))));
+		// The valid patient in the rejected batch was not created either
+		mockMvc.perform(get("/api/v1/patients/email/iris.vane@example.com"))
+				.andExpect(status().isNotFound());
+
+		mockMvc.perform(post("/api/v1/patients/batch").contentType(MediaType.APPLICATION_JSON)
+						.content(batch.replace("not-an-address", "otto.berg@example.com")))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.count").value(2));
+	}
+
+	@Test
+	void changesFeedAnswersAWaitingConsumerWithTheNextChange() throws Exception {
+		// Flush whatever earlier writes left in the outbox, so the next change is the one made here
+		changeLogRelay.relay();
+		long end = patientChangeLog.endOffset();
+
+		MvcResult waiting = mockMvc.perform(get("/api/v1/patients/changes")
+						.param("offset", Long.toString(end)).param("waitMs", "10000"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(put("/api/v1/patients/P00000042").contentType(MediaType.APPLICATION_JSON).content(VALID))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(asyncDispatch(waiting))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.count").value(1))
+				.andExpect(jsonPath("$.data[0].offset").value(end))
+				.andExpect(jsonPath("$.data[0].patientId").value("P00000042"))
+				.andExpect(jsonPath("$.nextCursor").value(Long.toString(end + 1)));
+
+		MvcResult beyondTheEnd = mockMvc.perform(get("/api/v1/patients/changes")
+						.param("offset", Long.toString(end + 2)))
+				.andReturn();
+		mockMvc.perform(asyncDispatch(beyondTheEnd))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false));
+	}
+
+	@Test
+	void revalidatedPatientsAreAnswered304WithoutLoadingThem() throws Exception {
+		MvcResult first = mockMvc.perform(get("/api/v1/patients/P00000007"))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andReturn();
+		String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+		String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+		// Not cached, so only the version query can answer
+		patientLookupCache.invalidateAll();
+		double rowsBefore = recorded("patients.request.rows", "/api/v1/patients/{id}");
+		mockMvc.perform(get("/api/v1/patients/P00000007").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().string(""));
+		mockMvc.perform(get("/api/v1/patients/P00000007").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		assertThat(recorded("patients.request.rows", "/api/v1/patients/{id}")).isEqualTo(rowsBefore);
+
+		// A stale ETag gets the patient, which is loaded now
+		mockMvc.perform(get("/api/v1/patients/P00000007").header(HttpHeaders.IF_NONE_MATCH, "\"0.0\""))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.patientId").value("P00000007"));
+		assertThat(recorded("patients.request.rows", "/api/v1/patients/{id}")).isEqualTo(rowsBefore + 1);
+	}
+
+	@Test
+	void revalidatedListsAreAnswered304WithoutLoadingPatients() throws Exception {
+		// Request path, then the URI pattern its metrics are recorded under
+		String[][] lists = {
+				{"/api/v1/patients?fields=full", "/api/v1/patients"},
+				{"/api/v1/patients/city/Bree", "/api/v1/patients/city/{city}"},
+				{"/api/v1/patients/bloodGroup/O+", "/api/v1/patients/bloodGroup/{bloodGroup}"},
+				{"/api/v1/patients/by-age?min=0&max=120", "/api/v1/patients/by-age"}
+		};
+		for (String[] list : lists) {
+			String etag = mockMvc.perform(get(list[0]))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+			assertThat(etag).as(list[0]).isNotNull();
+
+			// The collection version is the only statement; no page is read
+			double rowsBefore = recorded("patients.request.rows", list[1]);
+			double statementsBefore = recorded("patients.request.statements", list[1]);
+			mockMvc.perform(get(list[0]).header(HttpHeaders.IF_NONE_MATCH, etag))
+					.andExpect(status().isNotModified())
+					.andExpect(header().string(HttpHeaders.ETAG, etag))
+					.andExpect(content().string(""));
+			assertThat(recorded("patients.request.rows", list[1])).as(list[0]).isEqualTo(rowsBefore);
+			assertThat(recorded("patients.request.statements", list[1])).as(list[0])
+					.isEqualTo(statementsBefore + 1);
+		}
+	}
+
+	@Test
+	void anUpdateChangesThePatientAndListETags() throws Exception {
+		String patientEtag = mockMvc.perform(get("/api/v1/patients/P00000009"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		String listEtag = mockMvc.perform(get("/api/v1/patients"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(put("/api/v1/patients/P00000009").contentType(MediaType.APPLICATION_JSON).content(VALID))
+				.andExpect(status().isOk());
+
+		String updatedEtag = mockMvc.perform(get("/api/v1/patients/P00000009")
+						.header(HttpHeaders.IF_NONE_MATCH, patientEtag))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.firstName").value("Mara"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(updatedEtag).isNotEqualTo(patientEtag);
+		String updatedListEtag = mockMvc.perform(get("/api/v1/patients").header(HttpHeaders.IF_NONE_MATCH, listEtag))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(updatedListEtag).isNotEqualTo(listEtag);
+	}
+
+	// Total over all GETs of one URI pattern so far of a per-request RequestQueryStats summary
+	private double recorded(String summary, String uri) {
+		DistributionSummary recorded = meterRegistry.find(summary).tag("method", "GET").tag("uri", uri).summary();
+		return recorded == null ? 0 : recorded.totalAmount();
+	}
+}
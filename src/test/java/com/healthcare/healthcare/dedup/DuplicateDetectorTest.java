@@ -0,0 +1,135 @@
+package com.healthcare.healthcare.dedup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.healthcare.dto.DuplicateScanReport;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.service.PatientService;
+
+/**
+ * A duplicate scan over a seeded table with two planted re-registrations,
+ * read back a page at a time through the API.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:duplicates",
+		"healthcare.seed.count=3000",
+		"healthcare.seed.random-seed=11",
+		"healthcare.duplicates.threads=3",
+		// Paging one cluster at a time would run into the bulk rate limit
+		"healthcare.admission.enabled=false"
+})
+@AutoConfigureMockMvc
+class DuplicateDetectorTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DuplicateDetector duplicateDetector;
+
+	@Autowired
+	private PatientService patientService;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void scansTheTableAndPagesThroughTheClusters() throws Exception {
+		mockMvc.perform(get("/api/v1/patients/duplicates"))
+				.andExpect(status().isServiceUnavailable());
+		mockMvc.perform(get("/api/v1/patients/duplicates/scan"))
+				.andExpect(status().isNotFound());
+
+		LocalDate born = LocalDate.of(1971, 5, 6);
+		// Surname typo and the phone number written another way
+		Set<String> byPhone = Set.of(
+				create(patient("Thaddeus", "Quarrington", born).phoneNumber("(555) 010-4477")),
+				create(patient("Thaddeus", "Quarington", born).phoneNumber("+1 555 010 4477")));
+		// Same identification number, once without dashes, and the names entered the wrong way round
+		Set<String> byIdentification = Set.of(
+				create(patient("Odalys", "Fenwick", born.plusYears(17)).identificationNumber("321-54-9876")),
+				create(patient("Fenwick", "Odalys", born.plusYears(17)).identificationNumber("321 54 9876")));
+
+		mockMvc.perform(post("/api/v1/patients/duplicates/scan"))
+				.andExpect(status().isAccepted());
+		long deadline = System.currentTimeMillis() + 60_000;
+		while (duplicateDetector.isRunning() || duplicateDetector.lastReport().isEmpty()) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			Thread.sleep(50);
+		}
+		mockMvc.perform(get("/api/v1/patients/duplicates/scan"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.data.patients").value(patientRepository.count()));
+
+		// One cluster per page, following the cursor to the end
+		List<Set<String>> clusters = new ArrayList<>();
+		String cursor = "";
+		String secondPage = null;
+		do {
+			JsonNode page = body(get("/api/v1/patients/duplicates").param("cursor", cursor).param("limit", "1"));
+			assertThat(page.path("count").asInt()).isEqualTo(1);
+			Set<String> patientIds = new HashSet<>();
+			page.path("data").get(0).path("patients")
+					.forEach(patient -> patientIds.add(patient.path("patientId").asText()));
+			clusters.add(patientIds);
+			cursor = page.hasNonNull("nextCursor") ? page.get("nextCursor").asText() : null;
+			if (secondPage == null) {
+				secondPage = cursor;
+			}
+		} while (cursor != null);
+		assertThat(clusters).contains(byPhone, byIdentification);
+		assertThat((long) clusters.size()).isEqualTo(duplicateDetector.lastReport()
+				.map(DuplicateScanReport::clusters).orElseThrow());
+
+		// Offsets only hold within one run
+		duplicateDetector.detect();
+		mockMvc.perform(get("/api/v1/patients/duplicates").param("cursor", secondPage))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value(
+						"Cursor belongs to an earlier duplicate scan; start again from the first page"));
+		mockMvc.perform(get("/api/v1/patients/duplicates").param("cursor", "not a cursor"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private JsonNode body(RequestBuilder request) throws Exception {
+		String json = mockMvc.perform(request)
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(json);
+	}
+
+	private String create(Patient.PatientBuilder patient) {
+		return patientService.createPatient(patient.build()).getPatientId();
+	}
+
+	private static Patient.PatientBuilder patient(String firstName, String lastName, LocalDate born) {
+		return Patient.builder()
+				.firstName(firstName)
+				.lastName(lastName)
+				.dateOfBirth(born)
+				.gender(Patient.Gender.MALE);
+	}
+}
@@ -0,0 +1,137 @@
+package com.healthcare.healthcare.dedup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.healthcare.entity.Patient.Gender;
+
+class DuplicateLinkerTest {
+
+	private static final double THRESHOLD = 0.85;
+
+	@Test
+	void comparesNamesPhoneticallyAndByEditSimilarity() {
+		assertThat(PatientSimilarity.soundex("Robert")).isEqualTo("R163");
+		assertThat(PatientSimilarity.soundex("Rupert")).isEqualTo("R163");
+		assertThat(PatientSimilarity.soundex("Ashcraft")).isEqualTo("A261");
+		assertThat(PatientSimilarity.soundex("Tymczak")).isEqualTo("T522");
+		assertThat(PatientSimilarity.soundex("Pfister")).isEqualTo("P236");
+		assertThat(PatientSimilarity.soundex("O'Brien")).isEqualTo("O165");
+		assertThat(PatientSimilarity.soundex("--")).isNull();
+
+		assertThat(PatientSimilarity.jaroWinkler("martha", "marhta")).isCloseTo(0.961, within(0.001));
+		assertThat(PatientSimilarity.jaroWinkler("dwayne", "duane")).isCloseTo(0.84, within(0.001));
+		assertThat(PatientSimilarity.jaroWinkler("dixon", "dicksonx")).isCloseTo(0.813, within(0.001));
+		assertThat(PatientSimilarity.jaroWinkler("smith", "smith")).isEqualTo(1.0);
+		assertThat(PatientSimilarity.jaroWinkler("abc", "xyz")).isZero();
+	}
+
+	@Test
+	void clustersRegistrationsOfTheSamePersonButNotTwins() {
+		LocalDate born = LocalDate.of(1984, 3, 9);
+		List<DuplicateCandidate> candidates = List.of(
+				candidate(1, "Jonathan", "Johnson", born, "5550101234", "jj@example.com", "123-45-6789"),
+				// Surname typo, phone written with a country code, new e-mail
+				candidate(2, "Jonathan", "Jonson", born, "15550101234", "jon@example.org", null),
+				// Names entered the wrong way round, same identification number written without dashes
+				candidate(3, "Johnson", "Jonathan", born, null, null, "123 45 6789"),
+				// Twin: same family details, different first name and identification number
+				candidate(4, "Marianne", "Johnson", born, "5550101234", "mj@example.com", "987-65-4321"),
+				// Same surname and birth year, otherwise unrelated
+				candidate(5, "Peter", "Johnson", LocalDate.of(1984, 11, 23), "5559998888", null, null),
+				// Day and month swapped on one registration
+				candidate(6, "Alice", "Brown", LocalDate.of(1990, 4, 7), "5552223333", null, null),
+				candidate(7, "Alice", "Brown", LocalDate.of(1990, 7, 4), null, "alice@example.com", null));
+
+		DuplicateLinker.Result result = new DuplicateLinker(candidates, THRESHOLD, 100).link(ForkJoinPool.commonPool());
+
+		assertThat(result.clusters()).hasSize(2);
+		assertThat(result.clusters()).extracting(cluster -> List.of(toBoxed(cluster.ids())))
+				.containsExactlyInAnyOrder(List.of(1L, 2L, 3L), List.of(6L, 7L));
+		DuplicateLinker.Cluster johnson = result.clusters().stream()
+				.filter(cluster -> cluster.ids()[0] == 1).findFirst().orElseThrow();
+		assertThat(johnson.matches()).allSatisfy(match -> assertThat(match.score()).isGreaterThanOrEqualTo(THRESHOLD));
+		assertThat(johnson.matches()).anySatisfy(match -> {
+			assertThat(List.of(match.id(), match.otherId())).containsExactly(1L, 3L);
+			assertThat(match.key()).isEqualTo(DuplicateLinker.BlockingKey.IDENTIFICATION_NUMBER);
+		});
+	}
+
+	@Test
+	void scoresEachPairOnceAndSkipsOversizedBlocks() {
+		LocalDate born = LocalDate.of(1970, 1, 1);
+		List<DuplicateCandidate> candidates = new ArrayList<>();
+		// Both share phone and surname + birth year blocks; the pair is scored in the first only
+		candidates.add(candidate(1, "Ann", "Lee", born, "5550001111", null, null));
+		candidates.add(candidate(2, "Ann", "Lee", born, "5550001111", null, null));
+		// A placeholder identification number typed for many patients forms a block that is never compared
+		for (int i = 0; i < 5; i++) {
+			candidates.add(candidate(10 + i, "Patient" + (char) ('a' + i), "Number" + (char) ('a' + i),
+					LocalDate.of(1950 + i * 5, 1, 1), null, null, "0000000000"));
+		}
+
+		DuplicateLinker.Result result = new DuplicateLinker(candidates, THRESHOLD, 4).link(ForkJoinPool.commonPool());
+
+		assertThat(result.oversizedBlocks()).isEqualTo(1);
+		assertThat(result.comparisons()).isEqualTo(1);
+		assertThat(result.clusters()).hasSize(1);
+		assertThat(result.clusters().get(0).matches()).singleElement()
+				.extracting(DuplicateLinker.Match::key).isEqualTo(DuplicateLinker.BlockingKey.PHONE_NUMBER);
+	}
+
+	@Test
+	void parallelLinkingFindsTheSameClustersAsSequential() {
+		List<DuplicateCandidate> candidates = generate(20_000, new SplittableRandom(7));
+
+		DuplicateLinker.Result sequential = new DuplicateLinker(candidates, THRESHOLD, 2000).link(new ForkJoinPool(1));
+		DuplicateLinker.Result parallel = new DuplicateLinker(candidates, THRESHOLD, 2000).link(new ForkJoinPool(4));
+
+		assertThat(parallel.comparisons()).isEqualTo(sequential.comparisons());
+		assertThat(parallel.clusters()).extracting(cluster -> List.of(toBoxed(cluster.ids())))
+				.containsExactlyElementsOf(sequential.clusters().stream()
+						.map(cluster -> List.of(toBoxed(cluster.ids()))).toList());
+		// Every planted duplicate is found (unrelated patients may collide by chance, so at least)
+		assertThat(sequential.clusters().size()).isGreaterThanOrEqualTo(candidates.size() / 100);
+	}
+
+	// Random patients; every hundredth is registered again with a surname typo and another phone format
+	private static List<DuplicateCandidate> generate(int count, SplittableRandom random) {
+		String[] firstNames = { "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda" };
+		String[] lastNames = { "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis" };
+		List<DuplicateCandidate> candidates = new ArrayList<>(count);
+		long id = 1;
+		while (candidates.size() < count) {
+			String first = firstNames[random.nextInt(firstNames.length)];
+			String last = lastNames[random.nextInt(lastNames.length)];
+			LocalDate born = LocalDate.of(1940 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28));
+			String phone = Long.toString(2_000_000_000L + random.nextLong(7_000_000_000L));
+			candidates.add(candidate(id++, first, last, born, phone, null, null));
+			if (candidates.size() % 100 == 0) {
+				candidates.add(candidate(id++, first, last + "e", born, "1" + phone, null, null));
+			}
+		}
+		return candidates;
+	}
+
+	private static DuplicateCandidate candidate(long id, String firstName, String lastName, LocalDate born,
+			String phoneDigits, String email, String identificationNumber) {
+		return new DuplicateCandidate(id, firstName, lastName, born, Gender.MALE, phoneDigits, email,
+				identificationNumber, "62704");
+	}
+
+	private static Long[] toBoxed(long[] ids) {
+		Long[] boxed = new Long[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			boxed[i] = ids[i];
+		}
+		return boxed;
+	}
+}
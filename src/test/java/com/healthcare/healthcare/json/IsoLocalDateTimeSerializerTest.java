@@ -0,0 +1,40 @@
+package com.healthcare.healthcare.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+class IsoLocalDateTimeSerializerTest {
+
+	private final ObjectMapper mapper = new ObjectMapper()
+			.registerModule(new SimpleModule().addSerializer(LocalDateTime.class, new IsoLocalDateTimeSerializer()));
+
+	@Test
+	void matchesTheIsoFormatter() throws Exception {
+		assertSameAsFormatter(LocalDateTime.of(2025, 1, 2, 3, 4));
+		assertSameAsFormatter(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 500_000_000));
+		assertSameAsFormatter(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 557_068_000));
+		assertSameAsFormatter(LocalDateTime.of(2025, 1, 2, 3, 4, 5, 1));
+		assertSameAsFormatter(LocalDateTime.of(-5, 1, 1, 0, 0));
+		assertSameAsFormatter(LocalDateTime.of(12025, 12, 31, 23, 59, 59));
+
+		SplittableRandom random = new SplittableRandom(42);
+		for (int i = 0; i < 10_000; i++) {
+			assertSameAsFormatter(LocalDateTime.of(random.nextInt(0, 10_000), random.nextInt(1, 13),
+					random.nextInt(1, 29), random.nextInt(24), random.nextInt(60), random.nextInt(60),
+					random.nextInt(1_000_000_000)));
+		}
+	}
+
+	private void assertSameAsFormatter(LocalDateTime value) throws Exception {
+		assertThat(mapper.writeValueAsString(value))
+				.isEqualTo('"' + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value) + '"');
+	}
+}
@@ -0,0 +1,115 @@
+package com.healthcare.healthcare.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Closed-loop HTTP load generator for the load tests: a fixed number of
+ * client threads send requests back to back for a fixed duration and record
+ * per-request latency and status.
+ */
+final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    static Result run(String name, int concurrency, Duration duration,
+            Function<ThreadLocalRandom, HttpRequest> requests) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Worker> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(client, deadline, requests);
+            workers.add(worker);
+            worker.thread.start();
+        }
+
+        long[] latencies = new long[0];
+        Map<Integer, Long> statuses = new TreeMap<>();
+        for (Worker worker : workers) {
+            worker.thread.join();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            worker.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+        }
+        Arrays.sort(latencies);
+        return new Result(name, latencies.length, statuses, latencies.length / (double) duration.toSeconds(),
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999));
+    }
+
+    // Summaries go to stdout, where the surefire report keeps them next to the test
+    static void report(Result... results) {
+        for (Result result : results) {
+            System.out.println("[load] " + result);
+        }
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    record Result(String name, long requests, Map<Integer, Long> statuses, double throughputPerSecond,
+            long p50Micros, long p99Micros, long p999Micros) {
+
+        long count(int status) {
+            return statuses.getOrDefault(status, 0L);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d requests, %.0f req/s, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, statuses %s",
+                    name, requests, throughputPerSecond, p50Micros / 1000.0, p99Micros / 1000.0,
+                    p999Micros / 1000.0, statuses);
+        }
+    }
+
+    private static final class Worker implements Runnable {
+        private final HttpClient client;
+        private final long deadline;
+        private final Function<ThreadLocalRandom, HttpRequest> requests;
+        private final Thread thread = new Thread(this);
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+        private long[] latencies = new long[1024];
+        private int count;
+
+        Worker(HttpClient client, long deadline, Function<ThreadLocalRandom, HttpRequest> requests) {
+            this.client = client;
+            this.deadline = deadline;
+            this.requests = requests;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                HttpRequest request = requests.apply(random);
+                long start = System.nanoTime();
+                int status;
+                try {
+                    status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (Exception e) {
+                    // Connection-level failure
+                    status = -1;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = (System.nanoTime() - start) / 1000;
+                statuses.merge(status, 1L, Long::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.healthcare.healthcare.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Throughput and tail latency of the lookup endpoints under concurrent load.
+ * Run once per thread mode and compare the printed summaries:
+ * <pre>
+ * ./mvnw -Pload-test test
+ * ./mvnw -Pload-test test -Dspring.profiles.active=virtual
+ * </pre>
+ * Tune with {@code -Dload.concurrency}, {@code -Dload.durationSeconds} and
+ * {@code -Dhealthcare.seed.count}. Admission control is off so the server,
+ * not the per-client rate limit, is what gets measured.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"healthcare.seed.count=${load.rows:20000}",
+		"healthcare.seed.random-seed=7",
+		"healthcare.admission.enabled=false",
+		"logging.level.root=WARN" })
+class PatientApiLoadTest {
+
+	private static final String[] NAME_QUERIES = { "john", "smi", "ann", "son", "garc" };
+
+	@LocalServerPort
+	private int port;
+
+	@Value("${healthcare.seed.count}")
+	private int rows;
+
+	@Value("${spring.threads.virtual.enabled:false}")
+	private boolean virtualThreadsRequested;
+
+	@Test
+	void lookupsUnderConcurrentLoad() throws Exception {
+		int concurrency = Integer.getInteger("load.concurrency", 200);
+		Duration duration = Duration.ofSeconds(Integer.getInteger("load.durationSeconds", 20));
+		boolean virtual = virtualThreadsRequested && Runtime.version().feature() >= 21;
+
+		LoadGenerator.Result result = LoadGenerator.run(virtual ? "virtual threads" : "platform threads",
+				concurrency, duration, random -> random.nextInt(4) == 0
+						? get("/api/v1/patients/search?name=" + NAME_QUERIES[random.nextInt(NAME_QUERIES.length)])
+						: get("/api/v1/patients/" + patientId(random.nextInt(1, rows + 1))));
+
+		LoadGenerator.report(result);
+		assertThat(result.count(200)).isGreaterThan(result.requests() * 99 / 100);
+	}
+
+	private HttpRequest get(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.timeout(Duration.ofSeconds(30))
+				.GET()
+				.build();
+	}
+
+	private static String patientId(int index) {
+		return String.format("P%08d", index);
+	}
+}
@@ -0,0 +1,87 @@
+package com.healthcare.healthcare.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Tail latency of front-desk lookups while one bulk client hammers the list
+ * endpoint. Interactive clients run alone first, then again next to the bulk
+ * client. Admission control should shed most bulk calls with 429/503. The
+ * bulk calls it admits still compete for CPU and for the connections left
+ * after max-concurrent-bulk, so the lookups' p99 does rise; the test only
+ * holds it to a bound (three times the baseline plus 50 ms) rather than
+ * letting it grow with the bulk load:
+ * <pre>
+ * ./mvnw -Pload-test test -Dtest=PatientApiOverloadTest
+ * </pre>
+ * Tune with {@code -Dload.concurrency}, {@code -Dload.bulkConcurrency} and
+ * {@code -Dload.durationSeconds}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"healthcare.seed.count=${load.rows:20000}",
+		"healthcare.seed.random-seed=7",
+		// The load generator stands in for a proxy that names the desk and sync clients
+		"healthcare.admission.trusted-proxies=127.0.0.1,0:0:0:0:0:0:0:1",
+		"logging.level.root=WARN" })
+class PatientApiOverloadTest {
+
+	// Enough desk clients that none of them reaches its own rate limit
+	private static final int DESK_CLIENTS = 64;
+
+	@LocalServerPort
+	private int port;
+
+	@Value("${healthcare.seed.count}")
+	private int rows;
+
+	@Test
+	void lookupLatencyHoldsWhileABulkClientOverloadsTheApi() throws Exception {
+		int concurrency = Integer.getInteger("load.concurrency", 16);
+		int bulkConcurrency = Integer.getInteger("load.bulkConcurrency", 16);
+		Duration duration = Duration.ofSeconds(Integer.getInteger("load.durationSeconds", 15));
+
+		LoadGenerator.run("warm-up", concurrency, Duration.ofSeconds(5), this::lookup);
+		LoadGenerator.Result baseline = LoadGenerator.run("lookups alone", concurrency, duration, this::lookup);
+
+		FutureTask<LoadGenerator.Result> bulk = new FutureTask<>(
+				() -> LoadGenerator.run("bulk client", bulkConcurrency, duration, this::list));
+		new Thread(bulk).start();
+		LoadGenerator.Result overloaded = LoadGenerator.run("lookups under overload", concurrency, duration,
+				this::lookup);
+		LoadGenerator.Result bulkResult = bulk.get();
+
+		LoadGenerator.report(baseline, overloaded, bulkResult);
+		assertThat(overloaded.count(200)).isGreaterThan(overloaded.requests() * 99 / 100);
+		assertThat(bulkResult.count(429) + bulkResult.count(503)).isGreaterThan(bulkResult.requests() / 2);
+		assertThat(overloaded.p99Micros()).isLessThan(baseline.p99Micros() * 3 + 50_000);
+	}
+
+	private HttpRequest lookup(ThreadLocalRandom random) {
+		return get("/api/v1/patients/" + String.format("P%08d", random.nextInt(1, rows + 1)),
+				"desk-" + random.nextInt(DESK_CLIENTS));
+	}
+
+	private HttpRequest list(ThreadLocalRandom random) {
+		return get("/api/v1/patients?limit=500", "nightly-sync");
+	}
+
+	private HttpRequest get(String path, String client) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("X-Client-Id", client)
+				.timeout(Duration.ofSeconds(30))
+				.GET()
+				.build();
+	}
+}
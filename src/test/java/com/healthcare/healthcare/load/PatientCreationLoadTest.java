@@ -0,0 +1,81 @@
+package com.healthcare.healthcare.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Create rate of {@code POST /api/v1/patients} with many registration desks
+ * submitting at once, each request carrying its own Idempotency-Key. Every
+ * 201 must be a stored patient with an ID of its own, and the rate must reach
+ * {@code -Dload.minCreatesPerSecond} (1000 unless set):
+ * <pre>
+ * ./mvnw -Pload-test test -Dtest=PatientCreationLoadTest
+ * </pre>
+ * Tune with {@code -Dload.concurrency} and {@code -Dload.durationSeconds}.
+ * Admission control is off so the server, not the per-client rate limit, is
+ * what gets measured.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"healthcare.seed.count=${load.rows:20000}",
+		"healthcare.seed.random-seed=7",
+		"healthcare.admission.enabled=false",
+		"logging.level.root=WARN" })
+class PatientCreationLoadTest {
+
+	private static final String[] CITIES = { "Bree", "Dale", "Esgaroth", "Hobbiton", "Tharbad" };
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentCreatesReachTheTargetRateWithoutCollisions() throws Exception {
+		int concurrency = Integer.getInteger("load.concurrency", 32);
+		Duration duration = Duration.ofSeconds(Integer.getInteger("load.durationSeconds", 15));
+		int minCreatesPerSecond = Integer.getInteger("load.minCreatesPerSecond", 1000);
+
+		LoadGenerator.run("warm-up", concurrency, Duration.ofSeconds(5), this::create);
+		long before = patients();
+		LoadGenerator.Result result = LoadGenerator.run("creates", concurrency, duration, this::create);
+
+		LoadGenerator.report(result);
+		assertThat(result.count(201)).isGreaterThan(result.requests() * 99 / 100);
+		// patient_id is unique, so every 201 being a row of its own means no two creates shared an ID
+		assertThat(patients() - before).isEqualTo(result.count(201));
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT patient_id) FROM patients", Long.class))
+				.isEqualTo(patients());
+		assertThat(result.throughputPerSecond()).isGreaterThanOrEqualTo(minCreatesPerSecond);
+	}
+
+	private long patients() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patients", Long.class);
+	}
+
+	private HttpRequest create(ThreadLocalRandom random) {
+		String body = String.format("""
+				{"firstName": "Desk%d", "lastName": "Load", "dateOfBirth": "%d-03-04", "gender": "OTHER",
+				 "city": "%s"}""", random.nextInt(1000), random.nextInt(1930, 2020),
+				CITIES[random.nextInt(CITIES.length)]);
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/patients"))
+				.header("Content-Type", "application/json")
+				.header("Idempotency-Key", UUID.randomUUID().toString())
+				.timeout(Duration.ofSeconds(30))
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+	}
+}
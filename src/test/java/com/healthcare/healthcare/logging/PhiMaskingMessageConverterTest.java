@@ -0,0 +1,39 @@
+package com.healthcare.healthcare.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+
+class PhiMaskingMessageConverterTest {
+
+	private final LoggerContext context = new LoggerContext();
+	private final Logger logger = context.getLogger("test");
+	private final PhiMaskingMessageConverter converter = new PhiMaskingMessageConverter();
+
+	@Test
+	void stringArgumentsOfPhiEventsAreMasked() {
+		String message = converter.convert(event(LogMarkers.REQUEST_PHI, "Patient {} with email {}, page {}",
+				"Jane Doe", "jane@example.com", 3));
+
+		assertThat(message).isEqualTo("Patient J*** with email j***, page 3");
+	}
+
+	@Test
+	void eventsWithoutThePhiMarkerAreUnchanged() {
+		String message = converter.convert(event(LogMarkers.REQUEST, "Patient {}", "P00000001"));
+
+		assertThat(message).isEqualTo("Patient P00000001");
+	}
+
+	private LoggingEvent event(Marker marker, String format, Object... args) {
+		LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.INFO, format, null, args);
+		event.addMarker(marker);
+		return event;
+	}
+}
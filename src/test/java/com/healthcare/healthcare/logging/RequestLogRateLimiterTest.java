@@ -0,0 +1,29 @@
+package com.healthcare.healthcare.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+class RequestLogRateLimiterTest {
+
+	private final Logger logger = new LoggerContext().getLogger("test");
+
+	@Test
+	void requestLogsAreLimitedPerSecond() {
+		RequestLogRateLimiter limiter = new RequestLogRateLimiter();
+		limiter.setPermitsPerSecond(2);
+
+		assertThat(limiter.tryAcquire(100)).isTrue();
+		assertThat(limiter.tryAcquire(100)).isTrue();
+		assertThat(limiter.tryAcquire(100)).isFalse();
+		assertThat(limiter.tryAcquire(101)).isTrue();
+		assertThat(limiter.getSuppressedCount()).isEqualTo(1);
+		assertThat(limiter.decide(LogMarkers.REQUEST, logger, Level.WARN, "slow", null, null))
+				.isEqualTo(FilterReply.NEUTRAL);
+	}
+}
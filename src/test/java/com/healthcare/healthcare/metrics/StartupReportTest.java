@@ -0,0 +1,59 @@
+package com.healthcare.healthcare.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+class StartupReportTest {
+
+	@Test
+	void chargesBeansOnlyForTheirOwnInitialization() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(100);
+		// patientService creates its repository, which creates the data source it needs
+		StartupStep service = instantiate(startup, "patientService");
+		Thread.sleep(20);
+		StartupStep repository = instantiate(startup, "patientRepository");
+		Thread.sleep(10);
+		StartupStep dataSource = instantiate(startup, "dataSource");
+		Thread.sleep(60);
+		dataSource.end();
+		repository.end();
+		StartupStep mapper = instantiate(startup, "objectMapper");
+		Thread.sleep(30);
+		mapper.end();
+		service.end();
+		// Not a bean instantiation
+		StartupStep refresh = startup.start("spring.context.refresh");
+		Thread.sleep(100);
+		refresh.end();
+
+		List<StartupReport.BeanInitCost> costs = StartupReport.slowestBeans(
+				startup.getBufferedTimeline().getEvents(), 10);
+
+		assertThat(costs).extracting(StartupReport.BeanInitCost::beanName)
+				.containsExactlyInAnyOrder("patientService", "patientRepository", "dataSource", "objectMapper");
+		assertThat(costs.get(0).beanName()).isEqualTo("dataSource");
+		assertThat(costs).isSortedAccordingTo((a, b) -> b.self().compareTo(a.self()));
+		StartupReport.BeanInitCost serviceCost = cost(costs, "patientService");
+		StartupReport.BeanInitCost repositoryCost = cost(costs, "patientRepository");
+		// Only direct children are subtracted; the data source is already inside the repository's total
+		assertThat(serviceCost.self()).isEqualTo(serviceCost.total().minus(repositoryCost.total())
+				.minus(cost(costs, "objectMapper").total()));
+		assertThat(repositoryCost.self()).isEqualTo(repositoryCost.total().minus(cost(costs, "dataSource").total()));
+		assertThat(cost(costs, "dataSource").self()).isEqualTo(cost(costs, "dataSource").total());
+
+		assertThat(StartupReport.slowestBeans(startup.getBufferedTimeline().getEvents(), 2)).hasSize(2);
+	}
+
+	private static StartupStep instantiate(BufferingApplicationStartup startup, String beanName) {
+		return startup.start(StartupReport.INSTANTIATE_STEP).tag("beanName", beanName);
+	}
+
+	private static StartupReport.BeanInitCost cost(List<StartupReport.BeanInitCost> costs, String beanName) {
+		return costs.stream().filter(cost -> cost.beanName().equals(beanName)).findFirst().orElseThrow();
+	}
+}
@@ -0,0 +1,112 @@
+package com.healthcare.healthcare.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import com.healthcare.healthcare.HealthcareApplication;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.service.PatientService;
+
+/**
+ * Applies the scripts in {@code db/manual} in order to a database shaped like
+ * one created by the first release, as an operator upgrading it would, then
+ * starts the application against it with schema validation on.
+ */
+class ManualUpgradeScriptsTest {
+
+	private static final String[] SCRIPTS = {
+			"1-patient-id-sequence.sql",
+			"2-patient-lookup-keys.sql",
+			"3-patient-id-allocation.sql",
+			"4-patient-outbox.sql",
+			"5-patient-status-by-name.sql",
+			"6-patient-version.sql"
+	};
+
+	@Test
+	void upgradesADatabaseCreatedByTheFirstRelease() throws Exception {
+		// The connection keeps the in-memory database alive for the application started below
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:upgrade", "sa", "")) {
+			JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+			ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline-schema.sql"));
+			jdbc.execute("INSERT INTO patients (patient_id, first_name, last_name, date_of_birth, gender, email, "
+					+ "phone_number, city, status, registration_date, created_at) VALUES "
+					+ "('P00000001', 'Ada', 'Byron', DATE '1990-01-01', 'FEMALE', ' Ada@Example.COM ', "
+					+ "'(555) 010-2030', 'Bree', 0, NOW(), NOW()), "
+					+ "('P00000002', 'Ben', 'Gunn', DATE '1950-01-01', 'MALE', '', '', 'Bree', 2, NOW(), NOW()), "
+					+ "('P00000003', 'Cy', 'Dale', DATE '1970-01-01', 'OTHER', NULL, NULL, 'Dale', 3, NOW(), NOW())");
+
+			for (String script : SCRIPTS) {
+				ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/manual/" + script));
+			}
+
+			assertThat(jdbc.queryForList("SELECT status FROM patients ORDER BY id", String.class))
+					.containsExactly("ACTIVE", "DECEASED", "TRANSFERRED");
+			assertThat(jdbc.queryForList("SELECT version FROM patients ORDER BY id", Long.class))
+					.containsExactly(0L, 0L, 0L);
+			assertThat(jdbc.queryForList("SELECT email_normalized FROM patients ORDER BY id", String.class))
+					.containsExactly("ada@example.com", null, null);
+			assertThat(jdbc.queryForList("SELECT phone_digits FROM patients ORDER BY id", String.class))
+					.containsExactly("5550102030", null, null);
+			assertThat(jdbc.queryForList("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES "
+					+ "WHERE TABLE_NAME = 'PATIENTS'", String.class))
+					.contains("IDX_PATIENTS_EMAIL_NORMALIZED", "IDX_PATIENTS_PHONE_DIGITS",
+							"IDX_PATIENTS_STATUS_CITY", "IDX_PATIENTS_UPDATED_AT")
+					.doesNotContain("IDX_PATIENTS_CITY");
+			assertThatThrownBy(() -> jdbc.update("UPDATE patients SET status = 'RETIRED' WHERE id = 1"))
+					.hasMessageContaining("CK_PATIENTS_STATUS");
+
+			// Hibernate checks every table, column and sequence the entities map against the upgraded schema
+			try (ConfigurableApplicationContext context = new SpringApplicationBuilder(HealthcareApplication.class)
+					.run("--spring.datasource.url=jdbc:h2:mem:upgrade",
+							"--spring.jpa.hibernate.ddl-auto=validate",
+							"--server.port=0")) {
+				PatientService patientService = context.getBean(PatientService.class);
+				Patient created = patientService.createPatient(Patient.builder()
+						.firstName("Dora")
+						.lastName("Finch")
+						.dateOfBirth(LocalDate.of(2001, 5, 6))
+						.gender(Patient.Gender.FEMALE)
+						.build());
+
+				// Sequence ids start above the identity-generated ones
+				assertThat(created.getId()).isGreaterThan(3);
+				assertThat(created.getPatientId()).isEqualTo("P00000004");
+				assertThat(patientService.getPatientByEmail("ada@example.com"))
+						.hasValueSatisfying(patient -> assertThat(patient.getPatientId()).isEqualTo("P00000001"));
+				assertThat(patientService.getPatientByPhoneNumber("555-010-2030")).isPresent();
+			}
+			// The application created the archive from the upgraded patients table on startup
+			assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+					+ "WHERE TABLE_NAME = 'PATIENTS_ARCHIVE' AND COLUMN_NAME = 'VERSION'", Integer.class))
+					.isEqualTo(1);
+		}
+	}
+
+	@Test
+	void addsTheRowVersionToAnArchiveCreatedBeforeIt() throws Exception {
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:upgrade-archive")) {
+			JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+			jdbc.execute("CREATE TABLE patients (id BIGINT PRIMARY KEY, updated_at TIMESTAMP)");
+			jdbc.execute("CREATE TABLE patients_archive (id BIGINT, archived_at TIMESTAMP)");
+
+			ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/manual/6-patient-version.sql"));
+
+			assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+					+ "WHERE TABLE_NAME = 'PATIENTS_ARCHIVE' AND COLUMN_NAME = 'VERSION'", Integer.class))
+					.isEqualTo(1);
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package com.healthcare.healthcare.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.healthcare.healthcare.dto.PatientSummary;
+import com.healthcare.healthcare.entity.Patient;
+
+/**
+ * Runs each repository lookup, captures the SQL Hibernate sends, and checks
+ * H2's EXPLAIN plan for it: every query must be driven by an index, never by
+ * a table scan.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.healthcare.healthcare.repository.PatientRepositoryIndexTest$CapturingInspector")
+class PatientRepositoryIndexTest {
+
+	private static final Set<Patient.PatientStatus> ACTIVE = EnumSet.of(Patient.PatientStatus.ACTIVE);
+	private static final Set<Patient.PatientStatus> ALL = EnumSet.allOf(Patient.PatientStatus.class);
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@BeforeEach
+	void clearCapturedSql() {
+		CapturingInspector.SQL.clear();
+	}
+
+	@Test
+	void lookupsByPatientIdUseAnIndex() throws Exception {
+		assertUsesIndex(() -> patientRepository.findByPatientId("P00000001"));
+		assertUsesIndex(() -> patientRepository.findExistingPatientIds(List.of("P00000001", "P00000002")));
+	}
+
+	@Test
+	void lookupsByEmailUseAnIndex() throws Exception {
+		assertUsesIndex(() -> patientRepository.findFirstByEmailNormalizedOrderByIdAsc("jane@example.com"));
+	}
+
+	@Test
+	void lookupsByPhoneUseAnIndex() throws Exception {
+		assertUsesIndex(() -> patientRepository.findFirstByPhoneDigitsOrderByIdAsc("5550101234"));
+	}
+
+	@Test
+	void lookupsByIdentificationNumberUseAnIndex() throws Exception {
+		assertUsesIndex(() -> patientRepository.findFirstByIdentificationNumberOrderByIdAsc("123-45-6789"));
+	}
+
+	@Test
+	void filtersByCityBloodGroupAndGenderUseAnIndex() throws Exception {
+		assertUsesIndex(() -> patientRepository.findByStatusInAndCityOrderByIdAsc(ACTIVE, "Boston", Limit.of(10),
+				PatientSummary.class));
+		assertUsesIndex(() -> patientRepository.findByStatusInAndBloodGroupOrderByIdAsc(ALL, "O-", Limit.of(10),
+				PatientSummary.class));
+		assertUsesIndex(() -> patientRepository.findByGender(Patient.Gender.FEMALE));
+	}
+
+	@Test
+	void ageRangesUseTheDateOfBirthIndex() throws Exception {
+		assertUsesIndex(() -> patientRepository.findByStatusInAndDateOfBirthBetween(ACTIVE, LocalDate.of(1960, 1, 1),
+				LocalDate.of(1970, 1, 1), PageRequest.of(0, 20, Sort.by("dateOfBirth", "id")), PatientSummary.class));
+	}
+
+	@Test
+	void keysetPagesUseThePrimaryKey() throws Exception {
+		assertUsesIndex(() -> patientRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(10), Patient.class));
+		assertUsesIndex(() -> patientRepository.findByStatusInAndIdGreaterThanOrderByIdAsc(ACTIVE, 0L, Limit.of(10),
+				Patient.class));
+	}
+
+	@Test
+	void archiveCandidatesAreFoundByStatus() throws Exception {
+		assertUsesIndex(() -> patientRepository.findArchivable(EnumSet.of(Patient.PatientStatus.INACTIVE,
+				Patient.PatientStatus.DECEASED), LocalDateTime.now(), 0L, Limit.of(10)));
+	}
+
+	@Test
+	void versionReadsForETagsUseIndexes() throws Exception {
+		assertUsesIndex(() -> patientRepository.findVersionByPatientId("P00000001"));
+
+		// COUNT(*) and both maxima come from table metadata and index ends, without visiting rows
+		CapturingInspector.SQL.clear();
+		patientRepository.findCollectionVersion();
+		String plan = explain(CapturingInspector.SQL.get(0));
+		assertThat(plan).doesNotContainIgnoringCase("tableScan").contains("direct lookup");
+	}
+
+	private void assertUsesIndex(Runnable query) throws Exception {
+		CapturingInspector.SQL.clear();
+		query.run();
+		assertThat(CapturingInspector.SQL).isNotEmpty();
+
+		for (String sql : CapturingInspector.SQL) {
+			String plan = explain(sql);
+			assertThat(plan).as("plan for %s", sql).doesNotContainIgnoringCase("tableScan");
+			assertThat(plan).as("plan for %s", sql).containsPattern("/\\* PUBLIC\\.\\w+: ");
+		}
+	}
+
+	private String explain(String sql) throws Exception {
+		try (Connection connection = dataSource.getConnection();
+				PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+				ResultSet rs = statement.executeQuery()) {
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+
+	public static class CapturingInspector implements StatementInspector {
+
+		static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			SQL.add(sql);
+			return sql;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.healthcare.healthcare.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.healthcare.healthcare.entity.Patient;
+
+class PatientNameIndexTest {
+
+	private PatientNameIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new PatientNameIndex(null);
+		index.put(1L, "John", "Smith");
+		index.put(2L, "Johnny", "Walker");
+		index.put(3L, "Sarah", "Johnson");
+		index.put(4L, "Amanda", "Lee");
+	}
+
+	@Test
+	void ranksExactThenPrefixThenWordPrefixThenSubstring() {
+		assertThat(index.search("john smith", 10)).containsExactly(1L);
+		assertThat(index.search("john", 10)).containsExactly(1L, 2L, 3L);
+		assertThat(index.search("ohn", 10)).containsExactly(1L, 2L, 3L);
+	}
+
+	@Test
+	void shortQueriesMatchWordPrefixesOnly() {
+		assertThat(index.search("Le", 10)).containsExactly(4L);
+		assertThat(index.search("ee", 10)).isEmpty();
+	}
+
+	@Test
+	void updatesReplaceTheIndexedName() {
+		index.put(1L, "Jon", "Smyth");
+		assertThat(index.search("smith", 10)).isEmpty();
+		assertThat(index.search("smyth", 10)).containsExactly(1L);
+
+		index.remove(3L);
+		assertThat(index.search("johns", 10)).isEmpty();
+		assertThat(index.size()).isEqualTo(3);
+	}
+
+	@Test
+	void filtersByStatusWithoutReindexingTheName() {
+		index.put(2L, "Johnny", "Walker", Patient.PatientStatus.DECEASED);
+		Set<Patient.PatientStatus> active = EnumSet.of(Patient.PatientStatus.ACTIVE);
+
+		assertThat(index.search("john", 10, active)).containsExactly(1L, 3L);
+		assertThat(index.search("john", 10, EnumSet.of(Patient.PatientStatus.DECEASED))).containsExactly(2L);
+		assertThat(index.search("john", 10)).containsExactly(1L, 2L, 3L);
+
+		index.compact();
+		assertThat(index.search("john", 10, active)).containsExactly(1L, 3L);
+	}
+
+	@Test
+	void honoursTheLimit() {
+		assertThat(index.search("j", 2)).containsExactly(1L, 2L);
+	}
+}
@@ -0,0 +1,180 @@
+package com.healthcare.healthcare.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.healthcare.healthcare.dto.PatientQuery;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.service.DatabaseEpoch;
+
+import jakarta.persistence.EntityManager;
+
+class PatientSearchIndexTest {
+
+	private PatientSearchIndex index;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		index = new PatientSearchIndex(null, null, null, "");
+		index.put(patient(1L, "John", "Smith", "john.smith@example.com", "(555) 010-1234", "Boston",
+				Patient.Gender.MALE, LocalDate.now().minusYears(30)));
+		index.put(patient(2L, "Johnny", "Walker", "jw@example.com", "555-020-9999", "Denver",
+				Patient.Gender.MALE, LocalDate.now().minusYears(50)));
+		index.put(patient(3L, "Sarah", "Johnson", "sarah@example.com", "555-030-5555", "Boston",
+				Patient.Gender.FEMALE, LocalDate.now().minusYears(41)));
+		index.refresh();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		index.close();
+	}
+
+	@Test
+	void ranksWholeNameMatchesBeforePrefixMatches() {
+		PatientSearchIndex.Hits hits = index.search(query("john", null, null, null), 0, 10);
+
+		assertThat(hits.ids()).containsExactly(1L, 2L, 3L);
+		assertThat(hits.total()).isEqualTo(3);
+	}
+
+	@Test
+	void matchesWholeEmailsAndPhoneNumbers() {
+		assertThat(index.search(query("Sarah@Example.com", null, null, null), 0, 10).ids()).containsExactly(3L);
+		assertThat(index.search(query("555 020 9999", null, null, null), 0, 10).ids()).containsExactly(2L);
+	}
+
+	@Test
+	void filtersByKeywordAndAgeAndCountsFacets() {
+		PatientSearchIndex.Hits hits = index.search(query(null, "boston", 35, 45), 0, 10);
+
+		assertThat(hits.ids()).containsExactly(3L);
+		assertThat(index.search(query(null, "BOSTON", null, null), 0, 10).facets().get("gender"))
+				.containsEntry("MALE", 1L)
+				.containsEntry("FEMALE", 1L);
+	}
+
+	@Test
+	void updatesReplaceTheDocument() {
+		index.put(patient(2L, "Johnny", "Walker", "jw@example.com", "555-020-9999", "Boston",
+				Patient.Gender.MALE, LocalDate.now().minusYears(50)));
+		index.refresh();
+
+		assertThat(index.search(query(null, "Boston", null, null), 0, 10).total()).isEqualTo(3);
+		assertThat(index.search(query(null, "Denver", null, null), 0, 10).total()).isZero();
+	}
+
+	@Test
+	void rebuildsAStoredIndexBuiltFromAnotherDatabase(@TempDir Path dir) throws Exception {
+		Path indexDir = dir.resolve("index");
+		PatientRepository firstRun = repository(List.of(
+				patient(1L, "Alice", "Archer", null, null, "Boston", Patient.Gender.FEMALE, LocalDate.of(1980, 1, 1)),
+				patient(2L, "Bob", "Baker", null, null, "Boston", Patient.Gender.MALE, LocalDate.of(1980, 1, 1))));
+		PatientSearchIndex stored = new PatientSearchIndex(firstRun, mock(EntityManager.class), epoch(1),
+				indexDir.toString());
+		try {
+			stored.rebuildIfStale();
+			assertThat(stored.search(query("alice", null, null, null), 0, 10).ids()).containsExactly(1L);
+		} finally {
+			stored.close();
+		}
+
+		// A fresh database after a restart: same size and ids, different patients
+		PatientRepository secondRun = repository(List.of(
+				patient(1L, "Carol", "Cole", null, null, "Denver", Patient.Gender.FEMALE, LocalDate.of(1980, 1, 1)),
+				patient(2L, "Dan", "Drake", null, null, "Denver", Patient.Gender.MALE, LocalDate.of(1980, 1, 1))));
+		PatientSearchIndex reopened = new PatientSearchIndex(secondRun, mock(EntityManager.class), epoch(2),
+				indexDir.toString());
+		try {
+			reopened.rebuildIfStale();
+			assertThat(reopened.search(query("alice", null, null, null), 0, 10).total()).isZero();
+			assertThat(reopened.search(query("carol", null, null, null), 0, 10).ids()).containsExactly(1L);
+		} finally {
+			reopened.close();
+		}
+
+		// Same database again: the stored index is reused
+		PatientRepository thirdRun = repository(List.of());
+		when(thirdRun.count()).thenReturn(2L);
+		PatientSearchIndex reused = new PatientSearchIndex(thirdRun, mock(EntityManager.class), epoch(2),
+				indexDir.toString());
+		try {
+			reused.rebuildIfStale();
+			assertThat(reused.search(query("carol", null, null, null), 0, 10).ids()).containsExactly(1L);
+			verify(thirdRun, never()).streamAll();
+		} finally {
+			reused.close();
+		}
+	}
+
+	@Test
+	void aFailedRebuildKeepsThePreviousIndex() throws Exception {
+		PatientRepository repository = mock(PatientRepository.class);
+		when(repository.streamAll()).thenAnswer(invocation -> Stream.concat(
+				Stream.of(patient(9L, "Zoe", "Zimmer", null, null, "Austin", Patient.Gender.FEMALE,
+						LocalDate.of(1990, 1, 1))),
+				Stream.<Patient>generate(() -> {
+					throw new IllegalStateException("Connection lost");
+				})));
+		PatientSearchIndex failing = new PatientSearchIndex(repository, mock(EntityManager.class), epoch(1), "");
+		try {
+			failing.put(patient(1L, "John", "Smith", null, null, "Boston", Patient.Gender.MALE,
+					LocalDate.of(1980, 1, 1)));
+			failing.refresh();
+
+			assertThatThrownBy(failing::rebuild).isInstanceOf(IllegalStateException.class);
+			failing.refresh();
+			assertThat(failing.search(query("john", null, null, null), 0, 10).ids()).containsExactly(1L);
+			assertThat(failing.search(query("zoe", null, null, null), 0, 10).total()).isZero();
+		} finally {
+			failing.close();
+		}
+	}
+
+	private static PatientRepository repository(List<Patient> patients) {
+		PatientRepository repository = mock(PatientRepository.class);
+		when(repository.count()).thenReturn((long) patients.size());
+		when(repository.streamAll()).thenAnswer(invocation -> patients.stream());
+		return repository;
+	}
+
+	private static DatabaseEpoch epoch(long value) {
+		DatabaseEpoch epoch = mock(DatabaseEpoch.class);
+		when(epoch.value()).thenReturn(value);
+		return epoch;
+	}
+
+	private static PatientQuery query(String text, String city, Integer minAge, Integer maxAge) {
+		return new PatientQuery(text, city, null, null, null, null, minAge, maxAge, null, null);
+	}
+
+	private static Patient patient(Long id, String firstName, String lastName, String email, String phone,
+			String city, Patient.Gender gender, LocalDate dateOfBirth) {
+		return Patient.builder()
+				.id(id)
+				.firstName(firstName)
+				.lastName(lastName)
+				.email(email)
+				.phoneNumber(phone)
+				.city(city)
+				.gender(gender)
+				.dateOfBirth(dateOfBirth)
+				.status(Patient.PatientStatus.ACTIVE)
+				.build();
+	}
+}
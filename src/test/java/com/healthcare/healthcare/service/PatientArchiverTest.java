@@ -0,0 +1,120 @@
+package com.healthcare.healthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.healthcare.healthcare.dto.PatientSummary;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.repository.PatientRepository;
+import com.healthcare.healthcare.search.PatientNameIndex;
+
+// Its own database: archiving moves rows other test contexts would otherwise see disappear
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:archiving",
+		"healthcare.seed.enabled=false"
+})
+class PatientArchiverTest {
+
+	@Autowired
+	private PatientService patientService;
+
+	@Autowired
+	private PatientArchiver patientArchiver;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private PatientNameIndex patientNameIndex;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void inactivePatientsLeaveListsAndThenTheTable() throws Exception {
+		String active = patientService.createPatient(patient("Arlo")).getPatientId();
+		String inactive = patientService.createPatient(patient("Arwen")).getPatientId();
+		patientService.updatePatientStatus(inactive, Patient.PatientStatus.INACTIVE);
+
+		assertThat(patientIdsInList(StatusFilter.ACTIVE)).containsExactly(active);
+		assertThat(patientIdsInList(StatusFilter.ALL)).containsExactly(active, inactive);
+		assertThat(patientService.searchPatientsByName("arwen", 10, StatusFilter.ACTIVE, PatientSummary.class))
+				.isEmpty();
+		assertThat(patientService.searchPatientsByName("arwen", 10, StatusFilter.parse("inactive"),
+				PatientSummary.class)).hasSize(1);
+
+		// Recently changed patients stay; once the inactivity period has passed they move
+		assertThat(patientArchiver.archive(Duration.ofDays(1))).isZero();
+		Thread.sleep(5);
+		assertThat(patientArchiver.archive(Duration.ZERO)).isEqualTo(1);
+
+		assertThat(patientRepository.findByPatientId(inactive)).isEmpty();
+		assertThat(patientRepository.findByPatientId(active)).isPresent();
+		assertThat(patientArchiver.findArchived(inactive)).hasValueSatisfying(archived -> {
+			assertThat(archived.getFirstName()).isEqualTo("Arwen");
+			assertThat(archived.getStatus()).isEqualTo(Patient.PatientStatus.INACTIVE);
+		});
+		assertThat(patientNameIndex.search("arwen", 10)).isEmpty();
+		assertThat(patientIdsInList(StatusFilter.ALL)).containsExactly(active);
+	}
+
+	@Test
+	void copiesColumnsByNameIntoAnArchiveOfAnotherShape() {
+		List<String> columns = new ArrayList<>(jdbcTemplate.queryForList("SELECT COLUMN_NAME FROM "
+				+ "INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = CURRENT_SCHEMA AND TABLE_NAME = 'PATIENTS' "
+				+ "ORDER BY ORDINAL_POSITION", String.class));
+
+		// An archive created before a column was added to patients
+		recreateArchive(columns.subList(0, columns.size() - 1));
+		assertThatThrownBy(patientArchiver::createArchiveTable).isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining(columns.get(columns.size() - 1));
+
+		Collections.reverse(columns);
+		recreateArchive(columns);
+		patientArchiver.createArchiveTable();
+		Patient patient = patient("Ismay").toBuilder().lastName("Underhill").city("Bree").build();
+		String patientId = patientService.createPatient(patient).getPatientId();
+		patientService.updatePatientStatus(patientId, Patient.PatientStatus.DECEASED);
+
+		assertThat(patientArchiver.archive(Duration.ZERO)).isPositive();
+		assertThat(patientArchiver.findArchived(patientId)).hasValueSatisfying(archived -> {
+			assertThat(archived.getFirstName()).isEqualTo("Ismay");
+			assertThat(archived.getLastName()).isEqualTo("Underhill");
+			assertThat(archived.getCity()).isEqualTo("Bree");
+			assertThat(archived.getDateOfBirth()).isEqualTo(LocalDate.of(1950, 3, 4));
+			assertThat(archived.getStatus()).isEqualTo(Patient.PatientStatus.DECEASED);
+		});
+	}
+
+	private void recreateArchive(List<String> columns) {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS patients_archive");
+		jdbcTemplate.execute("CREATE TABLE patients_archive AS SELECT " + String.join(", ", columns)
+				+ " FROM patients WHERE 1 = 0");
+	}
+
+	private List<String> patientIdsInList(StatusFilter status) {
+		return patientService.getPatientsPage(null, 100, status, PatientSummary.class).items().stream()
+				.map(PatientSummary::patientId)
+				.toList();
+	}
+
+	private static Patient patient(String firstName) {
+		return Patient.builder()
+				.firstName(firstName)
+				.lastName("Archer")
+				.dateOfBirth(LocalDate.of(1950, 3, 4))
+				.gender(Patient.Gender.OTHER)
+				.build();
+	}
+}
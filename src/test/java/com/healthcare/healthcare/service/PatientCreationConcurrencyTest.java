@@ -0,0 +1,187 @@
+package com.healthcare.healthcare.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.healthcare.healthcare.controller.PatientController;
+import com.healthcare.healthcare.controller.PatientController.ApiResponse;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.repository.IdAllocationRepository;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+/**
+ * Many threads registering at once: allocated patient IDs never collide, and
+ * concurrent retries carrying one idempotency key create a single patient.
+ * The create rate is printed here and asserted by the load suite's
+ * {@code PatientCreationLoadTest}.
+ */
+@SpringBootTest(properties = "healthcare.patients.id-block-size=50")
+class PatientCreationConcurrencyTest {
+
+	private static final int THREADS = 16;
+
+	@Autowired
+	private PatientService patientService;
+
+	@Autowired
+	private PatientController patientController;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private IdAllocationRepository idAllocationRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void allocatorsSharingTheDatabaseNeverHandOutTheSameId() throws Exception {
+		// Two allocators stand in for two application nodes; tiny blocks force constant refills
+		PatientIdAllocator first = new PatientIdAllocator(idAllocationRepository, patientRepository,
+				transactionManager, 7);
+		PatientIdAllocator second = new PatientIdAllocator(idAllocationRepository, patientRepository,
+				transactionManager, 7);
+		Set<String> ids = ConcurrentHashMap.newKeySet();
+
+		List<Integer> drawn = runConcurrently(thread -> () -> {
+			PatientIdAllocator allocator = thread % 2 == 0 ? first : second;
+			int unique = 0;
+			for (int i = 0; i < 2_000; i++) {
+				if (ids.add(allocator.next())) {
+					unique++;
+				}
+			}
+			return unique;
+		});
+
+		assertThat(drawn).allMatch(unique -> unique == 2_000);
+		assertThat(ids).hasSize(THREADS * 2_000);
+		// Seeded patients were there before the first reservation; allocation starts above them
+		assertThat(ids).doesNotContain(PatientIdAllocator.format(1));
+	}
+
+	@Test
+	void concurrentCreatesGetDistinctPatientIds() throws Exception {
+		int perThread = 100;
+
+		long started = System.nanoTime();
+		List<List<String>> created = runConcurrently(thread -> () -> {
+			List<String> patientIds = new ArrayList<>(perThread);
+			for (int i = 0; i < perThread; i++) {
+				patientIds.add(patientService.createPatient(patient("Stress" + thread)).getPatientId());
+			}
+			return patientIds;
+		});
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+		Set<String> patientIds = ConcurrentHashMap.newKeySet();
+		created.forEach(patientIds::addAll);
+		assertThat(patientIds).hasSize(THREADS * perThread);
+		assertThat(patientIds).allSatisfy(id -> assertThat(patientRepository.existsByPatientId(id)).isTrue());
+
+		// Kept next to the test in the surefire report; the target rate is held by PatientCreationLoadTest
+		System.out.printf("[stress] %d creates on %d threads in %d ms, %.0f/s%n", patientIds.size(), THREADS,
+				elapsed.toMillis(), patientIds.size() * 1000.0 / Math.max(1, elapsed.toMillis()));
+	}
+
+	@Test
+	void concurrentRetriesWithOneKeyCreateOnePatient() throws Exception {
+		CountDownLatch go = new CountDownLatch(1);
+
+		List<ResponseEntity<ApiResponse<Patient>>> responses = runConcurrently(thread -> () -> {
+			go.await();
+			return patientController.createPatient(patient("Retry"), "desk-7-request-42");
+		}, go);
+
+		assertThat(responses).allSatisfy(response -> assertThat(response.getStatusCode())
+				.isEqualTo(HttpStatus.CREATED));
+		assertThat(responses).extracting(response -> response.getBody().getData().getPatientId())
+				.containsOnly(responses.get(0).getBody().getData().getPatientId());
+		assertThat(responses).filteredOn(response -> "false".equals(
+				response.getHeaders().getFirst(PatientController.IDEMPOTENT_REPLAYED_HEADER))).hasSize(1);
+
+		Patient different = patient("Retry");
+		different.setCity("Elsewhere");
+		assertThat(patientController.createPatient(different, "desk-7-request-42").getStatusCode())
+				.isEqualTo(HttpStatus.CONFLICT);
+	}
+
+	@Test
+	void callerSuppliedIdsNeitherCollideWithNorLowerAllocatedOnes() {
+		// Sorts above every generated ID without being one
+		patientService.createPatient(patient("Caller").toBuilder().patientId("PATIENT-1").build());
+		// An imported patient holding the ID the allocator hands out next
+		String probe = patientService.createPatient(patient("Probe")).getPatientId();
+		String imported = PatientIdAllocator.format(number(probe) + 1);
+		patientService.createPatient(patient("Import").toBuilder().patientId(imported).build());
+
+		String after = patientService.createPatient(patient("After")).getPatientId();
+		assertThat(number(after)).isGreaterThan(number(imported));
+
+		// A restarted allocation starts above the highest generated ID, not at the lexicographic maximum
+		new TransactionTemplate(transactionManager).executeWithoutResult(
+				status -> idAllocationRepository.deleteById(PatientIdAllocator.ALLOCATION_NAME));
+		PatientIdAllocator restarted = new PatientIdAllocator(idAllocationRepository, patientRepository,
+				transactionManager, 7);
+		assertThat(number(restarted.next())).isGreaterThan(number(after));
+	}
+
+	private static long number(String patientId) {
+		return Long.parseLong(patientId.substring(1));
+	}
+
+	private interface TaskFactory<T> {
+		Callable<T> task(int thread);
+	}
+
+	private static <T> List<T> runConcurrently(TaskFactory<T> factory, CountDownLatch... startSignals)
+			throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<T>> futures = new ArrayList<>(THREADS);
+			for (int thread = 0; thread < THREADS; thread++) {
+				futures.add(pool.submit(factory.task(thread)));
+			}
+			for (CountDownLatch signal : startSignals) {
+				signal.countDown();
+			}
+			List<T> results = new ArrayList<>(THREADS);
+			for (Future<T> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static Patient patient(String firstName) {
+		return Patient.builder()
+				.firstName(firstName)
+				.lastName("Tester")
+				.dateOfBirth(LocalDate.of(1980, 1, 1))
+				.gender(Patient.Gender.OTHER)
+				.city("Springfield")
+				.build();
+	}
+}
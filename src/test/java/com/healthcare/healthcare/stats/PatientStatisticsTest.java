@@ -0,0 +1,138 @@
+package com.healthcare.healthcare.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import com.healthcare.healthcare.dto.PatientStats;
+import com.healthcare.healthcare.entity.Patient;
+import com.healthcare.healthcare.event.PatientChangedEvent;
+import com.healthcare.healthcare.event.PatientChangedEvent.ChangeType;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+class PatientStatisticsTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+	private final PatientStatistics statistics = new PatientStatistics(null, 1);
+
+	@Test
+	void creationsAreCountedPerDimensionAndAgeBand() {
+		created(patient(1L, "Boston", "O+", LocalDate.of(2010, 1, 1)));
+		created(patient(2L, "Boston", "A-", LocalDate.of(1990, 6, 15)));
+		created(patient(3L, "Denver", "O+", LocalDate.of(1990, 6, 16)));
+
+		PatientStats stats = statistics.snapshot(TODAY);
+
+		assertThat(stats.total()).isEqualTo(3);
+		assertThat(stats.counts().get("city")).containsExactly(
+				Map.entry("Boston", 2L), Map.entry("Denver", 1L));
+		assertThat(stats.counts().get("insuranceProvider")).containsEntry(PatientStatistics.UNKNOWN, 3L);
+		// Born 1990-06-15 turns 35 today; born a day later is still 34
+		assertThat(stats.counts().get("ageBand"))
+				.containsEntry("0-17", 1L)
+				.containsEntry("30-44", 2L)
+				.containsEntry("45-64", 0L);
+	}
+
+	@Test
+	void updatesMoveCountsFromThePreviousValues() {
+		Patient original = patient(1L, "Boston", "O+", LocalDate.of(1950, 1, 1));
+		created(original);
+
+		Patient moved = original.toBuilder().city("Denver").status(Patient.PatientStatus.INACTIVE).build();
+		statistics.onPatientChanged(new PatientChangedEvent(PatientChangedEvent.ChangeType.UPDATED, moved, original));
+
+		PatientStats stats = statistics.snapshot(TODAY);
+		assertThat(stats.total()).isEqualTo(1);
+		assertThat(stats.counts().get("city")).containsOnlyKeys("Denver");
+		assertThat(stats.counts().get("status")).containsOnlyKeys("INACTIVE");
+		assertThat(stats.counts().get("ageBand")).containsEntry("65+", 1L);
+	}
+
+	@Test
+	void aRebuildSettlesChangesCommittedDuringTheScan() {
+		NavigableMap<Long, Patient> table = new TreeMap<>();
+		for (long id = 1; id <= 20_001; id += 1_000) {
+			table.put(id, patient(id, "Boston", "O+", LocalDate.of(1970, 1, 1)));
+		}
+		PatientRepository repository = mock(PatientRepository.class);
+		when(repository.findMaxId()).thenReturn(20_001L);
+		SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+		// One scan thread reads the three 10,000-id chunks in order
+		PatientStatistics rebuilding = new PatientStatistics(repository, 1);
+		when(repository.findByIdBetween(anyLong(), anyLong(), eq(PatientStatsView.class))).thenAnswer(invocation -> {
+			long from = invocation.getArgument(0);
+			long to = invocation.getArgument(1);
+			if (from == 10_001) {
+				// Rows in the chunk already read
+				commit(rebuilding, table, ChangeType.UPDATED, table.get(1L).toBuilder().city("Denver").build());
+				commit(rebuilding, table, ChangeType.ARCHIVED, table.get(2_001L));
+				// A pooled id below the scan's highest id, committed late
+				commit(rebuilding, table, ChangeType.CREATED, patient(5L, "Denver", "A-", LocalDate.of(2010, 1, 1)));
+				// Rows in the chunks not read yet, changed again after their first change
+				commit(rebuilding, table, ChangeType.UPDATED,
+						table.get(12_001L).toBuilder().city("Austin").build());
+				commit(rebuilding, table, ChangeType.STATUS_CHANGED, table.get(12_001L).toBuilder()
+						.status(Patient.PatientStatus.INACTIVE).build());
+				commit(rebuilding, table, ChangeType.ARCHIVED, table.get(20_001L));
+				// Beyond the scan's highest id
+				commit(rebuilding, table, ChangeType.CREATED,
+						patient(20_002L, "Austin", "B+", LocalDate.of(1990, 1, 1)));
+			}
+			return table.subMap(from, true, to, true).values().stream()
+					.map(patient -> projections.createProjection(PatientStatsView.class, patient))
+					.toList();
+		});
+
+		assertThat(rebuilding.rebuild()).isEqualTo(table.size());
+
+		PatientStatistics expected = new PatientStatistics(null, 1);
+		table.values().forEach(patient -> expected.onPatientChanged(
+				new PatientChangedEvent(ChangeType.CREATED, patient)));
+		PatientStats stats = rebuilding.snapshot(TODAY);
+		assertThat(stats.counts()).isEqualTo(expected.snapshot(TODAY).counts());
+		assertThat(stats.counts().get("city"))
+				.containsEntry("Denver", 2L)
+				.containsEntry("Austin", 2L);
+		assertThat(stats.counts().get("status")).containsEntry("INACTIVE", 1L);
+	}
+
+	private void created(Patient patient) {
+		statistics.onPatientChanged(new PatientChangedEvent(PatientChangedEvent.ChangeType.CREATED, patient));
+	}
+
+	// Writes the change to the table and delivers its event, as a commit would
+	private static void commit(PatientStatistics statistics, Map<Long, Patient> table, ChangeType type,
+			Patient patient) {
+		Patient previous = type == ChangeType.CREATED ? null : table.get(patient.getId());
+		if (type == ChangeType.ARCHIVED) {
+			table.remove(patient.getId());
+		} else {
+			table.put(patient.getId(), patient);
+		}
+		statistics.onPatientChanged(new PatientChangedEvent(type, patient,
+				type == ChangeType.ARCHIVED ? null : previous));
+	}
+
+	private static Patient patient(Long id, String city, String bloodGroup, LocalDate dateOfBirth) {
+		return Patient.builder()
+				.id(id)
+				.city(city)
+				.bloodGroup(bloodGroup)
+				.dateOfBirth(dateOfBirth)
+				.gender(Patient.Gender.FEMALE)
+				.status(Patient.PatientStatus.ACTIVE)
+				.build();
+	}
+}
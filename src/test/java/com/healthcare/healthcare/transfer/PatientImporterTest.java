@@ -0,0 +1,87 @@
+package com.healthcare.healthcare.transfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.healthcare.healthcare.dto.ImportReport;
+import com.healthcare.healthcare.dto.ImportReport.RowError;
+import com.healthcare.healthcare.repository.PatientRepository;
+
+@SpringBootTest(properties = "healthcare.patients.import.chunk-size=2")
+class PatientImporterTest {
+
+	private static final String HEADER = "patientId,firstName,lastName,dateOfBirth,gender,city\n";
+
+	@Autowired
+	private PatientImporter importer;
+
+	@Autowired
+	private PatientExporter exporter;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Test
+	void badRowsAreReportedWithoutRejectingTheirChunk() throws Exception {
+		String tooLong = "x".repeat(60);
+		String csv = "patientId,firstName,lastName,dateOfBirth,gender,city,email\n"
+				+ "IMP-1,Ada,Lovelace,1815-12-10,FEMALE,London,\n"
+				+ "IMP-2,Alan,,1912-06-23,MALE,London,\n"
+				+ "IMP-3,Grace,Hopper,not-a-date,FEMALE,,\n"
+				+ "IMP-1,Ada,Again,1815-12-10,FEMALE,London,\n"
+				// Would fail the column length on insert; validation rejects it first
+				+ "IMP-4," + tooLong + ",Turing,1912-06-23,MALE,London,\n"
+				+ "IMP-5,Edsger,Dijkstra,1930-05-11,MALE,,\n"
+				+ "IMP-6,Barbara,Liskov,2999-11-07,FEMALE,Boston,not-an-address\n";
+
+		ImportReport report = importCsv(csv);
+
+		assertThat(report.complete()).isTrue();
+		assertThat(report.rowsRead()).isEqualTo(7);
+		assertThat(report.imported()).isEqualTo(2);
+		assertThat(report.rejected()).isEqualTo(5);
+		assertThat(report.errors()).extracting(RowError::row).containsExactly(2L, 3L, 4L, 5L, 7L);
+		// Violations are named the way a rejected create request names them
+		assertThat(report.errors()).extracting(RowError::message)
+				.contains("lastName must not be blank")
+				.contains("firstName size must be between 0 and 50")
+				.contains("dateOfBirth must be a date in the past or in the present; "
+						+ "email must be a well-formed email address");
+		assertThat(patientRepository.findByPatientId("IMP-1")).isPresent();
+		assertThat(patientRepository.findByPatientId("IMP-5")).isPresent();
+		assertThat(patientRepository.findByPatientId("IMP-4")).isEmpty();
+		assertThat(patientRepository.findByPatientId("IMP-6")).isEmpty();
+	}
+
+	@Test
+	void exportedCsvImportsBackOnceIdsAreFree() throws Exception {
+		importCsv(HEADER + "RT-1,Ada,Lovelace,1815-12-10,FEMALE,London\n");
+		ByteArrayOutputStream exported = new ByteArrayOutputStream();
+		exporter.export(TransferFormat.CSV, false, exported);
+		String csv = exported.toString(StandardCharsets.UTF_8);
+		assertThat(csv).contains(",RT-1,Ada,Lovelace,1815-12-10,FEMALE,");
+
+		// Everything exported is already stored, so a straight re-import only reports duplicates
+		ImportReport again = importCsv(csv);
+		assertThat(again.complete()).isTrue();
+		assertThat(again.imported()).isZero();
+		assertThat(again.rejected()).isEqualTo(again.rowsRead());
+
+		ImportReport renamed = importCsv(csv.replace(",RT-1,", ",RT-2,"));
+		assertThat(renamed.imported()).isEqualTo(1);
+		assertThat(patientRepository.findByPatientId("RT-2")).get()
+				.satisfies(patient -> assertThat(patient.getCity()).isEqualTo("London"));
+	}
+
+	private ImportReport importCsv(String csv) throws Exception {
+		return importer.importPatients(TransferFormat.CSV, false,
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+	}
+}
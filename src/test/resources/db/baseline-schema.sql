@@ -0,0 +1,32 @@
+-- The patients table as the first release generated it, before any script in db/manual
+CREATE TABLE patients (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    patient_id VARCHAR(20) NOT NULL UNIQUE,
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    date_of_birth DATE NOT NULL,
+    gender ENUM('FEMALE', 'MALE', 'OTHER') NOT NULL,
+    blood_group VARCHAR(5),
+    phone_number VARCHAR(15),
+    email VARCHAR(100),
+    address VARCHAR(500),
+    city VARCHAR(50),
+    state VARCHAR(50),
+    zip_code VARCHAR(10),
+    country VARCHAR(50),
+    emergency_contact_name VARCHAR(100),
+    emergency_contact_phone VARCHAR(15),
+    emergency_contact_relation VARCHAR(50),
+    insurance_provider VARCHAR(100),
+    insurance_number VARCHAR(50),
+    marital_status ENUM('DIVORCED', 'MARRIED', 'SEPARATED', 'SINGLE', 'WIDOWED'),
+    occupation VARCHAR(100),
+    nationality VARCHAR(50),
+    identification_type VARCHAR(20),
+    identification_number VARCHAR(50),
+    status TINYINT NOT NULL CHECK (status BETWEEN 0 AND 3),
+    registration_date TIMESTAMP(6) NOT NULL,
+    last_visit_date TIMESTAMP(6),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6)
+);